@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Response size and latency of GET /api/sweets in JSON, CBOR and Smile, for the current catalog.
+# Each format prints one CSV row: label,format,bytes,requests/s,p50 ms,p99 ms.
+# JSON is served from the catalog snapshot, CBOR and Smile are encoded per request.
+#
+# Usage:  EMAIL=admin@example.com PASSWORD=secret ./bench/binary-formats-bench.sh [label]
+#
+# Seed the catalog at the size to compare first (e.g. 1,000 and 100,000 sweets) and label the run after it.
+#
+# Environment:
+#   BASE_URL     backend URL                       (default http://localhost:8080)
+#   CONCURRENCY  concurrent connections            (default 16)
+#   DURATION     duration of each run              (default 20s)
+set -euo pipefail
+
+LABEL=${1:-run}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+CONCURRENCY=${CONCURRENCY:-16}
+DURATION=${DURATION:-20s}
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+TOKEN=$(curl -sf -H 'Content-Type: application/json' \
+  -d "{\"email\":\"${EMAIL:?EMAIL is required}\",\"password\":\"${PASSWORD:?PASSWORD is required}\"}" \
+  "$BASE_URL/api/auth/login" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+echo "label,format,bytes,rps,p50_ms,p99_ms"
+for format in json:application/json cbor:application/cbor smile:application/x-jackson-smile; do
+  name=${format%%:*}
+  type=${format#*:}
+  # Uncompressed size, as a POS client without gzip would receive it
+  bytes=$(curl -sf -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" -H "Accept: $type" \
+    "$BASE_URL/api/sweets")
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" -H "Accept: $type" \
+    "$BASE_URL/api/sweets" | awk -v label="$LABEL" -v name="$name" -v bytes="$bytes" '
+    /Requests\/sec/ { rps = $2 }
+    /50% in/ { p50 = $3 }
+    /99% in/ { p99 = $3 }
+    END { printf "%s,%s,%d,%.0f,%.2f,%.2f\n", label, name, bytes, rps, p50 * 1000, p99 * 1000 }'
+done
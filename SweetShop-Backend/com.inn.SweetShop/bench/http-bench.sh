@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# HTTP load benchmark for the catalog and purchase endpoints.
+# Prints requests/s and the latency distribution (including p99) reported by `hey`.
+#
+# Usage:  EMAIL=admin@example.com PASSWORD=secret ./bench/http-bench.sh [label]
+#
+# Compare platform and virtual threads by starting the backend twice:
+#   VIRTUAL_THREADS=false mvn spring-boot:run   ->  ./bench/http-bench.sh platform
+#   VIRTUAL_THREADS=true  mvn spring-boot:run   ->  ./bench/http-bench.sh virtual
+#
+# Environment:
+#   BASE_URL     backend URL                       (default http://localhost:8080)
+#   SWEET_ID     sweet used by the purchase run    (default S000001, restock it generously first)
+#   CONCURRENCY  concurrent connections            (default 200)
+#   DURATION     duration of each run              (default 30s)
+set -euo pipefail
+
+LABEL=${1:-run}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+SWEET_ID=${SWEET_ID:-S000001}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-30s}
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+TOKEN=$(curl -sf -H 'Content-Type: application/json' \
+  -d "{\"email\":\"${EMAIL:?EMAIL is required}\",\"password\":\"${PASSWORD:?PASSWORD is required}\"}" \
+  "$BASE_URL/api/auth/login" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+run() {
+  local name=$1; shift
+  echo "=== [$LABEL] $name (c=$CONCURRENCY, z=$DURATION)"
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$@" \
+    | grep -E 'Requests/sec|99% in|95% in|50% in|Status code|\[[0-9]{3}\]'
+}
+
+run "GET /api/sweets" "$BASE_URL/api/sweets"
+run "GET /api/sweets/search" "$BASE_URL/api/sweets/search?category=Milk"
+run "POST /api/sweets/$SWEET_ID/purchase" -m POST -T application/json -d '{"quantity":1}' \
+  "$BASE_URL/api/sweets/$SWEET_ID/purchase"
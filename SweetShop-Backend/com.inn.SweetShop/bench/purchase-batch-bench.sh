@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Latency/throughput curve of the purchase endpoint, for comparing group-commit settings.
+# Each concurrency level prints one CSV row: label,concurrency,requests/s,p50 ms,p99 ms.
+# Needs the backend on PostgreSQL - purchase batching is disabled on other databases.
+#
+# Usage:  EMAIL=admin@example.com PASSWORD=secret ./bench/purchase-batch-bench.sh [label]
+#
+# Restart the backend for each setting and label the run after it:
+#   PURCHASE_BATCHING=false mvn spring-boot:run                                         ->  ... off
+#   PURCHASE_BATCHING=true  mvn spring-boot:run -Dspring-boot.run.arguments=--sweetshop.purchases.window-ms=1  ->  ... window-1ms
+#   PURCHASE_BATCHING=true  mvn spring-boot:run -Dspring-boot.run.arguments=--sweetshop.purchases.window-ms=5  ->  ... window-5ms
+#
+# Environment:
+#   BASE_URL     backend URL                                  (default http://localhost:8080)
+#   SWEET_IDS    sweets bought round-robin, one hey run each   (default "S000001 S000002 S000003 S000004")
+#   LEVELS       concurrency levels of the curve               (default "1 8 32 128 512")
+#   DURATION     duration of each point                        (default 20s)
+set -euo pipefail
+
+LABEL=${1:-run}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+SWEET_IDS=${SWEET_IDS:-S000001 S000002 S000003 S000004}
+LEVELS=${LEVELS:-1 8 32 128 512}
+DURATION=${DURATION:-20s}
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+TOKEN=$(curl -sf -H 'Content-Type: application/json' \
+  -d "{\"email\":\"${EMAIL:?EMAIL is required}\",\"password\":\"${PASSWORD:?PASSWORD is required}\"}" \
+  "$BASE_URL/api/auth/login" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+set -- $SWEET_IDS
+SWEETS=$#
+
+# Enough stock that no point sells out
+for id in $SWEET_IDS; do
+  curl -sf -o /dev/null -H "Authorization: Bearer $TOKEN" -H 'Content-Type: application/json' \
+    -X POST -d '{"quantity":10000000}' "$BASE_URL/api/sweets/$id/restock"
+done
+
+echo "label,concurrency,rps,p50_ms,p99_ms"
+for c in $LEVELS; do
+  # Split the connections over the sweets, so a batch carries several sweets like real traffic
+  per=$(( (c + SWEETS - 1) / SWEETS ))
+  out=$(mktemp -d)
+  for id in $SWEET_IDS; do
+    hey -z "$DURATION" -c "$per" -H "Authorization: Bearer $TOKEN" \
+      -m POST -T application/json -d '{"quantity":1}' "$BASE_URL/api/sweets/$id/purchase" > "$out/$id" &
+  done
+  wait
+  # Throughput adds up across the runs, latency percentiles are the worst of them
+  cat "$out"/* | awk -v label="$LABEL" -v c="$c" '
+    /Requests\/sec/ { rps += $2 }
+    /50% in/ { if ($3 > p50) p50 = $3 }
+    /99% in/ { if ($3 > p99) p99 = $3 }
+    END { printf "%s,%d,%.0f,%.2f,%.2f\n", label, c, rps, p50 * 1000, p99 * 1000 }'
+  rm -rf "$out"
+done
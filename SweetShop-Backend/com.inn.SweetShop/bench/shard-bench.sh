@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Purchase throughput on one hot sweet as its stock counter is split across more shards.
+# Needs the backend on PostgreSQL - sharded stock is disabled on other databases.
+#
+# Usage:  EMAIL=admin@example.com PASSWORD=secret ./bench/shard-bench.sh
+#
+# Environment:
+#   BASE_URL     backend URL                          (default http://localhost:8080)
+#   SWEET_ID     hot sweet, restocked before each run  (default S000001)
+#   SHARDS       shard counts to compare               (default "1 2 4 8 16")
+#   CONCURRENCY  concurrent connections                (default 200)
+#   DURATION     duration of each run                  (default 30s)
+set -euo pipefail
+
+BASE_URL=${BASE_URL:-http://localhost:8080}
+SWEET_ID=${SWEET_ID:-S000001}
+SHARDS=${SHARDS:-1 2 4 8 16}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-30s}
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+
+TOKEN=$(curl -sf -H 'Content-Type: application/json' \
+  -d "{\"email\":\"${EMAIL:?EMAIL is required}\",\"password\":\"${PASSWORD:?PASSWORD is required}\"}" \
+  "$BASE_URL/api/auth/login" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+admin() {
+  curl -sf -o /dev/null -H "Authorization: Bearer $TOKEN" -H 'Content-Type: application/json' "$@"
+}
+
+for n in $SHARDS; do
+  # Enough stock that no run sells out, then spread it over n shards
+  admin -X POST -d '{"quantity":10000000}' "$BASE_URL/api/sweets/$SWEET_ID/restock"
+  admin -X PUT -d "{\"shards\":$n}" "$BASE_URL/api/sweets/$SWEET_ID/stock-shards"
+  echo "=== shards=$n (c=$CONCURRENCY, z=$DURATION)"
+  hey -z "$DURATION" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" \
+    -m POST -T application/json -d '{"quantity":1}' "$BASE_URL/api/sweets/$SWEET_ID/purchase" \
+    | grep -E 'Requests/sec|99% in|50% in|\[[0-9]{3}\]'
+done
+
+# Leave the sweet unsharded again
+admin -X PUT -d '{"shards":1}' "$BASE_URL/api/sweets/$SWEET_ID/stock-shards"
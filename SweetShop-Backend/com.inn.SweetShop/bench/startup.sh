@@ -0,0 +1,79 @@
+#!/usr/bin/env bash
+# Startup time of the backend per build mode, averaged over several cold starts.
+# Each start is timed from launch to the first successful GET /api/sweets (login, then a 200 with the token),
+# the log's "Started ... in X seconds" is printed next to it.
+#
+# Usage:  ./bench/startup.sh [mode] [application arguments...]
+#
+# Modes and the build each one needs:
+#   jvm      mvn package                  java -jar target/sweetshop-backend-0.0.1-SNAPSHOT.jar
+#   aot      mvn -Paot package            same jar with -Dspring.aot.enabled=true
+#   cds      mvn -Pcds package            java -XX:SharedArchiveFile=target/cds/app.jsa -jar target/cds/...-cds.jar
+#   aot-cds  mvn -Paot,cds package        cds with -Dspring.aot.enabled=true
+#   native   mvn -Pnative native:compile  target/sweetshop-backend
+#
+# Compare the old boot-time schema update with migrations applied at deploy time (mvn flyway:migrate first):
+#   ./bench/startup.sh jvm --spring.jpa.hibernate.ddl-auto=update --sweetshop.schema.validate=false
+#   ./bench/startup.sh jvm
+#
+# Environment:
+#   EMAIL, PASSWORD  an approved user        (required)
+#   PORT             port for the runs       (default 18080, must be free)
+#   RUNS             starts per mode         (default 5)
+#   JAVA_OPTS        extra JVM options       (default none)
+# DB_URL, DB_USERNAME and DB_PASSWORD come from .env as for a normal start.
+set -euo pipefail
+
+MODE=${1:-jvm}
+shift || true
+PORT=${PORT:-18080}
+RUNS=${RUNS:-5}
+JAVA_OPTS=${JAVA_OPTS:-}
+: "${EMAIL:?set EMAIL and PASSWORD to an approved user}"
+: "${PASSWORD:?set EMAIL and PASSWORD to an approved user}"
+
+JAR=target/sweetshop-backend-0.0.1-SNAPSHOT.jar
+CDS_JAR=target/cds/sweetshop-backend-0.0.1-SNAPSHOT-cds.jar
+case "$MODE" in
+  jvm)     BUILT=$JAR;                 CMD="java $JAVA_OPTS -jar $JAR" ;;
+  aot)     BUILT=$JAR;                 CMD="java $JAVA_OPTS -Dspring.aot.enabled=true -jar $JAR" ;;
+  cds)     BUILT=target/cds/app.jsa;   CMD="java $JAVA_OPTS -XX:SharedArchiveFile=target/cds/app.jsa -jar $CDS_JAR" ;;
+  aot-cds) BUILT=target/cds/app.jsa;   CMD="java $JAVA_OPTS -XX:SharedArchiveFile=target/cds/app.jsa -Dspring.aot.enabled=true -jar $CDS_JAR" ;;
+  native)  BUILT=target/sweetshop-backend; CMD="target/sweetshop-backend" ;;
+  *) echo "Unknown mode $MODE, use jvm, aot, cds, aot-cds or native" >&2; exit 1 ;;
+esac
+[ -e "$BUILT" ] || { echo "$BUILT not found, build the $MODE mode first (see the top of this script)" >&2; exit 1; }
+
+BASE=http://localhost:$PORT/api
+LOGIN=$(printf '{"email":"%s","password":"%s"}' "$EMAIL" "$PASSWORD")
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+  log=$(mktemp)
+  start=$(now_ms)
+  # shellcheck disable=SC2086
+  $CMD --server.port="$PORT" "$@" > "$log" 2>&1 &
+  pid=$!
+  while true; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "[$MODE] run $run failed to start, see $log" >&2
+      exit 1
+    fi
+    token=$(curl -s -X POST "$BASE/auth/login" -H 'Content-Type: application/json' -d "$LOGIN" \
+      | sed -nE 's/.*"token":"([^"]+)".*/\1/p' || true)
+    if [ -n "$token" ] && [ "$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $token" "$BASE/sweets")" = 200 ]; then
+      break
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  started=$(sed -nE 's/.*Started .* in ([0-9.]+) seconds.*/\1/p' "$log" | head -1)
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -f "$log"
+  echo "[$MODE] run $run: first GET /api/sweets after ${elapsed} ms (Started in ${started:-?}s)"
+  total=$(( total + elapsed ))
+done
+echo "[$MODE] mean over $RUNS runs: $(( total / RUNS )) ms to first successful GET /api/sweets"
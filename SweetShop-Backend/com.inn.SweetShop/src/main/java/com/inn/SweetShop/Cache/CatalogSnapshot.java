@@ -0,0 +1,153 @@
+package com.inn.SweetShop.Cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full catalog (GET /api/sweets) as ready-to-send JSON bytes, optionally pre-gzipped, tagged with the
+ * CatalogVersion it was read at (sweetshop.catalog.snapshot.enabled)
+ * Every write moves the catalog version and queues one background re-encode; until it lands the snapshot
+ * is not current and requests take the usual findAll path. A current snapshot is written to the response
+ * as is - no query, no entities, no JSON encoding.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshot {
+
+    /**
+     * One encoded catalog
+     * @param version catalog version read before the sweets were loaded
+     * @param gzip the same JSON gzip-compressed, null when pre-compression is off
+     */
+    public record Encoded(long version, String eTag, byte[] json, byte[] gzip, int sweets) {
+    }
+
+    @Autowired
+    private SweetDao sweetDao;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Boot's mapper, so the bytes match what the JSON message converter would have written
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${sweetshop.catalog.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sweetshop.catalog.snapshot.gzip:true}")
+    private boolean gzip;
+
+    private final ExecutorService encoder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot-encode");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean encodeQueued = new AtomicBoolean();
+    private volatile Encoded snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        requestEncode();
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        requestEncode();
+    }
+
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (CacheInvalidationEvent.SWEETS.equals(event.getRegion())) {
+            requestEncode();
+        }
+    }
+
+    /**
+     * The snapshot at the current catalog version
+     * @return the encoded catalog, or null when it is off or behind the catalog version and the caller must
+     * read the database; a miss queues the re-encode, so the next request finds it current
+     */
+    public Encoded current() {
+        if (!enabled) {
+            return null;
+        }
+        Encoded current = snapshot;
+        if (current == null || current.version() != catalogVersion.current()) {
+            requestEncode();
+            return null;
+        }
+        return current;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        encoder.shutdownNow();
+    }
+
+    private void requestEncode() {
+        if (enabled && encodeQueued.compareAndSet(false, true)) {
+            encoder.execute(this::encode);
+        }
+    }
+
+    private void encode() {
+        encodeQueued.set(false);
+        // Read before loading, so a write racing the load can only leave the snapshot older than its data
+        long version = catalogVersion.current();
+        Encoded current = snapshot;
+        if (current != null && current.version() == version) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            // On the primary, a lagging replica would store old data under the new version
+            List<Sweet> sweets = transactionTemplate.execute(status -> sweetDao.findAll());
+            byte[] json = objectMapper.writeValueAsBytes(sweets);
+            snapshot = new Encoded(version, catalogVersion.catalogETag(version), json,
+                    gzip ? compress(json) : null, sweets == null ? 0 : sweets.size());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Could not encode the catalog snapshot, GET /api/sweets keeps using the database: ", ex);
+            return;
+        }
+        log.debug("Catalog snapshot v{} encoded: {} sweets, {} KB, {} ms", version, snapshot.sweets(),
+                snapshot.json().length / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 4));
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(out)) {
+            gzipStream.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,118 @@
+package com.inn.SweetShop.Cache;
+
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide and per-sweet versions used as HTTP entity tags
+ * The catalog version is bumped on every committed write, per-sweet versions mirror the @Version column
+ * Writes on other nodes arrive through the InvalidationBus and bump it the same way
+ */
+@Component
+public class CatalogVersion {
+
+    // Distinguishes catalog versions of different JVM runs, which all start counting from zero
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Long> sweetVersions = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (event.getType() == SweetChangedEvent.ChangeType.DELETED || event.getSweet() == null
+                || event.getSweet().getVersion() == null) {
+            sweetVersions.remove(event.getSweetId());
+        } else {
+            sweetVersions.merge(event.getSweetId(), event.getSweet().getVersion(), Math::max);
+        }
+        version.incrementAndGet();
+    }
+
+    // Another node wrote - the catalog tag must move here too, or this node keeps answering 304 with old data
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.SWEETS.equals(event.getRegion())) {
+            return;
+        }
+        if (event.isWholeRegion()) {
+            sweetVersions.clear();
+        } else if (event.getVersion() == null || SweetChangedEvent.ChangeType.DELETED.name().equals(event.getChange())) {
+            sweetVersions.remove(event.getKey());
+        } else {
+            sweetVersions.merge(event.getKey(), event.getVersion(), Math::max);
+        }
+        version.incrementAndGet();
+    }
+
+    // Current catalog version, read it before querying so a concurrent write can only make the tag older
+    public long current() {
+        return version.get();
+    }
+
+    // Strong ETag for list and search responses at the given catalog version
+    public String catalogETag(long catalogVersion) {
+        return "\"c" + epoch + "-" + catalogVersion + "\"";
+    }
+
+    // Last known version of a sweet, or null when it has to be read from the database
+    public Long knownVersion(String sweetId) {
+        return sweetVersions.get(sweetId);
+    }
+
+    // Remember a version read from the database, unless a write happened since the read started
+    public void remember(String sweetId, Long sweetVersion, long catalogVersionAtRead) {
+        if (sweetVersion != null && version.get() == catalogVersionAtRead) {
+            sweetVersions.merge(sweetId, sweetVersion, Math::max);
+        }
+    }
+
+    // Strong ETag for a single sweet, derived from its @Version so it is stable across nodes and restarts
+    public static String sweetETag(String sweetId, Long sweetVersion) {
+        return "\"" + sweetId + "-" + sweetVersion + "\"";
+    }
+
+    // Version encoded in a sweet ETag, or null when the tag does not belong to this sweet
+    public static Long parseSweetETag(String sweetId, String eTag) {
+        if (eTag == null) {
+            return null;
+        }
+        String tag = eTag.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        String prefix = "\"" + sweetId + "-";
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // If-None-Match check using weak comparison, as RFC 9110 requires for GET
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
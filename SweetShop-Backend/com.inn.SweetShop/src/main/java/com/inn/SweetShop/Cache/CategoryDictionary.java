@@ -0,0 +1,221 @@
+package com.inn.SweetShop.Cache;
+
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.InvalidationBus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory two-way dictionary between category ids and names
+ * Loaded once on first use, new categories are created on demand and shared by every node through the table.
+ * A node that creates one announces it on the InvalidationBus; a search that matches no category at all
+ * also reloads the table (at most once per miss-reload-ms), in case that notice never arrived.
+ * Uses plain JDBC rather than JPA because it is called from CategoryConverter while Hibernate is flushing.
+ */
+@Slf4j
+@Component
+public class CategoryDictionary {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // A new category commits on its own, so its id stays valid even when the sweet's transaction rolls back
+    private final TransactionTemplate newTransaction;
+
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile long loadedAtNanos;
+
+    // Provider, the bus is only looked up when a category is created - long after startup
+    @Autowired
+    private ObjectProvider<InvalidationBus> invalidationBus;
+
+    @Value("${sweetshop.categories.miss-reload-ms:5000}")
+    private long missReloadMs;
+
+    @Autowired
+    public CategoryDictionary(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Id for a category name, creating the category when it does not exist yet; matching ignores case
+    public Integer idFor(String name) {
+        if (name == null) {
+            return null;
+        }
+        ensureLoaded();
+        String trimmed = name.trim();
+        Integer id = ids.get(key(trimmed));
+        if (id != null) {
+            return id;
+        }
+        try {
+            id = newTransaction.execute(status -> findOrInsert(trimmed));
+            // Committed by now, so other nodes can read it as soon as the notice arrives
+            InvalidationBus bus = invalidationBus.getIfAvailable();
+            if (bus != null) {
+                bus.publish(new CacheInvalidationEvent(CacheInvalidationEvent.CATEGORIES, String.valueOf(id),
+                        "ADDED", null, null));
+            }
+        } catch (DuplicateKeyException ex) {
+            // Another request or node created it first
+            id = newTransaction.execute(status -> find(trimmed));
+        }
+        return id;
+    }
+
+    // Canonical name for a category id, or null for null
+    public String nameFor(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        ensureLoaded();
+        String name = names.get(id);
+        if (name == null) {
+            // Created by another node since the dictionary was loaded
+            load(id);
+            name = names.get(id);
+        }
+        return name;
+    }
+
+    // Ids of categories whose name contains the fragment, ignoring case - the old ILIKE '%fragment%' match
+    public List<Integer> idsMatching(String fragment) {
+        ensureLoaded();
+        String needle = key(fragment);
+        List<Integer> matches = match(needle);
+        // Another node may have created the category and its notice not arrived, the reload is rate-limited
+        // because a search for a category that really does not exist lands here every time
+        if (matches.isEmpty() && System.nanoTime() - loadedAtNanos > TimeUnit.MILLISECONDS.toNanos(missReloadMs)) {
+            reloadIfOlderThan(missReloadMs);
+            matches = match(needle);
+        }
+        return matches;
+    }
+
+    // Another node created a category, or notices were lost and everything must be re-read
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.CATEGORIES.equals(event.getRegion()) || !loaded) {
+            return;
+        }
+        if (event.isWholeRegion()) {
+            reload();
+        } else {
+            load(Integer.valueOf(event.getKey()));
+        }
+    }
+
+    public void reload() {
+        loadLock.lock();
+        try {
+            jdbcTemplate.query("SELECT id, name FROM categories", rs -> {
+                put(rs.getInt("id"), rs.getString("name"));
+            });
+            loaded = true;
+            loadedAtNanos = System.nanoTime();
+            log.info("Category dictionary loaded with {} categories", names.size());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // Concurrent misses share one reload, the later ones find it fresh once they get the lock
+    private void reloadIfOlderThan(long ageMs) {
+        loadLock.lock();
+        try {
+            if (System.nanoTime() - loadedAtNanos > TimeUnit.MILLISECONDS.toNanos(ageMs)) {
+                reload();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load(int id) {
+        jdbcTemplate.query("SELECT id, name FROM categories WHERE id = ?",
+                rs -> {
+                    put(rs.getInt("id"), rs.getString("name"));
+                }, id);
+    }
+
+    private List<Integer> match(String needle) {
+        List<Integer> matches = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            if (entry.getKey().contains(needle)) {
+                matches.add(entry.getValue());
+            }
+        }
+        return matches;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            loadLock.lock();
+            try {
+                if (!loaded) {
+                    reload();
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    private Integer findOrInsert(String name) {
+        Integer id = find(name);
+        if (id != null) {
+            return id;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO categories (name) VALUES (?)", new String[]{"id"});
+            ps.setString(1, name);
+            return ps;
+        }, keyHolder);
+        id = keyHolder.getKey().intValue();
+        put(id, name);
+        return id;
+    }
+
+    private Integer find(String name) {
+        List<Integer> found = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, name FROM categories WHERE LOWER(name) = LOWER(?)", rs -> {
+            put(rs.getInt("id"), rs.getString("name"));
+            found.add(rs.getInt("id"));
+        }, name);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private void put(int id, String name) {
+        names.put(id, name);
+        ids.put(key(name), id);
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
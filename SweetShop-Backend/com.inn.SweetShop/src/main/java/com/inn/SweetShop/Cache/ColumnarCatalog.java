@@ -0,0 +1,235 @@
+package com.inn.SweetShop.Cache;
+
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional read model serving searchSweets from an off-heap ColumnarSnapshot (sweetshop.catalog.columnar.enabled)
+ * Purchases and restocks patch quantities in place; adds, edits and deletes mark the snapshot stale and
+ * trigger a background rebuild, and searches fall back to the database until it is current again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sweetshop.catalog.columnar.enabled", havingValue = "true")
+public class ColumnarCatalog {
+
+    private static final String LOAD = "SELECT id, name, category_id, price, quantity, description, "
+            + "reorder_threshold, version, change_seq FROM sweets ORDER BY price, id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "columnar-catalog-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    // Guards patches, the stale flag and the hand-over from a finished rebuild
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<SweetChangedEvent> patchesDuringRebuild = new ArrayList<>();
+    private volatile ColumnarSnapshot snapshot;
+    private volatile boolean stale = true;
+    private boolean rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        requestRebuild();
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        lock.lock();
+        try {
+            boolean quantityOnly = switch (event.getType()) {
+                case PURCHASED, RESTOCKED, RESERVED, RELEASED, STOCK_SYNCED -> true;
+                default -> false;
+            };
+            if (quantityOnly && event.getSweet() != null && event.getSweet().getVersion() != null) {
+                ColumnarSnapshot current = snapshot;
+                if (current != null && !patch(current, event)) {
+                    markStale();
+                }
+                if (rebuilding) {
+                    // Replayed onto the snapshot being built, which may have read the row before this change
+                    patchesDuringRebuild.add(event);
+                }
+            } else {
+                markStale();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Another node's write - a stock change carries quantity and version and is patched like a local one
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.SWEETS.equals(event.getRegion())) {
+            return;
+        }
+        Sweet sweet = null;
+        SweetChangedEvent.ChangeType type = SweetChangedEvent.ChangeType.UPDATED;
+        if (!event.isWholeRegion() && event.getQuantity() != null && event.getVersion() != null) {
+            sweet = new Sweet();
+            sweet.setId(event.getKey());
+            sweet.setQuantity(event.getQuantity());
+            sweet.setVersion(event.getVersion());
+            type = SweetChangedEvent.ChangeType.valueOf(event.getChange());
+        }
+        onSweetChanged(new SweetChangedEvent(type, event.getKey(), sweet, 0, null));
+    }
+
+    /**
+     * Search on price and category without touching the database
+     * @return sweets ordered by price, or null when the snapshot is not current and the caller must query the database
+     */
+    public List<Sweet> search(String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        ColumnarSnapshot current = snapshot;
+        if (current == null || stale) {
+            return null;
+        }
+        BitSet categories = null;
+        if (category != null) {
+            categories = new BitSet();
+            for (Integer categoryId : categoryDictionary.idsMatching(category)) {
+                categories.set(categoryId);
+            }
+        }
+        long minCents = minPrice == null ? Long.MIN_VALUE : minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+        long maxCents = maxPrice == null ? Long.MAX_VALUE : maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+        int[] rows = current.search(categories, minCents, maxCents);
+
+        List<Sweet> sweets = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            sweets.add(toSweet(current, row));
+        }
+        return sweets;
+    }
+
+    public boolean isCurrent() {
+        return snapshot != null && !stale;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    // Caller holds the lock
+    private void markStale() {
+        stale = true;
+        requestRebuild();
+    }
+
+    private void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        lock.lock();
+        try {
+            rebuilding = true;
+            patchesDuringRebuild.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        ColumnarSnapshot next;
+        long started = System.nanoTime();
+        try {
+            next = load();
+        } catch (RuntimeException ex) {
+            log.error("Could not build the columnar catalog, searches keep using the database: ", ex);
+            lock.lock();
+            try {
+                rebuilding = false;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            for (SweetChangedEvent event : patchesDuringRebuild) {
+                patch(next, event);
+            }
+            patchesDuringRebuild.clear();
+            rebuilding = false;
+            snapshot = next;
+            // A structural change that arrived meanwhile has queued another rebuild, stay stale until it lands
+            stale = rebuildQueued.get();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Columnar catalog rebuilt: {} sweets, {} KB off-heap, {} ms", next.size(), next.offHeapBytes() / 1024,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Streams the table in price order on the primary, straight into the off-heap columns
+    private ColumnarSnapshot load() {
+        return transactionTemplate.execute(status -> {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sweets", Integer.class);
+            ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder(count == null ? 0 : count);
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(LOAD);
+                statement.setFetchSize(10_000);
+                return statement;
+            }, rs -> {
+                Integer threshold = rs.getObject("reorder_threshold", Integer.class);
+                Long changeSeq = rs.getObject("change_seq", Long.class);
+                builder.add(rs.getString("id"), rs.getString("name"), rs.getInt("category_id"),
+                        rs.getBigDecimal("price").movePointRight(2).longValue(), rs.getInt("quantity"),
+                        rs.getString("description"), threshold == null ? ColumnarSnapshot.NULL_INT : threshold,
+                        rs.getLong("version"), changeSeq == null ? ColumnarSnapshot.NULL_LONG : changeSeq);
+            });
+            return builder.build();
+        });
+    }
+
+    private static boolean patch(ColumnarSnapshot target, SweetChangedEvent event) {
+        return target.patchQuantity(event.getSweetId(), event.getSweet().getQuantity(), event.getSweet().getVersion());
+    }
+
+    private Sweet toSweet(ColumnarSnapshot current, int row) {
+        Sweet sweet = new Sweet(current.id(row), current.name(row), categoryDictionary.nameFor(current.categoryId(row)),
+                BigDecimal.valueOf(current.priceCents(row), 2), current.quantity(row), current.description(row));
+        int threshold = current.reorderThreshold(row);
+        sweet.setReorderThreshold(threshold == ColumnarSnapshot.NULL_INT ? null : threshold);
+        long changeSeq = current.changeSeq(row);
+        sweet.setChangeSeq(changeSeq == ColumnarSnapshot.NULL_LONG ? null : changeSeq);
+        sweet.setVersion(current.version(row));
+        return sweet;
+    }
+}
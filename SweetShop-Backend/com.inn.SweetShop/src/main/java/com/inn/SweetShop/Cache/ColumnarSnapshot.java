@@ -0,0 +1,299 @@
+package com.inn.SweetShop.Cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable-layout, off-heap column store of the catalog, sorted by price
+ * Every column lives in a direct ByteBuffer, so a million sweets add almost nothing to the Java heap and
+ * filtering touches only primitive columns: a price range is two binary searches, a category filter a bit test.
+ * Strings (id, name, description) sit length-prefixed in one UTF-8 blob and are decoded only for result rows.
+ * Only quantity and version can change in place; anything else needs a new snapshot.
+ */
+class ColumnarSnapshot {
+
+    static final int NULL_INT = -1;
+    static final long NULL_LONG = -1L;
+
+    private final int rows;
+    private final ByteBuffer priceCents;
+    private final ByteBuffer quantity;
+    private final ByteBuffer categoryId;
+    private final ByteBuffer reorderThreshold;
+    private final ByteBuffer version;
+    private final ByteBuffer changeSeq;
+    private final ByteBuffer idOffset;
+    private final ByteBuffer nameOffset;
+    private final ByteBuffer descriptionOffset;
+    private final ByteBuffer strings;
+
+    // Open-addressing id -> row + 1 table, 0 marks an empty slot
+    private final ByteBuffer idIndex;
+    private final int idIndexMask;
+
+    private ColumnarSnapshot(Builder builder) {
+        this.rows = builder.rows;
+        this.priceCents = builder.priceCents;
+        this.quantity = builder.quantity;
+        this.categoryId = builder.categoryId;
+        this.reorderThreshold = builder.reorderThreshold;
+        this.version = builder.version;
+        this.changeSeq = builder.changeSeq;
+        this.idOffset = builder.idOffset;
+        this.nameOffset = builder.nameOffset;
+        this.descriptionOffset = builder.descriptionOffset;
+        this.strings = builder.strings;
+
+        int slots = Integer.highestOneBit(Math.max(rows, 1) * 2 - 1) << 1;
+        this.idIndex = ByteBuffer.allocateDirect(slots * Integer.BYTES);
+        this.idIndexMask = slots - 1;
+        for (int row = 0; row < rows; row++) {
+            int slot = slotFor(idHash(id(row)));
+            while (idIndex.getInt(slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & idIndexMask;
+            }
+            idIndex.putInt(slot * Integer.BYTES, row + 1);
+        }
+    }
+
+    static Builder builder(int expectedRows) {
+        return new Builder(Math.max(expectedRows, 16));
+    }
+
+    int size() {
+        return rows;
+    }
+
+    // Rows with a price in [minCents, maxCents] whose category is in the set (null matches every category)
+    int[] search(BitSet categories, long minCents, long maxCents) {
+        int from = firstRowWithPriceAtLeast(minCents);
+        int to = maxCents == Long.MAX_VALUE ? rows : firstRowWithPriceAtLeast(maxCents + 1);
+        int[] matches = new int[Math.max(0, Math.min(to - from, 1024))];
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if (categories == null || categories.get(categoryId(row))) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, Math.max(16, matches.length * 2));
+                }
+                matches[count++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    // Row of a sweet id, or -1
+    int rowOf(String id) {
+        byte[] wanted = id.getBytes(StandardCharsets.UTF_8);
+        int slot = slotFor(idHash(id));
+        while (true) {
+            int entry = idIndex.getInt(slot * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (stringEquals(idOffset.getInt((entry - 1) * Integer.BYTES), wanted)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & idIndexMask;
+        }
+    }
+
+    // Apply a newer quantity in place; false when the sweet is not in the snapshot. Callers serialize patches.
+    boolean patchQuantity(String id, int newQuantity, long newVersion) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        if (newVersion > version(row)) {
+            quantity.putInt(row * Integer.BYTES, newQuantity);
+            version.putLong(row * Long.BYTES, newVersion);
+        }
+        return true;
+    }
+
+    long priceCents(int row) {
+        return priceCents.getLong(row * Long.BYTES);
+    }
+
+    int quantity(int row) {
+        return quantity.getInt(row * Integer.BYTES);
+    }
+
+    int categoryId(int row) {
+        return categoryId.getInt(row * Integer.BYTES);
+    }
+
+    int reorderThreshold(int row) {
+        return reorderThreshold.getInt(row * Integer.BYTES);
+    }
+
+    long version(int row) {
+        return version.getLong(row * Long.BYTES);
+    }
+
+    long changeSeq(int row) {
+        return changeSeq.getLong(row * Long.BYTES);
+    }
+
+    String id(int row) {
+        return readString(idOffset.getInt(row * Integer.BYTES));
+    }
+
+    String name(int row) {
+        return readString(nameOffset.getInt(row * Integer.BYTES));
+    }
+
+    String description(int row) {
+        return readString(descriptionOffset.getInt(row * Integer.BYTES));
+    }
+
+    // Direct memory held by this snapshot
+    long offHeapBytes() {
+        return (long) priceCents.capacity() + quantity.capacity() + categoryId.capacity() + reorderThreshold.capacity()
+                + version.capacity() + changeSeq.capacity() + idOffset.capacity() + nameOffset.capacity()
+                + descriptionOffset.capacity() + strings.capacity() + idIndex.capacity();
+    }
+
+    private int firstRowWithPriceAtLeast(long cents) {
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (priceCents(mid) < cents) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String readString(int offset) {
+        if (offset == NULL_INT) {
+            return null;
+        }
+        byte[] bytes = new byte[strings.getInt(offset)];
+        strings.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int offset, byte[] wanted) {
+        if (strings.getInt(offset) != wanted.length) {
+            return false;
+        }
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < wanted.length; i++) {
+            if (strings.get(start + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotFor(int hash) {
+        return hash & idIndexMask;
+    }
+
+    private static int idHash(String id) {
+        int hash = id.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Appends rows, which must arrive in ascending price order; columns grow by doubling
+     */
+    static final class Builder {
+
+        private int capacity;
+        private int rows;
+        private long lastPrice = Long.MIN_VALUE;
+        private ByteBuffer priceCents;
+        private ByteBuffer quantity;
+        private ByteBuffer categoryId;
+        private ByteBuffer reorderThreshold;
+        private ByteBuffer version;
+        private ByteBuffer changeSeq;
+        private ByteBuffer idOffset;
+        private ByteBuffer nameOffset;
+        private ByteBuffer descriptionOffset;
+        private ByteBuffer strings;
+        private int stringsLength;
+
+        private Builder(int capacity) {
+            this.capacity = capacity;
+            this.priceCents = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+            this.quantity = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.categoryId = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.reorderThreshold = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.version = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+            this.changeSeq = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+            this.idOffset = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.nameOffset = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.descriptionOffset = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            // Room for roughly 64 bytes of id, name and description per sweet before the first resize
+            this.strings = ByteBuffer.allocateDirect(capacity * 64);
+        }
+
+        Builder add(String id, String name, int category, long cents, int units, String description,
+                    int threshold, long rowVersion, long rowChangeSeq) {
+            if (cents < lastPrice) {
+                throw new IllegalStateException("Rows must be added in ascending price order");
+            }
+            lastPrice = cents;
+            if (rows == capacity) {
+                growColumns();
+            }
+            priceCents.putLong(rows * Long.BYTES, cents);
+            quantity.putInt(rows * Integer.BYTES, units);
+            categoryId.putInt(rows * Integer.BYTES, category);
+            reorderThreshold.putInt(rows * Integer.BYTES, threshold);
+            version.putLong(rows * Long.BYTES, rowVersion);
+            changeSeq.putLong(rows * Long.BYTES, rowChangeSeq);
+            idOffset.putInt(rows * Integer.BYTES, appendString(id));
+            nameOffset.putInt(rows * Integer.BYTES, appendString(name));
+            descriptionOffset.putInt(rows * Integer.BYTES, appendString(description));
+            rows++;
+            return this;
+        }
+
+        ColumnarSnapshot build() {
+            return new ColumnarSnapshot(this);
+        }
+
+        private int appendString(String value) {
+            if (value == null) {
+                return NULL_INT;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int needed = stringsLength + Integer.BYTES + bytes.length;
+            if (needed > strings.capacity()) {
+                strings = copy(strings, Math.max(needed, strings.capacity() * 2));
+            }
+            int offset = stringsLength;
+            strings.putInt(offset, bytes.length);
+            strings.put(offset + Integer.BYTES, bytes);
+            stringsLength = needed;
+            return offset;
+        }
+
+        private void growColumns() {
+            capacity *= 2;
+            priceCents = copy(priceCents, capacity * Long.BYTES);
+            quantity = copy(quantity, capacity * Integer.BYTES);
+            categoryId = copy(categoryId, capacity * Integer.BYTES);
+            reorderThreshold = copy(reorderThreshold, capacity * Integer.BYTES);
+            version = copy(version, capacity * Long.BYTES);
+            changeSeq = copy(changeSeq, capacity * Long.BYTES);
+            idOffset = copy(idOffset, capacity * Integer.BYTES);
+            nameOffset = copy(nameOffset, capacity * Integer.BYTES);
+            descriptionOffset = copy(descriptionOffset, capacity * Integer.BYTES);
+        }
+
+        private static ByteBuffer copy(ByteBuffer source, int newCapacity) {
+            ByteBuffer target = ByteBuffer.allocateDirect(newCapacity);
+            target.put(0, source, 0, source.capacity());
+            return target;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.inn.SweetShop.Cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.utils.SweetUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of write requests sent with an Idempotency-Key header, so a client retry
+ * gets the original response instead of purchasing or restocking a second time
+ * Entries live in a bounded in-memory map for sweetshop.idempotency.ttl; with sweetshop.idempotency.durable
+ * they are also written to the idempotency_keys table (PostgreSQL), which covers restarts and other nodes.
+ * Duplicates that arrive while the first request is still running wait for its result instead of executing.
+ * A durable claim is a lease: if its run dies before recording the outcome, a retry with the same request takes
+ * the key over once claim-lease has passed, instead of getting "in progress" until the key expires.
+ * Endpoints answering with a JSON object (the bulk endpoint) go through executeJson, which stores the body as JSON.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${sweetshop.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${sweetshop.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    // How long a duplicate waits for the in-flight original before it is told to retry later
+    @Value("${sweetshop.idempotency.in-flight-wait-ms:10000}")
+    private long inFlightWaitMs;
+
+    @Value("${sweetshop.idempotency.durable:false}")
+    private boolean durableRequested;
+
+    // Longer than any keyed write takes, so a live run never loses its claim
+    @Value("${sweetshop.idempotency.claim-lease:PT60S}")
+    private Duration claimLease;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Insertion order, every entry has the same TTL, so the head is always the oldest
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private volatile boolean durable;
+
+    @PostConstruct
+    public void initialize() {
+        if (!durableRequested) {
+            return;
+        }
+        try {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Durable idempotency keys disabled, they need PostgreSQL but found {}", database);
+                return;
+            }
+            durable = true;
+        } catch (DataAccessException ex) {
+            log.error("Could not check the database, idempotency keys are kept in memory only: ", ex);
+        }
+    }
+
+    /**
+     * Run the write at most once per user and key
+     * @param key         Idempotency-Key header value, null runs the write unguarded
+     * @param scope       who is asking, keys of different users never collide
+     * @param fingerprint operation and arguments, reusing a key for a different request is rejected with 422
+     */
+    public ResponseEntity<String> execute(String key, String scope, String fingerprint,
+                                          Supplier<ResponseEntity<String>> write) {
+        if (key == null) {
+            return write.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return SweetUtils.getResponseEntity(SweetConstants.INVALID_IDEMPOTENCY_KEY, HttpStatus.BAD_REQUEST);
+        }
+        String scopedKey = scope + ":" + key;
+
+        long now = System.nanoTime();
+        Entry entry = new Entry(fingerprint, now + ttl.toNanos());
+        Entry existing = entries.putIfAbsent(scopedKey, entry);
+        while (existing != null) {
+            // An expired answer is as good as absent, even before the cleanup job has removed it
+            if (!existing.isExpired(now) || !existing.result.isDone()) {
+                return replay(existing, fingerprint);
+            }
+            existing = entries.replace(scopedKey, existing, entry) ? null : entries.putIfAbsent(scopedKey, entry);
+        }
+        insertionOrder.add(scopedKey);
+        evictOverflow();
+
+        if (durable) {
+            ResponseEntity<String> claimed = claimInDatabase(scopedKey, fingerprint);
+            if (claimed != null) {
+                entries.remove(scopedKey, entry);
+                entry.result.complete(claimed);
+                return claimed;
+            }
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = write.get();
+        } catch (RuntimeException ex) {
+            forget(scopedKey, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+        if (isFinal(response.getStatusCode())) {
+            entry.result.complete(response);
+            if (durable) {
+                saveInDatabase(scopedKey, response);
+            }
+        } else {
+            // Auth failures, conflicts and server errors are not outcomes of the write, a retry may run it
+            forget(scopedKey, entry);
+            entry.result.complete(response);
+        }
+        return response;
+    }
+
+    /**
+     * execute for a write answering with a JSON object - stored as its JSON and read back as bodyType on replay
+     * @return the write's response or its replay, or the store's own refusal (invalid key, reused key, in progress)
+     * with its message body
+     */
+    public <T> ResponseEntity<?> executeJson(String key, String scope, String fingerprint, Class<T> bodyType,
+                                             Supplier<ResponseEntity<T>> write) {
+        List<ResponseEntity<T>> ran = new ArrayList<>(1);
+        ResponseEntity<String> response = execute(key, scope, fingerprint, () -> {
+            ResponseEntity<T> original = write.get();
+            ran.add(original);
+            return ResponseEntity.status(original.getStatusCode()).headers(original.getHeaders())
+                    .body(original.getBody() == null ? null : toJson(original.getBody()));
+        });
+        if (!ran.isEmpty()) {
+            return ran.get(0);
+        }
+        if (!"true".equals(response.getHeaders().getFirst(REPLAYED_HEADER)) || response.getBody() == null) {
+            return response;
+        }
+        try {
+            return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders())
+                    .body(objectMapper.readValue(response.getBody(), bodyType));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored response is not a " + bodyType.getSimpleName(), ex);
+        }
+    }
+
+    // Operation plus a hash of the request body, for writes whose arguments are a whole JSON document
+    public String bodyFingerprint(String operation, Object body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(toJson(body).getBytes(StandardCharsets.UTF_8));
+            return operation + ":" + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Every 5 minutes, the in-memory map also drops old entries as new ones push it over max-entries
+    @Scheduled(fixedDelayString = "${sweetshop.idempotency.cleanup-ms:300000}")
+    public void removeExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now) && e.getValue().result.isDone());
+        insertionOrder.removeIf(key -> !entries.containsKey(key));
+        if (durable) {
+            try {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < now()");
+            } catch (DataAccessException ex) {
+                log.warn("Could not remove expired idempotency keys: {}", ex.getMessage());
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private ResponseEntity<String> replay(Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            return SweetUtils.getResponseEntity(SweetConstants.IDEMPOTENCY_KEY_REUSED, HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        try {
+            return replayed(existing.result.get(inFlightWaitMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException ex) {
+            return SweetUtils.getResponseEntity(SweetConstants.IDEMPOTENCY_KEY_IN_PROGRESS, HttpStatus.CONFLICT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return SweetUtils.getResponseEntity(SweetConstants.IDEMPOTENCY_KEY_IN_PROGRESS, HttpStatus.CONFLICT);
+        } catch (ExecutionException ex) {
+            // The original failed without a response, nothing was stored - the client retries with the same key
+            return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Null when this node now owns the key, otherwise the stored or in-progress answer from another run
+    // An expired key, or a lapsed claim of the same request that never recorded an outcome, is taken over
+    private ResponseEntity<String> claimInDatabase(String scopedKey, String fingerprint) {
+        try {
+            int claimed = jdbcTemplate.update("INSERT INTO idempotency_keys"
+                            + " (scoped_key, fingerprint, expires_at, lease_until)"
+                            + " VALUES (?, ?, ?, now() + ? * interval '1 millisecond')"
+                            + " ON CONFLICT (scoped_key) DO UPDATE SET fingerprint = EXCLUDED.fingerprint,"
+                            + " status_code = NULL, body = NULL, etag = NULL, created_at = now(),"
+                            + " expires_at = EXCLUDED.expires_at, lease_until = EXCLUDED.lease_until"
+                            + " WHERE idempotency_keys.expires_at < now()"
+                            + " OR (idempotency_keys.status_code IS NULL AND idempotency_keys.lease_until < now()"
+                            + " AND idempotency_keys.fingerprint = EXCLUDED.fingerprint)",
+                    scopedKey, fingerprint, Timestamp.from(Instant.now().plus(ttl)), claimLease.toMillis());
+            if (claimed == 1) {
+                return null;
+            }
+            List<ResponseEntity<String>> stored = jdbcTemplate.query(
+                    "SELECT fingerprint, status_code, body, etag FROM idempotency_keys WHERE scoped_key = ?",
+                    (rs, rowNum) -> {
+                        if (!fingerprint.equals(rs.getString("fingerprint"))) {
+                            return SweetUtils.getResponseEntity(SweetConstants.IDEMPOTENCY_KEY_REUSED,
+                                    HttpStatus.UNPROCESSABLE_ENTITY);
+                        }
+                        int status = rs.getInt("status_code");
+                        if (rs.wasNull()) {
+                            // Claimed by a run that is still within its lease
+                            return SweetUtils.getResponseEntity(SweetConstants.IDEMPOTENCY_KEY_IN_PROGRESS,
+                                    HttpStatus.CONFLICT);
+                        }
+                        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+                        if (rs.getString("etag") != null) {
+                            builder.eTag(rs.getString("etag"));
+                        }
+                        return replayed(builder.body(rs.getString("body")));
+                    }, scopedKey);
+            // Expired and deleted between the insert and the select, let this run go ahead unguarded
+            return stored.isEmpty() ? null : stored.get(0);
+        } catch (DataAccessException ex) {
+            log.warn("Idempotency key {} not claimed in the database, using memory only: {}", scopedKey, ex.getMessage());
+            return null;
+        }
+    }
+
+    // The write has committed - a failed UPDATE is tried once more, an unrecorded claim lets a retry redo it
+    private void saveInDatabase(String scopedKey, ResponseEntity<String> response) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.update("UPDATE idempotency_keys SET status_code = ?, body = ?, etag = ?"
+                                + " WHERE scoped_key = ?", response.getStatusCode().value(), response.getBody(),
+                        response.getHeaders().getETag(), scopedKey);
+                return;
+            } catch (DataAccessException ex) {
+                if (attempt >= 2) {
+                    log.error("Could not store the response for idempotency key {}, other nodes may run it again "
+                            + "once its claim lease has passed: {}", scopedKey, ex.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize " + body.getClass().getSimpleName(), ex);
+        }
+    }
+
+    private void forget(String scopedKey, Entry entry) {
+        entries.remove(scopedKey, entry);
+        if (durable) {
+            try {
+                jdbcTemplate.update("DELETE FROM idempotency_keys WHERE scoped_key = ? AND status_code IS NULL", scopedKey);
+            } catch (DataAccessException ex) {
+                log.warn("Could not release idempotency key {}: {}", scopedKey, ex.getMessage());
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxEntries) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            // An in-flight entry is never dropped, duplicates are waiting on it
+            if (entry != null && entry.result.isDone()) {
+                entries.remove(oldest, entry);
+            } else if (entry != null) {
+                insertionOrder.add(oldest);
+                return;
+            }
+        }
+    }
+
+    private static boolean isFinal(HttpStatusCode status) {
+        return status.is2xxSuccessful() || (status.is4xxClientError() && status.value() != 401
+                && status.value() != 403 && status.value() != 409 && status.value() != 429);
+    }
+
+    private static ResponseEntity<String> replayed(ResponseEntity<String> original) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(original.getBody(), headers, original.getStatusCode());
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final long expiresAtNanos;
+        private final CompletableFuture<ResponseEntity<String>> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long expiresAtNanos) {
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
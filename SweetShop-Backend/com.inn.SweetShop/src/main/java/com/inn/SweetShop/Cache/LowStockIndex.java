@@ -0,0 +1,157 @@
+package com.inn.SweetShop.Cache;
+
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.LowStockEvent;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of sweets at or below their reorder threshold, most depleted first
+ * Loaded once at startup and then kept current from SweetChangedEvent, so reads never scan the sweets table
+ * Other nodes' writes arrive as CacheInvalidationEvent and re-read just that sweet
+ * A sweet's own threshold wins over its category threshold, which wins over the shop default
+ */
+@Slf4j
+@Component
+public class LowStockIndex {
+
+    // Fewest units left first, ties broken by id so entries for different sweets never compare equal
+    private static final Comparator<LowStockWrapper> MOST_DEPLETED_FIRST = Comparator
+            .comparingInt(LowStockWrapper::getQuantity)
+            .thenComparing(LowStockWrapper::getId);
+
+    @Autowired
+    private SweetDao sweetDao;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sweetshop.inventory.default-reorder-threshold:5}")
+    private int defaultThreshold;
+
+    @Value("#{${sweetshop.inventory.category-thresholds:{:}}}")
+    private Map<String, Integer> categoryThresholds;
+
+    private final NavigableSet<LowStockWrapper> lowStock = new ConcurrentSkipListSet<>(MOST_DEPLETED_FIRST);
+
+    // Per-sweet state, updated with compute() so changes to one sweet are applied one at a time
+    private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Sweet> sweets = sweetDao.findAll();
+        sweets.forEach(this::apply);
+        log.info("Low-stock index loaded from {} sweets, {} at or below threshold", sweets.size(), lowStock.size());
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (event.getType() == SweetChangedEvent.ChangeType.DELETED) {
+            remove(event.getSweetId());
+        } else if (event.getSweet() != null) {
+            apply(event.getSweet());
+        }
+    }
+
+    // Another node changed a sweet - the notice has no name or threshold, so the row is read back
+    @EventListener
+    public void onCacheInvalidation(CacheInvalidationEvent event) {
+        if (!CacheInvalidationEvent.SWEETS.equals(event.getRegion())) {
+            return;
+        }
+        if (event.isWholeRegion()) {
+            load();
+        } else {
+            sweetDao.findById(event.getKey()).ifPresentOrElse(this::apply, () -> remove(event.getKey()));
+        }
+    }
+
+    // Current low-stock set - O(k) in the number of low sweets
+    public List<LowStockWrapper> lowStock() {
+        return new ArrayList<>(lowStock);
+    }
+
+    public int thresholdFor(Sweet sweet) {
+        if (sweet.getReorderThreshold() != null) {
+            return sweet.getReorderThreshold();
+        }
+        Integer categoryThreshold = categoryThresholds.get(sweet.getCategory());
+        return categoryThreshold != null ? categoryThreshold : defaultThreshold;
+    }
+
+    private void remove(String sweetId) {
+        tracked.computeIfPresent(sweetId, (id, current) -> {
+            if (current.entry != null) {
+                lowStock.remove(current.entry);
+            }
+            return null;
+        });
+    }
+
+    private void apply(Sweet sweet) {
+        if (sweet.getId() == null || sweet.getQuantity() == null) {
+            return;
+        }
+        LowStockEvent[] crossing = new LowStockEvent[1];
+        tracked.compute(sweet.getId(), (id, current) -> {
+            // The startup load can race with live events, never let an older row replace a newer one
+            if (current != null && current.version != null && sweet.getVersion() != null
+                    && sweet.getVersion() < current.version) {
+                return current;
+            }
+            int threshold = thresholdFor(sweet);
+            boolean wasLow = current != null && current.entry != null;
+            boolean isLow = sweet.getQuantity() <= threshold;
+            if (wasLow) {
+                lowStock.remove(current.entry);
+            }
+            LowStockWrapper entry = null;
+            if (isLow) {
+                entry = new LowStockWrapper(id, sweet.getName(), sweet.getCategory(), sweet.getQuantity(), threshold);
+                lowStock.add(entry);
+            }
+            // Sweets seen for the first time only count as a crossing when they start out low
+            if (wasLow != isLow && (current != null || isLow)) {
+                crossing[0] = new LowStockEvent(id, sweet.getName(), sweet.getQuantity(), threshold, isLow);
+            }
+            return new Tracked(sweet.getVersion(), entry);
+        });
+        if (crossing[0] != null) {
+            if (crossing[0].isLow()) {
+                log.warn("Sweet {} ({}) is low on stock: {} left, threshold {}", crossing[0].getSweetId(),
+                        crossing[0].getName(), crossing[0].getQuantity(), crossing[0].getThreshold());
+            }
+            eventPublisher.publishEvent(crossing[0]);
+        }
+    }
+
+    private static final class Tracked {
+
+        private final Long version;
+
+        // Entry in the low-stock set, null while the sweet is above its threshold
+        private final LowStockWrapper entry;
+
+        private Tracked(Long version, LowStockWrapper entry) {
+            this.version = version;
+            this.entry = entry;
+        }
+    }
+}
@@ -16,4 +16,80 @@ public class SweetConstants {
 
     // Authorization error for admin-only operations
     public static final String ADMIN_ONLY = "This operation requires admin privileges.";
-}
\ No newline at end of file
+
+    // Conflict error when a concurrent request changed the sweet first
+    public static final String CONCURRENT_MODIFICATION = "Sweet was modified by another request. Please reload and retry.";
+
+    // Precondition error when an If-Match entity tag no longer matches the sweet
+    public static final String PRECONDITION_FAILED = "Sweet has changed since it was read. Please reload and retry.";
+
+    // Outcome messages for sweet endpoints
+    public static final String SWEET_ADDED = "Sweet added successfully";
+
+    public static final String SWEET_UPDATED = "Sweet updated successfully";
+
+    public static final String SWEET_DELETED = "Sweet deleted successfully";
+
+    public static final String SWEET_NOT_FOUND = "Sweet not found";
+
+    public static final String DUPLICATE_SWEET_NAME = "Sweet with this name already exists";
+
+    public static final String INVALID_QUANTITY = "Invalid quantity";
+
+    // Idempotency-Key errors - malformed key, key reused for another request, original still running
+    public static final String INVALID_IDEMPOTENCY_KEY = "Idempotency-Key must be 1 to 255 characters";
+
+    public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency-Key was already used for a different request";
+
+    public static final String IDEMPOTENCY_KEY_IN_PROGRESS = "A request with this Idempotency-Key is still in progress. Please retry shortly.";
+
+    // Reservation messages
+    public static final String RESERVATION_CONFIRMED = "Reservation confirmed";
+
+    public static final String RESERVATION_RELEASED = "Reservation released";
+
+    public static final String RESERVATION_NOT_FOUND = "Reservation not found";
+
+    public static final String RESERVATION_NOT_HELD = "Reservation has already been confirmed, released or expired";
+
+    public static final String INVALID_RESERVATION_TTL = "Reservation TTL must be between 1 second and the configured maximum";
+
+    public static final String RESERVATION_UNAVAILABLE_SHARDED = "Sweet has sharded stock and cannot be reserved";
+
+    public static final String QUANTITY_BELOW_HELD = "Quantity cannot be less than the units held by open reservations";
+
+    public static final String SWEET_HAS_HELD_STOCK = "Sweet has open reservations, release them before deleting it";
+
+    // Stock shard messages
+    public static final String STOCK_SHARDS_UPDATED = "Stock shards updated";
+
+    public static final String INVALID_SHARD_COUNT = "Shard count must be between 1 and 64";
+
+    public static final String STOCK_SHARDS_WITH_HELD_STOCK = "Sweet has open reservations, release them before sharding its stock";
+
+    public static final String STOCK_SHARDS_UNSUPPORTED = "Sharded stock needs PostgreSQL";
+
+    // Bulk operation item messages
+    public static final String BULK_INVALID_OPERATION = "Operation needs a type, a sweet id and a valid value for its type";
+
+    public static final String BULK_DUPLICATE_OPERATION = "Sweet already has a conflicting operation in this request";
+
+    public static final String BULK_SHARDED_STOCK = "Sweet has sharded stock, use the restock endpoint";
+
+    public static final String BULK_HELD_STOCK = "Sweet has open reservations, release them before deleting it";
+
+    public static final String BULK_NOT_APPLIED = "Not applied, another operation in this atomic request failed";
+
+    // Outcome messages for user endpoints
+    public static final String REGISTERED = "Successfully Registered";
+
+    public static final String EMAIL_EXISTS = "Email already exists";
+
+    public static final String AWAITING_APPROVAL = "Wait for Admin Approval.";
+
+    public static final String WRONG_CREDENTIALS = "Wrong Credentials";
+
+    public static final String USER_STATUS_UPDATED = "User Status Successfully Updated";
+
+    public static final String USER_NOT_FOUND = "User id doesn't exist";
+}
@@ -0,0 +1,22 @@
+package com.inn.SweetShop.Dao;
+
+import com.inn.SweetShop.POJO.StockReservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StockReservationDao extends JpaRepository<StockReservation, String> {
+
+    // Open holds, reloaded into the expiry wheel at startup
+    List<StockReservation> findByStatus(String status);
+
+    // Holds past their expiry that are still HELD, oldest first, for the periodic sweep
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = 'HELD' AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<String> findOverdueIds(@Param("now") Instant now, Pageable page);
+}
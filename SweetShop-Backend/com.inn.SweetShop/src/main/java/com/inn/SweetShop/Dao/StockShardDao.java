@@ -0,0 +1,185 @@
+package com.inn.SweetShop.Dao;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock of hot sweets split across sweet_stock_shards rows, so concurrent purchases lock different rows
+ * A sweet with n shards holds its stock in rows 0..n-1; every row is kept non-negative by a CHECK,
+ * and a purchase only ever decrements rows it has locked, so the total can never be oversold.
+ * PostgreSQL only - the table comes from the V1 migration and isAvailable() stays false on other databases.
+ */
+@Slf4j
+@Repository
+public class StockShardDao {
+
+    // One round trip: the first shard at or after a random start that has the units and is not locked
+    // by another purchase. SKIP LOCKED moves on instead of queueing behind the holder.
+    private static final String TAKE_FROM_ONE = "WITH pick AS ("
+            + " SELECT shard FROM sweet_stock_shards WHERE sweet_id = :sweetId AND quantity >= :quantity"
+            + " ORDER BY (shard + :shards - :start) % :shards LIMIT 1 FOR UPDATE SKIP LOCKED)"
+            + " UPDATE sweet_stock_shards s SET quantity = s.quantity - :quantity FROM pick"
+            + " WHERE s.sweet_id = :sweetId AND s.shard = pick.shard";
+
+    // Shard order, so two slow-path purchases of one sweet cannot deadlock
+    private static final String LOCK_ALL = "SELECT shard, quantity FROM sweet_stock_shards"
+            + " WHERE sweet_id = :sweetId ORDER BY shard FOR UPDATE";
+
+    private static final String TOTAL = "SELECT COALESCE(SUM(quantity), 0) FROM sweet_stock_shards WHERE sweet_id = :sweetId";
+
+    // Even split, the first total % n shards get one unit more
+    private static final String SPREAD = "UPDATE sweet_stock_shards"
+            + " SET quantity = :total / :shards + CASE WHEN shard < :total % :shards THEN 1 ELSE 0 END"
+            + " WHERE sweet_id = :sweetId";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            String database = jdbcTemplate.getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Sharded stock disabled, it needs PostgreSQL but found {}", database);
+                return;
+            }
+            available = true;
+        } catch (DataAccessException ex) {
+            log.error("Could not check the database, sharded stock is disabled: ", ex);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Take quantity units from the sweet's shards
+     * Tries one shard without waiting first; only when no single unlocked shard has enough does it lock
+     * every shard and take across several, which also covers stock fragmented into small remainders
+     * @return false when the shards together hold fewer than quantity units
+     */
+    public boolean take(String sweetId, int quantity, int shards) {
+        MapSqlParameterSource params = new MapSqlParameterSource("sweetId", sweetId)
+                .addValue("quantity", quantity)
+                .addValue("shards", shards)
+                .addValue("start", ThreadLocalRandom.current().nextInt(shards));
+        if (jdbcTemplate.update(TAKE_FROM_ONE, params) == 1) {
+            return true;
+        }
+        Boolean taken = transactionTemplate.execute(status -> takeAcrossShards(sweetId, quantity));
+        return Boolean.TRUE.equals(taken);
+    }
+
+    public int total(String sweetId) {
+        Integer total = jdbcTemplate.queryForObject(TOTAL, new MapSqlParameterSource("sweetId", sweetId), Integer.class);
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * Add units (restock) and spread the new total evenly, so a drained shard does not keep failing fast-path takes
+     * @return the new total
+     */
+    public int addAndRebalance(String sweetId, int quantity) {
+        Integer total = transactionTemplate.execute(status -> {
+            int newTotal = lockAll(sweetId).stream().mapToInt(row -> row[1]).sum() + quantity;
+            spread(sweetId, newTotal);
+            return newTotal;
+        });
+        return total == null ? 0 : total;
+    }
+
+    // Set the total outright (admin edit of quantity), spread evenly
+    public void rebalance(String sweetId, int total) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lockAll(sweetId);
+            spread(sweetId, total);
+        });
+    }
+
+    /**
+     * Replace the sweet's shards with shards rows holding total units between them
+     * Runs in the caller's transaction, which must hold the sweets row lock
+     */
+    public void split(String sweetId, int total, int shards) {
+        remove(sweetId);
+        List<SqlParameterSource> rows = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            rows.add(new MapSqlParameterSource("sweetId", sweetId)
+                    .addValue("shard", shard)
+                    .addValue("quantity", total / shards + (shard < total % shards ? 1 : 0)));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sweet_stock_shards (sweet_id, shard, quantity)"
+                + " VALUES (:sweetId, :shard, :quantity)", rows.toArray(new SqlParameterSource[0]));
+    }
+
+    /**
+     * Delete the sweet's shards, in the caller's transaction
+     * @return the units they held
+     */
+    public int remove(String sweetId) {
+        int total = lockAll(sweetId).stream().mapToInt(row -> row[1]).sum();
+        jdbcTemplate.update("DELETE FROM sweet_stock_shards WHERE sweet_id = :sweetId",
+                new MapSqlParameterSource("sweetId", sweetId));
+        return total;
+    }
+
+    private Boolean takeAcrossShards(String sweetId, int quantity) {
+        List<int[]> rows = lockAll(sweetId);
+        if (rows.stream().mapToInt(row -> row[1]).sum() < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        List<SqlParameterSource> updates = new ArrayList<>();
+        for (int[] row : rows) {
+            if (remaining == 0) {
+                break;
+            }
+            int taken = Math.min(row[1], remaining);
+            if (taken > 0) {
+                updates.add(new MapSqlParameterSource("sweetId", sweetId)
+                        .addValue("shard", row[0])
+                        .addValue("taken", taken));
+                remaining -= taken;
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE sweet_stock_shards SET quantity = quantity - :taken"
+                + " WHERE sweet_id = :sweetId AND shard = :shard", updates.toArray(new SqlParameterSource[0]));
+        return true;
+    }
+
+    // {shard, quantity} per row, locked until the transaction ends
+    private List<int[]> lockAll(String sweetId) {
+        return jdbcTemplate.query(LOCK_ALL, new MapSqlParameterSource("sweetId", sweetId),
+                (rs, rowNum) -> new int[]{rs.getInt("shard"), rs.getInt("quantity")});
+    }
+
+    private void spread(String sweetId, int total) {
+        int shards = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sweet_stock_shards WHERE sweet_id = :sweetId",
+                new MapSqlParameterSource("sweetId", sweetId), Integer.class);
+        if (shards == 0) {
+            return;
+        }
+        jdbcTemplate.update(SPREAD, new MapSqlParameterSource("sweetId", sweetId)
+                .addValue("total", total)
+                .addValue("shards", shards));
+    }
+}
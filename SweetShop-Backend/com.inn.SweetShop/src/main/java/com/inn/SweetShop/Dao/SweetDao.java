@@ -1,44 +1,35 @@
 package com.inn.SweetShop.Dao;
 
 import com.inn.SweetShop.POJO.Sweet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SweetDao extends JpaRepository<Sweet, String> {
+public interface SweetDao extends JpaRepository<Sweet, String>, SweetDaoCustom {
 
     // Search by name (case-insensitive)
     List<Sweet> findByNameContainingIgnoreCase(String name);
 
-    // Search by category (case-insensitive)
-    List<Sweet> findByCategoryContainingIgnoreCase(String category);
-
     // Search by price range
     List<Sweet> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
 
-    // ✅ FIXED Combined Search (PostgreSQL-safe)
-    @Query(
-            value = """
-            SELECT *
-            FROM sweets
-            WHERE (:name IS NULL OR name ILIKE '%' || :name || '%')
-              AND (:category IS NULL OR category ILIKE '%' || :category || '%')
-              AND (:minPrice IS NULL OR price >= :minPrice)
-              AND (:maxPrice IS NULL OR price <= :maxPrice)
-        """,
-            nativeQuery = true
-    )
-    List<Sweet> searchSweets(
-            @Param("name") String name,
-            @Param("category") String category,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice
-    );
     @Query(value = "SELECT id FROM sweets ORDER BY id DESC LIMIT 1", nativeQuery = true)
     String getLastSweetId();
+
+    // Load a sweet and hold its row lock until the surrounding transaction ends (pessimistic locking mode)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sweet s WHERE s.id = :id")
+    Optional<Sweet> findByIdForUpdate(@Param("id") String id);
+
+    // Shard count alone - a scalar, so pessimistic mode can check it without loading an entity it then locks
+    @Query("SELECT s.stockShards FROM Sweet s WHERE s.id = :id")
+    Integer findStockShardsById(@Param("id") String id);
 }
@@ -0,0 +1,121 @@
+package com.inn.SweetShop.Dao;
+
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangeWrapper;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written SweetDao operations that Spring Data cannot derive
+ */
+public interface SweetDaoCustom {
+
+    /**
+     * Apply a partial update with a single UPDATE ... RETURNING, touching only the given columns
+     * @param changes field name to new value, only name, category, price, quantity, description and reorderThreshold are allowed
+     * @param expectedVersion version the row must still have, or null to update unconditionally
+     * A new quantity must still cover the units held by open reservations
+     * @return the updated row, or null when no row matched (missing id, version mismatch or quantity below held)
+     */
+    Sweet patchSweet(String id, Map<String, Object> changes, Long expectedVersion);
+
+    /**
+     * Sweets and tombstones changed after the given sequence number, in sequence order
+     * Changes from transactions that may still have uncommitted lower sequence numbers are held back
+     * until those finish, so a client never skips past a change it has not seen
+     */
+    List<SweetChangeWrapper> findChangesSince(long since, int limit);
+
+    /**
+     * Combined search, every filter is optional
+     * name matches as a case-insensitive substring, category as a case-insensitive substring of the category name
+     */
+    List<Sweet> searchSweets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice);
+
+    /**
+     * Category and price-bucket counts for the same filters as searchSweets, from a single GROUPING SETS query
+     * @param priceEdges ascending bucket boundaries - n edges give n + 1 buckets, the last one open-ended
+     * @return categories and priceBuckets filled in, sweets left null
+     */
+    FacetedSearchWrapper countFacets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                     List<BigDecimal> priceEdges);
+
+    /**
+     * Hold stock for a reservation - raises held and inserts the HELD reservation row in one statement
+     * @return the updated sweet, or null when the sweet is missing, sharded, or has fewer than quantity units available
+     */
+    Sweet reserveStock(String reservationId, String sweetId, int quantity, String holder, Instant expiresAt);
+
+    /**
+     * Turn a HELD reservation into a sale - held and quantity both drop by the reserved units
+     * @return the updated sweet, or null when the reservation is missing, no longer HELD or past its expiry
+     */
+    Sweet confirmReservation(String reservationId);
+
+    /**
+     * Give a HELD reservation's units back to available stock and move it to the given status
+     * @return the updated sweet, or null when the reservation is missing or no longer HELD
+     */
+    Sweet releaseReservation(String reservationId, String status);
+
+    /**
+     * Expire a batch of reservations, ids that are no longer HELD are skipped
+     * @return one entry per affected sweet with the units given back
+     */
+    List<ReleasedStock> expireReservations(List<String> reservationIds);
+
+    /**
+     * Copy the shard totals of sharded sweets into sweets.quantity where they differ (PostgreSQL)
+     * @return the sweets that changed
+     */
+    List<Sweet> foldShardedStock();
+
+    /**
+     * Lock the given sweets for a purchase batch or a bulk change, in id order, within the caller's transaction
+     * @return the sweets that exist, missing ids are simply absent
+     */
+    List<Sweet> lockForPurchase(Collection<String> ids);
+
+    /**
+     * Lock the sweets matching the searchSweets filters, in id order, within the caller's transaction
+     * @param limit most rows to lock, callers pass one more than they accept to detect an oversized match
+     */
+    List<Sweet> lockMatching(String name, String category, BigDecimal minPrice, BigDecimal maxPrice, int limit);
+
+    /**
+     * Subtract per-sweet totals with a single multi-row UPDATE (PostgreSQL), within the caller's transaction
+     * The rows must already be locked by lockForPurchase and checked to cover the quantities
+     * @param quantities sweet id to units sold, iterated in id order
+     * @return the updated sweets
+     */
+    List<Sweet> decrementStock(Map<String, Integer> quantities);
+
+    /**
+     * Set per-sweet prices with a single multi-row UPDATE (PostgreSQL), within the caller's transaction
+     * @return the updated sweets
+     */
+    List<Sweet> setPrices(Map<String, BigDecimal> prices);
+
+    /**
+     * Add per-sweet deltas to quantity with a single multi-row UPDATE (PostgreSQL), within the caller's transaction
+     * The rows must already be locked and checked to stay at or above their held units
+     * @param deltas sweet id to units added, negative to remove
+     * @return the updated sweets
+     */
+    List<Sweet> adjustStock(Map<String, Integer> deltas);
+
+    /**
+     * Delete the given sweets with one statement, the trigger leaves a tombstone per row
+     * Sweets with units held by open reservations are skipped
+     * @return the ids actually deleted
+     */
+    List<String> deleteSweets(Collection<String> ids);
+
+    record ReleasedStock(Sweet sweet, int quantity) {
+    }
+}
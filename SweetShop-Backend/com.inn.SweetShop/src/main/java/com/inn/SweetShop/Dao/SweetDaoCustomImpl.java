@@ -0,0 +1,356 @@
+package com.inn.SweetShop.Dao;
+
+import com.inn.SweetShop.Cache.CategoryDictionary;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.FacetCountWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangeWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC implementation of SweetDaoCustom, picked up by Spring Data as a SweetDao fragment
+ */
+public class SweetDaoCustomImpl implements SweetDaoCustom {
+
+    // Patchable fields and their columns in a fixed order, so equal field sets always produce the same SQL text
+    private static final Map<String, String> PATCHABLE_COLUMNS = patchableColumns();
+
+    private static final String RETURNED_COLUMNS =
+            "id, name, category_id, price, quantity, held, stock_shards, description, reorder_threshold, change_seq, version";
+
+    // Both branches walk their change_seq index, the outer ORDER BY/LIMIT merges them
+    private static final String CHANGES_SINCE = "SELECT * FROM ("
+            + " (SELECT FALSE AS deleted, " + RETURNED_COLUMNS + " FROM sweets"
+            + " WHERE change_seq > :since AND change_txid < pg_snapshot_xmin(pg_current_snapshot())"
+            + " ORDER BY change_seq LIMIT :limit)"
+            + " UNION ALL"
+            + " (SELECT TRUE, sweet_id, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, change_seq, NULL FROM sweet_tombstones"
+            + " WHERE change_seq > :since AND change_txid < pg_snapshot_xmin(pg_current_snapshot())"
+            + " ORDER BY change_seq LIMIT :limit)"
+            + ") changes ORDER BY change_seq LIMIT :limit";
+
+    // Reservation state changes - the reservation row and sweets.held move together in one statement
+    private static final String RESERVE = "WITH s AS ("
+            + " UPDATE sweets SET held = held + :quantity, version = version + 1"
+            + " WHERE id = :sweetId AND stock_shards IS NULL AND quantity - held >= :quantity"
+            + " RETURNING " + RETURNED_COLUMNS + "),"
+            + " r AS (INSERT INTO stock_reservations (id, sweet_id, quantity, holder, status, expires_at, created_at)"
+            + " SELECT :reservationId, id, :quantity, :holder, 'HELD', :expiresAt, now() FROM s)"
+            + " SELECT * FROM s";
+
+    // A hold past its expiry cannot be confirmed, even while the expiry wheel has not released it yet
+    private static final String CONFIRM = "WITH r AS ("
+            + " UPDATE stock_reservations SET status = 'CONFIRMED' WHERE id = :reservationId AND status = 'HELD'"
+            + " AND expires_at > now()"
+            + " RETURNING sweet_id AS r_sweet_id, quantity AS r_quantity)"
+            + " UPDATE sweets SET held = held - r_quantity, quantity = quantity - r_quantity, version = version + 1"
+            + " FROM r WHERE id = r_sweet_id RETURNING " + RETURNED_COLUMNS;
+
+    private static final String RELEASE = "WITH r AS ("
+            + " UPDATE stock_reservations SET status = :status WHERE id = :reservationId AND status = 'HELD'"
+            + " RETURNING sweet_id AS r_sweet_id, quantity AS r_quantity)"
+            + " UPDATE sweets SET held = held - r_quantity, version = version + 1"
+            + " FROM r WHERE id = r_sweet_id RETURNING " + RETURNED_COLUMNS;
+
+    // Units are summed per sweet first, an UPDATE ... FROM applies only one joined row per target row
+    private static final String EXPIRE = "WITH r AS ("
+            + " UPDATE stock_reservations SET status = 'EXPIRED' WHERE id IN (:reservationIds) AND status = 'HELD'"
+            + " RETURNING sweet_id, quantity),"
+            + " t AS (SELECT sweet_id AS r_sweet_id, SUM(quantity) AS r_quantity FROM r GROUP BY sweet_id)"
+            + " UPDATE sweets SET held = held - r_quantity, version = version + 1"
+            + " FROM t WHERE id = r_sweet_id RETURNING " + RETURNED_COLUMNS + ", r_quantity";
+
+    // Copies shard totals that drifted from sweets.quantity - one short row lock per hot sweet per run
+    private static final String FOLD_SHARDS = "UPDATE sweets SET quantity = t.total, version = version + 1"
+            + " FROM (SELECT sweet_id, SUM(quantity)::integer AS total FROM sweet_stock_shards GROUP BY sweet_id) t"
+            + " WHERE id = t.sweet_id AND stock_shards IS NOT NULL AND quantity <> t.total"
+            + " RETURNING " + RETURNED_COLUMNS;
+
+    // Id order, so batches locking overlapping sweets always queue behind each other instead of deadlocking
+    private static final String LOCK_FOR_PURCHASE = "SELECT " + RETURNED_COLUMNS + " FROM sweets"
+            + " WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    // One statement for the whole batch, the per-sweet totals arrive as two parallel arrays
+    // Returned columns are qualified, d also has an id and a quantity
+    private static final String DECREMENT_STOCK = "UPDATE sweets s SET quantity = s.quantity - d.quantity,"
+            + " version = s.version + 1"
+            + " FROM unnest(?::varchar[], ?::integer[]) AS d(id, quantity) WHERE s.id = d.id"
+            + " RETURNING s." + RETURNED_COLUMNS.replace(", ", ", s.");
+
+    private static final String SET_PRICES = "UPDATE sweets s SET price = d.price, version = s.version + 1"
+            + " FROM unnest(?::varchar[], ?::numeric[]) AS d(id, price) WHERE s.id = d.id"
+            + " RETURNING s." + RETURNED_COLUMNS.replace(", ", ", s.");
+
+    private static final String ADJUST_STOCK = "UPDATE sweets s SET quantity = s.quantity + d.delta,"
+            + " version = s.version + 1"
+            + " FROM unnest(?::varchar[], ?::integer[]) AS d(id, delta) WHERE s.id = d.id"
+            + " RETURNING s." + RETURNED_COLUMNS.replace(", ", ", s.");
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    private final RowMapper<Sweet> sweetRowMapper = (rs, rowNum) -> {
+        Sweet sweet = new Sweet(rs.getString("id"), rs.getString("name"),
+                categoryDictionary.nameFor(rs.getObject("category_id", Integer.class)),
+                rs.getBigDecimal("price"), rs.getInt("quantity"), rs.getString("description"));
+        sweet.setHeld(rs.getInt("held"));
+        sweet.setStockShards(rs.getObject("stock_shards", Integer.class));
+        sweet.setReorderThreshold(rs.getObject("reorder_threshold", Integer.class));
+        sweet.setChangeSeq(rs.getObject("change_seq", Long.class));
+        sweet.setVersion(rs.getLong("version"));
+        return sweet;
+    };
+
+    @Override
+    public Sweet patchSweet(String id, Map<String, Object> changes, Long expectedVersion) {
+        for (String field : changes.keySet()) {
+            if (!PATCHABLE_COLUMNS.containsKey(field)) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field);
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE sweets SET ");
+        MapSqlParameterSource params = new MapSqlParameterSource("id", id);
+        for (Map.Entry<String, String> column : PATCHABLE_COLUMNS.entrySet()) {
+            if (changes.containsKey(column.getKey())) {
+                Object value = changes.get(column.getKey());
+                if (column.getKey().equals("category")) {
+                    value = categoryDictionary.idFor((String) value);
+                }
+                sql.append(column.getValue()).append(" = :").append(column.getKey()).append(", ");
+                params.addValue(column.getKey(), value);
+            }
+        }
+        sql.append("version = version + 1 WHERE id = :id");
+        if (expectedVersion != null) {
+            sql.append(" AND version = :expectedVersion");
+            params.addValue("expectedVersion", expectedVersion);
+        }
+        if (changes.containsKey("quantity")) {
+            // Checked against held as the row is updated, so a reservation made meanwhile is still covered
+            sql.append(" AND held <= :quantity");
+        }
+        sql.append(" RETURNING ").append(RETURNED_COLUMNS);
+
+        List<Sweet> rows = jdbcTemplate.query(sql.toString(), params, sweetRowMapper);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public Sweet reserveStock(String reservationId, String sweetId, int quantity, String holder, Instant expiresAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource("reservationId", reservationId)
+                .addValue("sweetId", sweetId)
+                .addValue("quantity", quantity)
+                .addValue("holder", holder)
+                .addValue("expiresAt", Timestamp.from(expiresAt));
+        List<Sweet> rows = jdbcTemplate.query(RESERVE, params, sweetRowMapper);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public Sweet confirmReservation(String reservationId) {
+        List<Sweet> rows = jdbcTemplate.query(CONFIRM, new MapSqlParameterSource("reservationId", reservationId),
+                sweetRowMapper);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public Sweet releaseReservation(String reservationId, String status) {
+        MapSqlParameterSource params = new MapSqlParameterSource("reservationId", reservationId).addValue("status", status);
+        List<Sweet> rows = jdbcTemplate.query(RELEASE, params, sweetRowMapper);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public List<ReleasedStock> expireReservations(List<String> reservationIds) {
+        if (reservationIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(EXPIRE, new MapSqlParameterSource("reservationIds", reservationIds),
+                (rs, rowNum) -> new ReleasedStock(sweetRowMapper.mapRow(rs, rowNum), rs.getInt("r_quantity")));
+    }
+
+    @Override
+    public List<Sweet> foldShardedStock() {
+        return jdbcTemplate.query(FOLD_SHARDS, sweetRowMapper);
+    }
+
+    @Override
+    public List<Sweet> lockForPurchase(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(LOCK_FOR_PURCHASE, new MapSqlParameterSource("ids", ids), sweetRowMapper);
+    }
+
+    @Override
+    public List<Sweet> lockMatching(String name, String category, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", limit);
+        String where = searchFilter(name, category, minPrice, maxPrice, params);
+        if (where == null) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query("SELECT " + RETURNED_COLUMNS + " FROM sweets" + where
+                + " ORDER BY id LIMIT :limit FOR UPDATE", params, sweetRowMapper);
+    }
+
+    @Override
+    public List<Sweet> decrementStock(Map<String, Integer> quantities) {
+        return updateFromArrays(DECREMENT_STOCK, quantities, "integer");
+    }
+
+    @Override
+    public List<Sweet> setPrices(Map<String, BigDecimal> prices) {
+        return updateFromArrays(SET_PRICES, prices, "numeric");
+    }
+
+    @Override
+    public List<Sweet> adjustStock(Map<String, Integer> deltas) {
+        return updateFromArrays(ADJUST_STOCK, deltas, "integer");
+    }
+
+    @Override
+    public List<String> deleteSweets(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Never one with open reservations, even if a caller skipped the check
+        return jdbcTemplate.queryForList("DELETE FROM sweets WHERE id IN (:ids) AND held = 0 RETURNING id",
+                new MapSqlParameterSource("ids", ids), String.class);
+    }
+
+    // Runs an UPDATE ... FROM unnest of two parallel arrays, sweet ids and one value per sweet
+    private List<Sweet> updateFromArrays(String sql, Map<String, ?> values, String valueType) {
+        if (values.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String[] ids = values.keySet().toArray(new String[0]);
+        Object[] amounts = values.values().toArray();
+        return jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("varchar", ids));
+            statement.setArray(2, connection.createArrayOf(valueType, amounts));
+            return statement;
+        }, sweetRowMapper);
+    }
+
+    @Override
+    public List<SweetChangeWrapper> findChangesSince(long since, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("since", since).addValue("limit", limit);
+        return jdbcTemplate.query(CHANGES_SINCE, params, (rs, rowNum) -> {
+            long changeSeq = rs.getLong("change_seq");
+            if (rs.getBoolean("deleted")) {
+                return new SweetChangeWrapper(changeSeq, rs.getString("id"), true, null);
+            }
+            Sweet sweet = sweetRowMapper.mapRow(rs, rowNum);
+            return new SweetChangeWrapper(changeSeq, sweet.getId(), false, sweet);
+        });
+    }
+
+    @Override
+    public List<Sweet> searchSweets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = searchFilter(name, category, minPrice, maxPrice, params);
+        if (where == null) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query("SELECT " + RETURNED_COLUMNS + " FROM sweets" + where, params, sweetRowMapper);
+    }
+
+    @Override
+    public FacetedSearchWrapper countFacets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                            List<BigDecimal> priceEdges) {
+        List<FacetCountWrapper> categories = new ArrayList<>();
+        long[] bucketCounts = new long[priceEdges.size() + 1];
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String where = searchFilter(name, category, minPrice, maxPrice, params);
+        if (where != null) {
+            // Edges are configuration BigDecimals, never request input, so they are safe to inline
+            String bucket = priceEdges.isEmpty() ? "0" : "width_bucket(price, ARRAY["
+                    + priceEdges.stream().map(BigDecimal::toPlainString).collect(Collectors.joining(", "))
+                    + "]::numeric[])";
+            // One pass over the matching rows yields both facets - a row per category and a row per price bucket
+            String sql = "SELECT category_id, bucket, COUNT(*) AS hits FROM ("
+                    + " SELECT category_id, " + bucket + " AS bucket FROM sweets" + where
+                    + ") filtered GROUP BY GROUPING SETS ((category_id), (bucket))";
+            jdbcTemplate.query(sql, params, rs -> {
+                Integer categoryId = rs.getObject("category_id", Integer.class);
+                if (categoryId != null) {
+                    categories.add(new FacetCountWrapper(categoryId.toString(), categoryDictionary.nameFor(categoryId),
+                            rs.getLong("hits")));
+                } else {
+                    bucketCounts[rs.getInt("bucket")] = rs.getLong("hits");
+                }
+            });
+        }
+        categories.sort(Comparator.comparingLong(FacetCountWrapper::getCount).reversed()
+                .thenComparing(FacetCountWrapper::getLabel, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        // Every bucket is listed, empty ones included, so the sidebar layout does not jump between searches
+        List<FacetCountWrapper> priceBuckets = new ArrayList<>();
+        for (int i = 0; i < bucketCounts.length; i++) {
+            String from = i == 0 ? "0" : priceEdges.get(i - 1).toPlainString();
+            String range = i < priceEdges.size() ? from + "-" + priceEdges.get(i).toPlainString() : from + "+";
+            priceBuckets.add(new FacetCountWrapper(range, range, bucketCounts[i]));
+        }
+        return new FacetedSearchWrapper(null, categories, priceBuckets);
+    }
+
+    // WHERE clause shared by search and facets, null when the category filter matches no category at all
+    private String searchFilter(String name, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                MapSqlParameterSource params) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (name != null) {
+            where.append(" AND name ILIKE :name");
+            params.addValue("name", "%" + name + "%");
+        }
+        if (category != null) {
+            // The substring match runs against the in-memory dictionary, the table is filtered by indexed ids
+            List<Integer> categoryIds = categoryDictionary.idsMatching(category);
+            if (categoryIds.isEmpty()) {
+                return null;
+            }
+            where.append(" AND category_id IN (:categoryIds)");
+            params.addValue("categoryIds", categoryIds);
+        }
+        if (minPrice != null) {
+            where.append(" AND price >= :minPrice");
+            params.addValue("minPrice", minPrice);
+        }
+        if (maxPrice != null) {
+            where.append(" AND price <= :maxPrice");
+            params.addValue("maxPrice", maxPrice);
+        }
+        return where.toString();
+    }
+
+    private static Map<String, String> patchableColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("name", "name");
+        columns.put("category", "category_id");
+        columns.put("price", "price");
+        columns.put("quantity", "quantity");
+        columns.put("description", "description");
+        columns.put("reorderThreshold", "reorder_threshold");
+        return columns;
+    }
+}
@@ -27,4 +27,7 @@ public interface UserDao extends JpaRepository<User, Integer> {
 
     // Find user by email
     User findByEmail(String email);
+
+    // First user with the given status, e.g. an approved account for the startup warm-up
+    User findFirstByStatusOrderByIdAsc(String status);
 }
\ No newline at end of file
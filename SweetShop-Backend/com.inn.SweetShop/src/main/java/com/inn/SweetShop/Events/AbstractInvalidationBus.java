@@ -0,0 +1,89 @@
+package com.inn.SweetShop.Events;
+
+import com.inn.SweetShop.POJO.Sweet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wire format and local fan-out shared by the bus transports
+ * A message is one line per invalidation: origin|region|key|change|version|quantity, empty for null.
+ * Each node drops its own lines, and publishes the others as CacheInvalidationEvent.
+ */
+@Slf4j
+public abstract class AbstractInvalidationBus implements InvalidationBus {
+
+    // Identifies this node's messages, so it does not evict what it just wrote itself
+    private final String origin = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Hand the encoded lines to the transport
+    protected abstract void send(String payload);
+
+    // SweetChangedEvent is published after commit, so nothing uncommitted is ever announced
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        Sweet sweet = event.getSweet();
+        boolean stockChange = switch (event.getType()) {
+            case PURCHASED, RESTOCKED, RESERVED, RELEASED, STOCK_SYNCED -> true;
+            default -> false;
+        };
+        publish(new CacheInvalidationEvent(CacheInvalidationEvent.SWEETS, event.getSweetId(), event.getType().name(),
+                sweet != null ? sweet.getVersion() : null, stockChange && sweet != null ? sweet.getQuantity() : null));
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent invalidation) {
+        send(encode(invalidation));
+    }
+
+    protected String encode(CacheInvalidationEvent invalidation) {
+        return origin + '|' + invalidation.getRegion()
+                + '|' + orEmpty(invalidation.getKey())
+                + '|' + orEmpty(invalidation.getChange())
+                + '|' + orEmpty(invalidation.getVersion())
+                + '|' + orEmpty(invalidation.getQuantity());
+    }
+
+    // Deliver the lines of a received message, a malformed line is skipped without losing the rest
+    protected void receive(String payload) {
+        for (String line : payload.split("\n")) {
+            String[] fields = line.split("\\|", -1);
+            if (fields.length != 6 || fields[0].equals(origin)) {
+                continue;
+            }
+            try {
+                eventPublisher.publishEvent(new CacheInvalidationEvent(fields[1], emptyToNull(fields[2]),
+                        emptyToNull(fields[3]), fields[4].isEmpty() ? null : Long.valueOf(fields[4]),
+                        fields[5].isEmpty() ? null : Integer.valueOf(fields[5])));
+            } catch (RuntimeException ex) {
+                log.warn("Could not apply invalidation '{}': {}", line, ex.getMessage());
+            }
+        }
+    }
+
+    // Messages may have been missed (lost connection, full outbox) - drop everything derived from the database
+    protected void invalidateAll() {
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.SWEETS, null, null, null, null));
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.USERS, null, null, null, null));
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.CATEGORIES, null, null, null, null));
+    }
+
+    // Line telling every other node to drop a whole region
+    protected String wholeRegion(String region) {
+        return encode(new CacheInvalidationEvent(region, null, null, null, null));
+    }
+
+    private static String orEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,36 @@
+package com.inn.SweetShop.Events;
+
+import lombok.Value;
+
+/**
+ * Another node committed a change, published locally by the InvalidationBus when its message arrives
+ * Carries only what identifies the change - listeners evict, patch or reload from the database.
+ * Local writes never arrive this way, they are seen as SweetChangedEvent, so the sales ledger and
+ * rollups (which listen only to SweetChangedEvent) never count another node's purchase twice.
+ */
+@Value
+public class CacheInvalidationEvent {
+
+    public static final String SWEETS = "sweet";
+    public static final String USERS = "user";
+    public static final String CATEGORIES = "category";
+
+    // SWEETS, USERS or CATEGORIES
+    String region;
+
+    // Sweet, user or category id, null when everything in the region must be dropped (e.g. after missed messages)
+    String key;
+
+    // SweetChangedEvent.ChangeType name for sweets, a short label for users
+    String change;
+
+    // Row version after the change, when known
+    Long version;
+
+    // Stock after the change, only for purchases, restocks and reservations
+    Integer quantity;
+
+    public boolean isWholeRegion() {
+        return key == null;
+    }
+}
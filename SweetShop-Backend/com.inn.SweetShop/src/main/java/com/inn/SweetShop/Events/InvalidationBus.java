@@ -0,0 +1,15 @@
+package com.inn.SweetShop.Events;
+
+/**
+ * Carries committed-change notices between application instances so in-process caches do not go stale
+ * Selected with sweetshop.invalidation.bus - local (one JVM, tests) or postgres (LISTEN/NOTIFY)
+ * Sweet changes are forwarded automatically from SweetChangedEvent, other writers call publish directly.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Tell every other node about a committed change, returns without waiting for delivery
+     * Keys are ids and must not contain '|' or line breaks
+     */
+    void publish(CacheInvalidationEvent invalidation);
+}
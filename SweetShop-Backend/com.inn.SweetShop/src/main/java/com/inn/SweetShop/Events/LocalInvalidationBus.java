@@ -0,0 +1,63 @@
+package com.inn.SweetShop.Events;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-JVM bus - reaches every application context on the same channel in this JVM
+ * Enough for a single instance (there is nobody else to tell) and for tests that start several contexts;
+ * each context receives on its own thread, in publish order, as it would from a real transport.
+ */
+@Component
+@ConditionalOnProperty(name = "sweetshop.invalidation.bus", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus extends AbstractInvalidationBus {
+
+    private static final Map<String, Set<LocalInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invalidation-delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LocalInvalidationBus(@Value("${sweetshop.invalidation.channel:sweetshop_invalidation}") String channel) {
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void join() {
+        CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @PreDestroy
+    public void leave() {
+        CHANNELS.getOrDefault(channel, Set.of()).remove(this);
+        delivery.shutdown();
+    }
+
+    @Override
+    protected void send(String payload) {
+        for (LocalInvalidationBus bus : CHANNELS.getOrDefault(channel, Set.of())) {
+            if (bus == this) {
+                continue;
+            }
+            try {
+                bus.delivery.execute(() -> bus.receive(payload));
+            } catch (RejectedExecutionException ex) {
+                // That context is shutting down, it has no caches left to evict
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.inn.SweetShop.Events;
+
+import lombok.Value;
+
+/**
+ * Application event published by LowStockIndex when a sweet crosses its reorder threshold
+ * low is true when the sweet dropped to or below the threshold, false when restocking lifted it back above
+ */
+@Value
+public class LowStockEvent {
+
+    String sweetId;
+
+    String name;
+
+    int quantity;
+
+    int threshold;
+
+    boolean low;
+}
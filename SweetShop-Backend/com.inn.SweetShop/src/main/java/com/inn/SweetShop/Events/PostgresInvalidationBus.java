@@ -0,0 +1,169 @@
+package com.inn.SweetShop.Events;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bus over PostgreSQL LISTEN/NOTIFY, for several instances sharing one database
+ * Publishing only queues the line; a sender thread packs queued lines into as few NOTIFYs as fit the
+ * 8000-byte payload limit. NOTIFY cannot run in afterCommit on the request thread - the connection is still
+ * bound to the finished transaction there and the notification would never be committed.
+ * Receiving uses a dedicated connection outside the pool. Delivery takes at most poll-ms once the sender
+ * has run; when messages may have been lost (listener reconnect, outbox overflow, failed NOTIFY) every
+ * node drops its caches wholesale instead of trusting them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sweetshop.invalidation.bus", havingValue = "postgres")
+public class PostgresInvalidationBus extends AbstractInvalidationBus {
+
+    private static final int MAX_PAYLOAD = 7900;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${sweetshop.invalidation.channel:sweetshop_invalidation}")
+    private String channel;
+
+    // Longest a received notification waits before the listener thread picks it up
+    @Value("${sweetshop.invalidation.poll-ms:500}")
+    private int pollMs;
+
+    @Value("${sweetshop.invalidation.reconnect-ms:2000}")
+    private long reconnectMs;
+
+    @Value("${sweetshop.invalidation.outbox-capacity:10000}")
+    private int outboxCapacity;
+
+    private BlockingQueue<String> outbox;
+    // Set when lines were dropped, the next message tells every node to flush instead
+    private final AtomicBoolean lostMessages = new AtomicBoolean();
+    private volatile boolean running = true;
+    private Thread listener;
+    private Thread sender;
+
+    @PostConstruct
+    public void start() {
+        // LISTEN takes an identifier, not a bind parameter
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation channel name: " + channel);
+        }
+        outbox = new LinkedBlockingQueue<>(outboxCapacity);
+        listener = Thread.ofPlatform().name("invalidation-listener").daemon().start(this::listen);
+        sender = Thread.ofPlatform().name("invalidation-sender").daemon().start(this::sendQueued);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listener.interrupt();
+        sender.interrupt();
+    }
+
+    @Override
+    protected void send(String payload) {
+        if (!outbox.offer(payload)) {
+            lostMessages.set(true);
+        }
+    }
+
+    private void sendQueued() {
+        while (running) {
+            try {
+                String first = outbox.poll(1, TimeUnit.SECONDS);
+                if (first == null && !lostMessages.get()) {
+                    continue;
+                }
+                StringBuilder message = new StringBuilder(MAX_PAYLOAD);
+                if (lostMessages.getAndSet(false)) {
+                    message.append(wholeRegion(CacheInvalidationEvent.SWEETS)).append('\n')
+                            .append(wholeRegion(CacheInvalidationEvent.USERS)).append('\n')
+                            .append(wholeRegion(CacheInvalidationEvent.CATEGORIES));
+                    if (first != null) {
+                        message.append('\n').append(first);
+                    }
+                } else {
+                    message.append(first);
+                }
+                // Only this thread takes from the outbox, so the head seen by peek is the one poll removes
+                String next;
+                while ((next = outbox.peek()) != null && message.length() + 1 + next.length() <= MAX_PAYLOAD) {
+                    message.append('\n').append(outbox.poll());
+                }
+                notifyOthers(message.toString());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void notifyOthers(String message) {
+        try {
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, message);
+        } catch (DataAccessException ex) {
+            log.warn("Could not send cache invalidations, other nodes will be told to flush: {}", ex.getMessage());
+            lostMessages.set(true);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (reconnecting) {
+                    // Anything sent while the connection was down is gone
+                    log.info("Invalidation listener reconnected, flushing local caches");
+                    invalidateAll();
+                }
+                reconnecting = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Invalidation listener lost its connection, retrying in {} ms: {}", reconnectMs, ex.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(reconnectMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.inn.SweetShop.Events;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed stock changes out to Server-Sent Events subscribers (GET /api/sweets/stream)
+ * Each subscriber keeps only the latest pending change per sweet and has its own virtual sender thread,
+ * so an idle connection costs a parked virtual thread and a slow one never holds up the others.
+ * Subscribers whose buffer overflows or whose send is stuck too long are disconnected; EventSource reconnects.
+ */
+@Slf4j
+@Component
+public class StockStreamBroker {
+
+    private static final Comparator<StockUpdate> IN_ORDER = Comparator.comparingLong(update -> update.sequence);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final ScheduledExecutorService heartbeat;
+
+    private final int maxClients;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long slowClientNanos;
+
+    public StockStreamBroker(@Value("${sweetshop.stream.max-clients:5000}") int maxClients,
+                             @Value("${sweetshop.stream.buffer-size:256}") int bufferSize,
+                             @Value("${sweetshop.stream.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${sweetshop.stream.heartbeat-ms:25000}") long heartbeatMs,
+                             @Value("${sweetshop.stream.slow-client-ms:10000}") long slowClientMs) {
+        this.maxClients = maxClients;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeoutMs;
+        this.slowClientNanos = TimeUnit.MILLISECONDS.toNanos(slowClientMs);
+        // One timer for all subscribers, it only flags a heartbeat and wakes the sender
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleWithFixedDelay(this::tick, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    // New stream, or null when the subscriber limit is reached
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxClients) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), subscriberIds.incrementAndGet());
+        subscribers.add(subscriber);
+        subscriber.start();
+        return subscriber.emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        StockUpdate update = new StockUpdate(sequence.incrementAndGet(), toJson(event));
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event.getSweetId(), update);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.close(true));
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > slowClientNanos) {
+                log.info("Dropping stock stream subscriber {}, a send has been blocked for over {} ms",
+                        subscriber.id, TimeUnit.NANOSECONDS.toMillis(slowClientNanos));
+                subscriber.close(true);
+            } else {
+                subscriber.heartbeatDue = true;
+                subscriber.wake();
+            }
+        }
+    }
+
+    // Compact payload - clients patch their local copy and only refetch a sweet they do not have
+    private static String toJson(SweetChangedEvent event) {
+        StringBuilder json = new StringBuilder(96)
+                .append("{\"id\":\"").append(event.getSweetId())
+                .append("\",\"type\":\"").append(event.getType()).append('"');
+        if (event.getSweet() != null) {
+            json.append(",\"quantity\":").append(event.getSweet().getQuantity());
+            if (event.getSweet().getVersion() != null) {
+                json.append(",\"version\":").append(event.getSweet().getVersion());
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    private static final class StockUpdate {
+
+        private final long sequence;
+        private final String json;
+
+        private StockUpdate(long sequence, String json) {
+            this.sequence = sequence;
+            this.json = json;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final long id;
+
+        // Latest undelivered change per sweet - older changes to the same sweet are overwritten, not queued
+        private final Map<String, StockUpdate> pending = new ConcurrentHashMap<>();
+        private final Semaphore signal = new Semaphore(0);
+        private volatile boolean open = true;
+        private volatile boolean heartbeatDue;
+        private volatile long sendingSince;
+        private Thread sender;
+
+        private Subscriber(SseEmitter emitter, long id) {
+            this.emitter = emitter;
+            this.id = id;
+            emitter.onCompletion(() -> close(false));
+            emitter.onTimeout(() -> close(true));
+            emitter.onError(error -> close(false));
+        }
+
+        private void start() {
+            sender = Thread.ofVirtual().name("sse-" + id).start(this::run);
+        }
+
+        private void offer(String sweetId, StockUpdate update) {
+            pending.put(sweetId, update);
+            if (pending.size() > bufferSize) {
+                log.info("Dropping stock stream subscriber {}, more than {} changes are waiting", id, bufferSize);
+                close(true);
+                return;
+            }
+            wake();
+        }
+
+        private void wake() {
+            if (signal.availablePermits() == 0) {
+                signal.release();
+            }
+        }
+
+        private void run() {
+            try {
+                send(SseEmitter.event().reconnectTime(3000).comment("connected"));
+                while (open) {
+                    signal.acquire();
+                    signal.drainPermits();
+                    List<StockUpdate> updates = new ArrayList<>(pending.size());
+                    for (String sweetId : pending.keySet()) {
+                        StockUpdate update = pending.remove(sweetId);
+                        if (update != null) {
+                            updates.add(update);
+                        }
+                    }
+                    updates.sort(IN_ORDER);
+                    for (StockUpdate update : updates) {
+                        send(SseEmitter.event().name("stock").id(Long.toString(update.sequence)).data(update.json));
+                    }
+                    if (heartbeatDue) {
+                        heartbeatDue = false;
+                        send(SseEmitter.event().comment("keep-alive"));
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException ex) {
+                // Client went away - the emitter callbacks remove the subscriber
+                close(false);
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        private void close(boolean completeEmitter) {
+            if (!subscribers.remove(this)) {
+                return;
+            }
+            open = false;
+            pending.clear();
+            if (sender != null) {
+                sender.interrupt();
+            }
+            if (completeEmitter) {
+                // complete() waits for a send in progress, so a stuck client must not block the caller
+                Thread.ofVirtual().name("sse-close-" + id).start(() -> {
+                    try {
+                        emitter.complete();
+                    } catch (IllegalStateException ex) {
+                        // Already completed by the container
+                    }
+                });
+            }
+        }
+    }
+}
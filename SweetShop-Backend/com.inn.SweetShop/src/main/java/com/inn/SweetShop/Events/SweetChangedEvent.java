@@ -0,0 +1,38 @@
+package com.inn.SweetShop.Events;
+
+import com.inn.SweetShop.POJO.Sweet;
+import lombok.Value;
+
+/**
+ * Application event published by SweetServiceImpl after a write to the sweets table has committed
+ * Listeners keep catalog versions and other derived in-memory state in step with the database
+ */
+@Value
+public class SweetChangedEvent {
+
+    public enum ChangeType {
+        ADDED,
+        UPDATED,
+        DELETED,
+        PURCHASED,
+        RESTOCKED,
+        // A reservation raised or gave back held units, quantity on hand is unchanged
+        RESERVED,
+        RELEASED,
+        // Sharded stock summed back into quantity, no units were bought or added
+        STOCK_SYNCED
+    }
+
+    ChangeType type;
+
+    String sweetId;
+
+    // State after the change, null for DELETED
+    Sweet sweet;
+
+    // Units purchased, restocked, reserved or released, 0 for other changes
+    int quantity;
+
+    // Email of the user who made the change, if known
+    String actor;
+}
@@ -1,5 +1,6 @@
 package com.inn.SweetShop.JWT;
 
+import com.inn.SweetShop.utils.RequestTimer;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,14 +23,21 @@ import java.io.IOException;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_PATH = "/api/sweets/stream";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private CustomerUsersDetailsService service;
 
-    private Claims claims = null;
-    private String userName = null;
+    @Autowired
+    private StreamTicketStore streamTicketStore;
+
+    // Per-request state - the filter is a singleton shared by all request threads (platform or virtual)
+    private final ThreadLocal<Claims> claims = new ThreadLocal<>();
+    private final ThreadLocal<String> userName = new ThreadLocal<>();
+    private final ThreadLocal<String> currentToken = new ThreadLocal<>();
 
     /**
      * Main filter logic that runs once per request
@@ -42,30 +50,50 @@ public class JwtFilter extends OncePerRequestFilter {
         if (httpServletRequest.getServletPath().matches("/api/auth/login|/api/auth/forgotPassword|/api/auth/signup")) {
             filterChain.doFilter(httpServletRequest, httpServletResponse);
         } else {
-            // Extract token from Authorization header
-            String authorizationHeader = httpServletRequest.getHeader("Authorization");
-            String token = null;
-
-            if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-                token = authorizationHeader.substring(7);
-                userName = jwtUtil.extractUsername(token);
-                claims = jwtUtil.extractAllClaims(token);
-            }
+            // Time spent here is reported as the auth phase (user lookup is charged to db)
+            RequestTimer.Phase previousPhase = RequestTimer.enter(RequestTimer.Phase.AUTH);
+            try {
+                // Extract token from Authorization header
+                String authorizationHeader = httpServletRequest.getHeader("Authorization");
+                String token = null;
+
+                if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+                    token = authorizationHeader.substring(7);
+                } else if (STREAM_PATH.equals(httpServletRequest.getServletPath())) {
+                    // EventSource cannot send headers, so the stock stream alone accepts a single-use ticket
+                    // (POST /api/sweets/stream/ticket) as a query parameter - never the JWT itself
+                    token = streamTicketStore.redeem(httpServletRequest.getParameter("ticket"));
+                }
+
+                if (token != null) {
+                    userName.set(jwtUtil.extractUsername(token));
+                    claims.set(jwtUtil.extractAllClaims(token));
+                    currentToken.set(token);
+                }
 
-            // Validate token and set authentication if valid
-            if (userName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = service.loadUserByUsername(userName);
+                // Validate token and set authentication if valid
+                if (userName.get() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = service.loadUserByUsername(userName.get());
 
-                if (jwtUtil.validateToken(token, userDetails)) {
-                    UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
+                    if (jwtUtil.validateToken(token, userDetails)) {
+                        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        usernamePasswordAuthenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
 
-                    SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                        SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                    }
                 }
+            } finally {
+                RequestTimer.exit(previousPhase);
             }
 
-            filterChain.doFilter(httpServletRequest, httpServletResponse);
+            try {
+                filterChain.doFilter(httpServletRequest, httpServletResponse);
+            } finally {
+                claims.remove();
+                userName.remove();
+                currentToken.remove();
+            }
         }
     }
 
@@ -74,6 +102,7 @@ public class JwtFilter extends OncePerRequestFilter {
      * @return true if user is admin, false otherwise
      */
     public boolean isAdmin() {
+        Claims claims = this.claims.get();
         return claims != null && "admin".equalsIgnoreCase((String) claims.get("role"));
     }
 
@@ -83,6 +112,7 @@ public class JwtFilter extends OncePerRequestFilter {
      * @return true if user is authenticated (admin or user), false otherwise
      */
     public boolean isUser() {
+        Claims claims = this.claims.get();
         return claims != null &&
                 ("user".equalsIgnoreCase((String) claims.get("role")) ||
                         "admin".equalsIgnoreCase((String) claims.get("role")));
@@ -93,7 +123,15 @@ public class JwtFilter extends OncePerRequestFilter {
      * @return username of the authenticated user, or null if not authenticated
      */
     public String getCurrentUser() {
-        return userName;
+        return userName.get();
+    }
+
+    /**
+     * Get the JWT the current request was authenticated with
+     * @return raw token, or null if not authenticated
+     */
+    public String getCurrentToken() {
+        return currentToken.get();
     }
 
     /**
@@ -101,6 +139,7 @@ public class JwtFilter extends OncePerRequestFilter {
      * @return role of the authenticated user, or null if not authenticated
      */
     public String getCurrentUserRole() {
+        Claims claims = this.claims.get();
         return claims != null ? (String) claims.get("role") : null;
     }
 }
\ No newline at end of file
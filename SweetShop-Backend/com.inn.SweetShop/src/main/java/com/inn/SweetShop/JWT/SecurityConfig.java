@@ -1,5 +1,7 @@
 package com.inn.SweetShop.JWT;
 
+import com.inn.SweetShop.Cache.IdempotencyStore;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -54,8 +56,12 @@ public class SecurityConfig {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for stateless JWT authentication
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE stream completion) were already authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Public endpoints - no authentication required (Auth endpoints only)
                         .requestMatchers("/api/auth/login", "/api/auth/signup", "/api/auth/forgotPassword").permitAll()
+                        // Readiness probe, polled by the load balancer without a token
+                        .requestMatchers("/api/health/readiness").permitAll()
                         // All sweet endpoints require authentication
                         .requestMatchers("/api/sweets/**").authenticated()
                         // All other endpoints require authentication
@@ -95,8 +101,8 @@ public class SecurityConfig {
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
 
-        // Expose Authorization header so frontend can read it
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        // Expose Authorization header so frontend can read it, and the marker on replayed idempotent responses
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", IdempotencyStore.REPLAYED_HEADER));
 
         // Cache preflight requests for 1 hour
         configuration.setMaxAge(3600L);
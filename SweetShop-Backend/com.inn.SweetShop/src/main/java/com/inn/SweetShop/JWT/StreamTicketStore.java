@@ -0,0 +1,88 @@
+package com.inn.SweetShop.JWT;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived, single-use tickets for opening the stock stream (GET /api/sweets/stream?ticket=)
+ * EventSource cannot send an Authorization header, so a client first trades its JWT for a ticket with an
+ * authenticated POST. The JWT itself never appears in a URL, and a ticket leaked through an access log
+ * has already been spent or expired by the time anyone reads it.
+ */
+@Component
+public class StreamTicketStore {
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+    private final int maxTickets;
+
+    public StreamTicketStore(@Value("${sweetshop.stream.ticket-ttl-ms:30000}") long ttlMs,
+                             @Value("${sweetshop.stream.max-tickets:10000}") int maxTickets) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxTickets = maxTickets;
+    }
+
+    /**
+     * Issue a ticket standing for the given JWT
+     * @return the ticket, or null when too many are outstanding
+     */
+    public String issue(String token) {
+        if (tickets.size() >= maxTickets) {
+            removeExpired();
+            if (tickets.size() >= maxTickets) {
+                return null;
+            }
+        }
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(token, System.nanoTime() + ttlNanos));
+        return ticket;
+    }
+
+    /**
+     * Spend a ticket
+     * @return the JWT it was issued for, or null when it is unknown, already used or expired
+     */
+    public String redeem(String ticket) {
+        if (ticket == null) {
+            return null;
+        }
+        // remove makes the ticket single-use even when two requests present it at once
+        Ticket redeemed = tickets.remove(ticket);
+        return redeemed != null && !redeemed.isExpired(System.nanoTime()) ? redeemed.token : null;
+    }
+
+    // Tickets nobody redeemed, the map also drops them when it fills up
+    @Scheduled(fixedDelayString = "${sweetshop.stream.ticket-ttl-ms:30000}")
+    public void removeExpired() {
+        long now = System.nanoTime();
+        tickets.values().removeIf(ticket -> ticket.isExpired(now));
+    }
+
+    public long getTtlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    int size() {
+        return tickets.size();
+    }
+
+    private record Ticket(String token, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.inn.SweetShop.POJO;
+
+import com.inn.SweetShop.Cache.CategoryDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps Sweet.category between its name in Java/JSON and its categories.id in the sweets table
+ * A Spring bean because Hibernate asks Spring's bean container for converters by type, and falls back to
+ * an uninjected instance when there is none. The dictionary is lazy - it needs the transaction manager,
+ * which needs the entity manager factory that is still being built when the converter is requested.
+ */
+@Component
+@Converter
+public class CategoryConverter implements AttributeConverter<String, Integer> {
+
+    @Lazy
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Override
+    public Integer convertToDatabaseColumn(String category) {
+        return categoryDictionary.idFor(category);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer categoryId) {
+        return categoryDictionary.nameFor(categoryId);
+    }
+}
@@ -0,0 +1,49 @@
+package com.inn.SweetShop.POJO;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Stock held for a buyer until expiresAt, counted in sweets.held while HELD
+ * Rows are written and moved between states by the single-statement SQL in SweetDaoCustomImpl,
+ * the entity is only read back (startup reload of open holds, lookups)
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stock_reservations")
+public class StockReservation {
+
+    public static final String HELD = "HELD";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "sweet_id", nullable = false)
+    private String sweetId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    // Email of the user who reserved
+    @Column(nullable = false)
+    private String holder;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -1,16 +1,23 @@
 package com.inn.SweetShop.POJO;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Check;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.math.BigDecimal;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate
 @Table(name = "sweets")
+@Check(name = "sweets_quantity_covers_held", constraints = "quantity >= held")
 public class Sweet {
 
     @Id
@@ -20,7 +27,9 @@ public class Sweet {
     @Column(nullable = false, unique = true)
     private String name;
 
-    @Column(nullable = false)
+    // Stored as categories.id, exposed as the category name through the in-memory CategoryDictionary
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id")
     private String category;
 
     @Column(nullable = false, precision = 19, scale = 2)
@@ -29,6 +38,47 @@ public class Sweet {
     @Column(nullable = false)
     private Integer quantity;
 
+    // Units held by open reservations - still in quantity, but no longer available to other buyers
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer held = 0;
+
+    // Split into this many sweet_stock_shards rows for hot sweets, null when stock lives in quantity alone
+    // While sharded, quantity is a copy refreshed from the shard total every shard-fold-ms
+    @JsonIgnore
+    @Column(name = "stock_shards")
+    private Integer stockShards;
+
     @Column(length = 500)
     private String description;
-}
\ No newline at end of file
+
+    // Stock level at or below which the sweet is reported as low, null falls back to the category/shop default
+    @Column(name = "reorder_threshold")
+    private Integer reorderThreshold;
+
+    // Delta-sync position, stamped by a database trigger on every insert and update (see the V1 migration)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    // Optimistic lock - bumped by every update, a stale version fails the write instead of overwriting it
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Constructor for a sweet that has not been persisted yet
+    public Sweet(String id, String name, String category, BigDecimal price, Integer quantity, String description) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.price = price;
+        this.quantity = quantity;
+        this.description = description;
+    }
+
+    // Stock that can still be purchased or reserved
+    public int availableQuantity() {
+        return quantity - (held == null ? 0 : held);
+    }
+}
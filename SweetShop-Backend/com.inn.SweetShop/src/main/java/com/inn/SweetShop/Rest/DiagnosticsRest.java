@@ -0,0 +1,28 @@
+package com.inn.SweetShop.Rest;
+
+import com.inn.SweetShop.Wrapper.RecordingRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+/**
+ * REST controller interface for production profiling (Admin only)
+ */
+@RequestMapping(path = "/api/admin/jfr")
+public interface DiagnosticsRest {
+
+    // Start a JFR recording - optional durationSeconds, maxSizeMb and settings (default/profile)
+    @PostMapping(path = "/start")
+    ResponseEntity<String> startRecording(@Valid @RequestBody(required = false) RecordingRequest request);
+
+    // Stop the running JFR recording and write it to the dump directory
+    @PostMapping(path = "/stop")
+    ResponseEntity<String> stopRecording();
+
+    // Get the state of the current JFR recording
+    @GetMapping(path = "/status")
+    ResponseEntity<String> recordingStatus();
+}
@@ -0,0 +1,17 @@
+package com.inn.SweetShop.Rest;
+
+import com.inn.SweetShop.Wrapper.ReadinessWrapper;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+/**
+ * REST controller interface for load balancer and orchestrator probes (Public)
+ */
+@RequestMapping(path = "/api/health")
+public interface HealthRest {
+
+    // Readiness - 200 UP once the startup warm-up is done, 503 OUT_OF_SERVICE before that
+    @GetMapping(path = "/readiness")
+    ResponseEntity<ReadinessWrapper> readiness();
+}
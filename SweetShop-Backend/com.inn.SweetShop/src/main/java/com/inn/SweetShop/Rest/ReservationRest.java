@@ -0,0 +1,33 @@
+package com.inn.SweetShop.Rest;
+
+import com.inn.SweetShop.Cache.IdempotencyStore;
+import com.inn.SweetShop.Wrapper.ReserveRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+/**
+ * REST controller interface for timed stock reservations
+ */
+@RequestMapping(path = "/api/sweets")
+public interface ReservationRest {
+
+    // Reserve stock - held units are not available to others until confirmed, released or expired
+    @PostMapping(path = "/{id}/reserve")
+    ResponseEntity<String> reserve(
+            @PathVariable String id,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody ReserveRequest request
+    );
+
+    // Confirm a reservation - the held units are purchased
+    @PostMapping(path = "/reservations/{reservationId}/confirm")
+    ResponseEntity<String> confirm(@PathVariable String reservationId);
+
+    // Release a reservation - the held units become available again
+    @PostMapping(path = "/reservations/{reservationId}/release")
+    ResponseEntity<String> release(@PathVariable String reservationId);
+}
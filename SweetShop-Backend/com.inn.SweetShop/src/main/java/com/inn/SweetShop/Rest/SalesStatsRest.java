@@ -0,0 +1,27 @@
+package com.inn.SweetShop.Rest;
+
+import com.inn.SweetShop.Wrapper.SalesStatWrapper;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * REST controller interface for sales statistics (Admin only)
+ */
+@RequestMapping(path = "/api/sweets/stats")
+public interface SalesStatsRest {
+
+    // Top sellers by units - window is hour, day or week, limit defaults to 10
+    @GetMapping(path = "/top-sellers")
+    ResponseEntity<List<SalesStatWrapper>> getTopSellers(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(required = false) Integer limit
+    );
+
+    // Revenue per category - window is hour, day or week
+    @GetMapping(path = "/category-revenue")
+    ResponseEntity<List<SalesStatWrapper>> getCategoryRevenue(@RequestParam(defaultValue = "day") String window);
+}
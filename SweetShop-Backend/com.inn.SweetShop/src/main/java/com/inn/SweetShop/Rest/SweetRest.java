@@ -1,8 +1,23 @@
 package com.inn.SweetShop.Rest;
 
+import com.inn.SweetShop.Cache.IdempotencyStore;
 import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import com.inn.SweetShop.Wrapper.QuantityRequest;
+import com.inn.SweetShop.Wrapper.StockShardsRequest;
+import com.inn.SweetShop.Wrapper.StreamTicketWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangesWrapper;
+import com.inn.SweetShop.Wrapper.SweetRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -13,11 +28,25 @@ public interface SweetRest {
 
     // Add a new sweet to inventory
     @PostMapping
-    ResponseEntity<String> addSweet(@RequestBody Map<String, String> requestMap);
+    ResponseEntity<String> addSweet(@Valid @RequestBody SweetRequest request);
 
-    // Get all sweets
+    // Get all sweets - 304 when If-None-Match carries the current catalog ETag, JSON is written from the catalog snapshot
     @GetMapping
-    ResponseEntity<List<Sweet>> getAllSweets();
+    ResponseEntity<List<Sweet>> getAllSweets(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
+    );
+
+    // Bulk price, stock and delete changes in one transaction (Admin only) - listed operations, or a filter
+    // plus one operation for every match; 409 with nothing applied when an atomic request has a failed item.
+    // A retry with the same Idempotency-Key and body replays the first result instead of applying it again
+    @PostMapping("/bulk")
+    ResponseEntity<?> bulkUpdate(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody BulkRequest request
+    );
 
     // Search sweets by name, category, or price range
     @GetMapping("/search")
@@ -25,13 +54,60 @@ public interface SweetRest {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) BigDecimal minPrice,
-            @RequestParam(required = false) BigDecimal maxPrice
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    );
+
+    // Search with facet counts per category and price bucket, for the dashboard filter sidebar
+    @GetMapping("/search/faceted")
+    ResponseEntity<FacetedSearchWrapper> searchSweetsFaceted(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    );
+
+    // Ticket for the stock stream - EventSource cannot send the Authorization header
+    @PostMapping("/stream/ticket")
+    ResponseEntity<StreamTicketWrapper> issueStreamTicket();
+
+    // Server-Sent Events stream of stock changes - EventSource clients pass a ticket from /stream/ticket as ?ticket=
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> streamStockChanges();
+
+    // Delta sync - sweets and deletions after change sequence since, pass nextSince to continue
+    @GetMapping("/changes")
+    ResponseEntity<SweetChangesWrapper> getChangesSince(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) Integer limit
+    );
+
+    // Get sweets at or below their reorder threshold, most depleted first
+    @GetMapping("/low-stock")
+    ResponseEntity<List<LowStockWrapper>> getLowStockSweets();
+
+    // Get a single sweet by ID - 304 when If-None-Match carries its current ETag
+    @GetMapping("/{id}")
+    ResponseEntity<Sweet> getSweetById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     );
 
-    // Update sweet details by ID
+    // Update sweet details by ID - If-Match rejects the update when the sweet changed meanwhile
     @PutMapping("/{id}")
     ResponseEntity<String> updateSweet(
             @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody SweetRequest request
+    );
+
+    // Partially update a sweet - only the supplied fields are written, the response carries the new version
+    // Stays a map: merge-patch semantics depend on which keys were sent, and a blank reorderThreshold clears it
+    @PatchMapping("/{id}")
+    ResponseEntity<String> patchSweet(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody Map<String, String> requestMap
     );
 
@@ -39,17 +115,26 @@ public interface SweetRest {
     @DeleteMapping("/{id}")
     ResponseEntity<String> deleteSweet(@PathVariable String id);
 
-    // Purchase sweet - reduces quantity
+    // Purchase sweet - reduces quantity, a retry with the same Idempotency-Key replays the first response
     @PostMapping("/{id}/purchase")
     ResponseEntity<String> purchaseSweet(
             @PathVariable String id,
-            @RequestBody Map<String, Integer> requestMap
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody QuantityRequest request
     );
 
-    // Restock sweet - increases quantity (Admin only)
+    // Restock sweet - increases quantity (Admin only), idempotent per Idempotency-Key like purchase
     @PostMapping("/{id}/restock")
     ResponseEntity<String> restockSweet(
             @PathVariable String id,
-            @RequestBody Map<String, Integer> requestMap
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody QuantityRequest request
+    );
+
+    // Shard the stock counter of a hot sweet so concurrent purchases stop queueing on one row (Admin only)
+    @PutMapping("/{id}/stock-shards")
+    ResponseEntity<String> setStockShards(
+            @PathVariable String id,
+            @RequestBody StockShardsRequest request
     );
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.inn.SweetShop.Rest;
 
+import com.inn.SweetShop.Wrapper.LoginRequest;
+import com.inn.SweetShop.Wrapper.SignUpRequest;
+import com.inn.SweetShop.Wrapper.UserStatusRequest;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
-import java.util.Map;
 
 /**
  * REST controller interface for user authentication
@@ -14,15 +17,15 @@ import java.util.Map;
 public interface UserRest {
     // Register new user
     @PostMapping(path = "/signup")
-    ResponseEntity<String> signUp(@RequestBody Map<String, String> requestMap);
+    ResponseEntity<String> signUp(@Valid @RequestBody SignUpRequest request);
 
     // User login
     @PostMapping(path = "/login")
-    ResponseEntity<String> login(@RequestBody(required = true) Map<String, String> requestMap);
+    ResponseEntity<String> login(@Valid @RequestBody(required = true) LoginRequest request);
 
     // Update user details
     @PostMapping(path = "/update")
-    ResponseEntity<String> update(@RequestBody(required = true) Map<String, String> RequestMap);
+    ResponseEntity<String> update(@Valid @RequestBody(required = true) UserStatusRequest request);
 
     // Check if token is valid
     @GetMapping(path = "/checkToken")
@@ -0,0 +1,51 @@
+package com.inn.SweetShop.RestImpl;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Rest.DiagnosticsRest;
+import com.inn.SweetShop.Service.DiagnosticsService;
+import com.inn.SweetShop.Wrapper.RecordingRequest;
+import com.inn.SweetShop.utils.SweetUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller implementation for JFR profiling endpoints
+ */
+@RestController
+public class DiagnosticsRestImpl implements DiagnosticsRest {
+
+    @Autowired
+    private DiagnosticsService diagnosticsService;
+
+    @Override
+    public ResponseEntity<String> startRecording(RecordingRequest request) {
+        try {
+            return diagnosticsService.startRecording(request);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> stopRecording() {
+        try {
+            return diagnosticsService.stopRecording();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> recordingStatus() {
+        try {
+            return diagnosticsService.recordingStatus();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
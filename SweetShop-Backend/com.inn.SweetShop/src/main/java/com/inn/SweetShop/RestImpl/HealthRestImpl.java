@@ -0,0 +1,37 @@
+package com.inn.SweetShop.RestImpl;
+
+import com.inn.SweetShop.Rest.HealthRest;
+import com.inn.SweetShop.Wrapper.ReadinessWrapper;
+import com.inn.SweetShop.config.StartupWarmup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller implementation for the readiness probe
+ * Reads Boot's readiness state, which stays REFUSING_TRAFFIC until the startup warm-up has returned
+ */
+@RestController
+public class HealthRestImpl implements HealthRest {
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    @Override
+    public ResponseEntity<ReadinessWrapper> readiness() {
+        try {
+            boolean ready = applicationAvailability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+            ReadinessWrapper readiness = new ReadinessWrapper(ready ? "UP" : "OUT_OF_SERVICE", startupWarmup.getReport());
+            return new ResponseEntity<>(readiness, ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,61 @@
+package com.inn.SweetShop.RestImpl;
+
+import com.inn.SweetShop.Cache.IdempotencyStore;
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.Rest.ReservationRest;
+import com.inn.SweetShop.Service.ReservationService;
+import com.inn.SweetShop.Wrapper.ReserveRequest;
+import com.inn.SweetShop.utils.SweetUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ReservationRestImpl implements ReservationRest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Override
+    public ResponseEntity<String> reserve(String id, String idempotencyKey, ReserveRequest request) {
+        try {
+            if (request.isValid()) {
+                return idempotencyStore.execute(idempotencyKey, String.valueOf(jwtFilter.getCurrentUser()),
+                        "reserve:" + id + ":" + request.quantity() + ":" + request.ttlSeconds(),
+                        () -> reservationService.reserve(id, request.quantity(), request.ttlSeconds()));
+            }
+            return SweetUtils.getResponseEntity(SweetConstants.INVALID_QUANTITY, HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> confirm(String reservationId) {
+        try {
+            return reservationService.confirm(reservationId);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> release(String reservationId) {
+        try {
+            return reservationService.release(reservationId);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,41 @@
+package com.inn.SweetShop.RestImpl;
+
+import com.inn.SweetShop.Rest.SalesStatsRest;
+import com.inn.SweetShop.Service.SalesStatsService;
+import com.inn.SweetShop.Wrapper.SalesStatWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller implementation for sales statistics endpoints
+ */
+@RestController
+public class SalesStatsRestImpl implements SalesStatsRest {
+
+    @Autowired
+    private SalesStatsService salesStatsService;
+
+    @Override
+    public ResponseEntity<List<SalesStatWrapper>> getTopSellers(String window, Integer limit) {
+        try {
+            return salesStatsService.getTopSellers(window, limit);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<List<SalesStatWrapper>> getCategoryRevenue(String window) {
+        try {
+            return salesStatsService.getCategoryRevenue(window);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -1,16 +1,36 @@
 package com.inn.SweetShop.RestImpl;
 
+import com.inn.SweetShop.Cache.CatalogSnapshot;
+import com.inn.SweetShop.Cache.CatalogVersion;
+import com.inn.SweetShop.Cache.IdempotencyStore;
 import com.inn.SweetShop.Constants.SweetConstants;
 import com.inn.SweetShop.JWT.JwtFilter;
 import com.inn.SweetShop.POJO.Sweet;
 import com.inn.SweetShop.Rest.SweetRest;
 import com.inn.SweetShop.Service.SweetService;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import com.inn.SweetShop.Wrapper.QuantityRequest;
+import com.inn.SweetShop.Wrapper.StockShardsRequest;
+import com.inn.SweetShop.Wrapper.StreamTicketWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangesWrapper;
+import com.inn.SweetShop.Wrapper.SweetRequest;
+import com.inn.SweetShop.config.ReplicaRoutingDataSource;
 import com.inn.SweetShop.utils.SweetUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -24,10 +44,19 @@ public class SweetRestImpl implements SweetRest {
     @Autowired
     private JwtFilter jwtFilter;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
     @Override
-    public ResponseEntity<String> addSweet(Map<String, String> requestMap) {
+    public ResponseEntity<String> addSweet(SweetRequest request) {
         try {
-            return sweetService.addSweet(requestMap);
+            return sweetService.addSweet(request);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -35,9 +64,22 @@ public class SweetRestImpl implements SweetRest {
     }
 
     @Override
-    public ResponseEntity<List<Sweet>> getAllSweets() {
+    public ResponseEntity<List<Sweet>> getAllSweets(String ifNoneMatch, String accept, String acceptEncoding,
+                                                    HttpServletResponse response) {
         try {
-            return sweetService.getAllSweets();
+            // Conditional GET is answered from the in-memory version, without touching the database
+            String eTag = catalogVersion.catalogETag(catalogVersion.current());
+            if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            // Full GET is the catalog snapshot's bytes while it is current, null tells Spring the response is written
+            CatalogSnapshot.Encoded snapshot = catalogSnapshot.current();
+            if (snapshot != null && acceptsJson(accept) && jwtFilter.isUser()) {
+                writeSnapshot(snapshot, acceptsGzip(acceptEncoding), response);
+                return null;
+            }
+            // The tag is the primary's version, so the body must not come from a replica that is behind it
+            return withETag(ReplicaRoutingDataSource.onPrimary(sweetService::getAllSweets), eTag);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -46,9 +88,103 @@ public class SweetRestImpl implements SweetRest {
 
     @Override
     public ResponseEntity<List<Sweet>> searchSweets(String name, String category,
-                                                    BigDecimal minPrice, BigDecimal maxPrice) {
+                                                    BigDecimal minPrice, BigDecimal maxPrice, String ifNoneMatch) {
+        try {
+            // The URL identifies the query, so the catalog version alone is a strong validator
+            String eTag = catalogVersion.catalogETag(catalogVersion.current());
+            if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            return withETag(ReplicaRoutingDataSource.onPrimary(() ->
+                    sweetService.searchSweets(name, category, minPrice, maxPrice)), eTag);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<FacetedSearchWrapper> searchSweetsFaceted(String name, String category, BigDecimal minPrice,
+                                                                    BigDecimal maxPrice, String ifNoneMatch) {
+        try {
+            String eTag = catalogVersion.catalogETag(catalogVersion.current());
+            if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            return withETag(ReplicaRoutingDataSource.onPrimary(() ->
+                    sweetService.searchSweetsFaceted(name, category, minPrice, maxPrice)), eTag);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<Sweet> getSweetById(String id, String ifNoneMatch) {
+        try {
+            Long knownVersion = catalogVersion.knownVersion(id);
+            if (knownVersion != null) {
+                String eTag = CatalogVersion.sweetETag(id, knownVersion);
+                if (CatalogVersion.matches(ifNoneMatch, eTag)) {
+                    return notModified(eTag);
+                }
+            }
+
+            long versionAtRead = catalogVersion.current();
+            ResponseEntity<Sweet> response = sweetService.getSweetById(id);
+            Sweet sweet = response.getBody();
+            if (response.getStatusCode().is2xxSuccessful() && sweet != null && sweet.getVersion() != null) {
+                catalogVersion.remember(id, sweet.getVersion(), versionAtRead);
+                return withETag(response, CatalogVersion.sweetETag(id, sweet.getVersion()));
+            }
+            return response;
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> updateSweet(String id, String ifMatch, SweetRequest request) {
+        try {
+            if (ifMatch == null) {
+                return sweetService.updateSweet(id, request);
+            }
+            Long ifMatchVersion = CatalogVersion.parseSweetETag(id, ifMatch);
+            if (ifMatchVersion == null) {
+                return SweetUtils.getResponseEntity(SweetConstants.PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
+            }
+            return sweetService.updateSweet(id, request, ifMatchVersion);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<StreamTicketWrapper> issueStreamTicket() {
+        try {
+            return sweetService.issueStreamTicket();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<SseEmitter> streamStockChanges() {
+        try {
+            return sweetService.streamStockChanges();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<SweetChangesWrapper> getChangesSince(long since, Integer limit) {
         try {
-            return sweetService.searchSweets(name, category, minPrice, maxPrice);
+            return sweetService.getChangesSince(since, limit);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -56,9 +192,26 @@ public class SweetRestImpl implements SweetRest {
     }
 
     @Override
-    public ResponseEntity<String> updateSweet(String id, Map<String, String> requestMap) {
+    public ResponseEntity<List<LowStockWrapper>> getLowStockSweets() {
         try {
-            return sweetService.updateSweet(id, requestMap);
+            return sweetService.getLowStockSweets();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> patchSweet(String id, String ifMatch, Map<String, String> requestMap) {
+        try {
+            Long ifMatchVersion = null;
+            if (ifMatch != null) {
+                ifMatchVersion = CatalogVersion.parseSweetETag(id, ifMatch);
+                if (ifMatchVersion == null) {
+                    return SweetUtils.getResponseEntity(SweetConstants.PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
+                }
+            }
+            return sweetService.patchSweet(id, requestMap, ifMatchVersion);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -81,13 +234,34 @@ public class SweetRestImpl implements SweetRest {
     }
 
     @Override
-    public ResponseEntity<String> purchaseSweet(String id, Map<String, Integer> requestMap) {
+    public ResponseEntity<String> purchaseSweet(String id, String idempotencyKey, QuantityRequest request) {
+        try {
+            if (request.isValid()) {
+                return idempotencyStore.execute(idempotencyKey, String.valueOf(jwtFilter.getCurrentUser()),
+                        "purchase:" + id + ":" + request.quantity(),
+                        () -> sweetService.purchaseSweet(id, request.quantity()));
+            }
+            return SweetUtils.getResponseEntity(SweetConstants.INVALID_QUANTITY, HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> restockSweet(String id, String idempotencyKey, QuantityRequest request) {
         try {
-            Integer quantity = requestMap.get("quantity");
-            if (quantity != null && quantity > 0) {
-                return sweetService.purchaseSweet(id, quantity);
+            // Check if user is admin
+            if (jwtFilter.isAdmin()) {
+                if (request.isValid()) {
+                    return idempotencyStore.execute(idempotencyKey, String.valueOf(jwtFilter.getCurrentUser()),
+                            "restock:" + id + ":" + request.quantity(),
+                            () -> sweetService.restockSweet(id, request.quantity()));
+                }
+                return SweetUtils.getResponseEntity(SweetConstants.INVALID_QUANTITY, HttpStatus.BAD_REQUEST);
+            } else {
+                return SweetUtils.getResponseEntity(SweetConstants.ADMIN_ONLY, HttpStatus.FORBIDDEN);
             }
-            return SweetUtils.getResponseEntity("Invalid quantity", HttpStatus.BAD_REQUEST);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -95,15 +269,14 @@ public class SweetRestImpl implements SweetRest {
     }
 
     @Override
-    public ResponseEntity<String> restockSweet(String id, Map<String, Integer> requestMap) {
+    public ResponseEntity<String> setStockShards(String id, StockShardsRequest request) {
         try {
             // Check if user is admin
             if (jwtFilter.isAdmin()) {
-                Integer quantity = requestMap.get("quantity");
-                if (quantity != null && quantity > 0) {
-                    return sweetService.restockSweet(id, quantity);
+                if (request.isValid()) {
+                    return sweetService.setStockShards(id, request.shards());
                 }
-                return SweetUtils.getResponseEntity("Invalid quantity", HttpStatus.BAD_REQUEST);
+                return SweetUtils.getResponseEntity(SweetConstants.INVALID_SHARD_COUNT, HttpStatus.BAD_REQUEST);
             } else {
                 return SweetUtils.getResponseEntity(SweetConstants.ADMIN_ONLY, HttpStatus.FORBIDDEN);
             }
@@ -112,4 +285,88 @@ public class SweetRestImpl implements SweetRest {
         }
         return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    @Override
+    public ResponseEntity<?> bulkUpdate(String idempotencyKey, BulkRequest request) {
+        try {
+            // Keyed by the whole body - a scaled price or stock delta applied twice would compound
+            return idempotencyStore.executeJson(idempotencyKey, String.valueOf(jwtFilter.getCurrentUser()),
+                    idempotencyStore.bodyFingerprint("bulk", request), BulkResultWrapper.class,
+                    () -> sweetService.bulkUpdate(request));
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Clients must revalidate, Spring Security's default no-store would stop them caching at all
+    // Vary: Accept keeps a cached JSON body from being revalidated for a CBOR/Smile request with the same tag
+    private <T> ResponseEntity<T> withETag(ResponseEntity<T> response, String eTag) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(response.getBody());
+    }
+
+    private static void writeSnapshot(CatalogSnapshot.Encoded snapshot, boolean acceptsGzip,
+                                      HttpServletResponse response) throws IOException {
+        boolean gzip = acceptsGzip && snapshot.gzip() != null;
+        byte[] body = gzip ? snapshot.gzip() : snapshot.json();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, snapshot.eTag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // CBOR and Smile clients, or anything else that does not take JSON, go through the message converters
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        List<MediaType> types;
+        try {
+            types = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+        boolean json = false;
+        for (MediaType type : types) {
+            if (type.getSubtype().equals("cbor") || type.getSubtype().equals("x-jackson-smile")) {
+                return false;
+            }
+            json |= type.isCompatibleWith(MediaType.APPLICATION_JSON) && type.getQualityValue() > 0;
+        }
+        return json;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
 }
\ No newline at end of file
@@ -5,14 +5,15 @@ import com.inn.SweetShop.Constants.SweetConstants;
 import com.inn.SweetShop.Dao.UserDao;
 import com.inn.SweetShop.Rest.UserRest;
 import com.inn.SweetShop.Service.UserService;
+import com.inn.SweetShop.Wrapper.LoginRequest;
+import com.inn.SweetShop.Wrapper.SignUpRequest;
+import com.inn.SweetShop.Wrapper.UserStatusRequest;
 import com.inn.SweetShop.utils.SweetUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.Map;
 
 /**
  * REST controller implementation for user authentication endpoints
@@ -32,9 +33,9 @@ public class UserRestImpl implements UserRest {
 
     // Handle user registration
     @Override
-    public ResponseEntity<String> signUp(@RequestBody Map<String, String> requestMap) {
+    public ResponseEntity<String> signUp(SignUpRequest request) {
         try {
-            return userService.signUp(requestMap);
+            return userService.signUp(request);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -43,9 +44,9 @@ public class UserRestImpl implements UserRest {
 
     // Handle user login
     @Override
-    public ResponseEntity<String> login(Map<String, String> requestMap) {
+    public ResponseEntity<String> login(LoginRequest request) {
         try {
-            return userService.login(requestMap);
+            return userService.login(request);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -54,9 +55,9 @@ public class UserRestImpl implements UserRest {
 
     // Handle user profile update
     @Override
-    public ResponseEntity<String> update(Map<String, String> requestMap) {
+    public ResponseEntity<String> update(UserStatusRequest request) {
         try {
-            return userService.update(requestMap);
+            return userService.update(request);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
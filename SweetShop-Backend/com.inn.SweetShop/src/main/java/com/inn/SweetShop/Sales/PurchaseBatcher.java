@@ -0,0 +1,289 @@
+package com.inn.SweetShop.Sales;
+
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.POJO.Sweet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for purchases - concurrent purchases share one transaction instead of paying a commit each
+ * Callers queue their purchase and wait on a future; a single committer thread takes what arrives within
+ * window-ms (or up to batch-size purchases), locks the sweets involved in id order, decides each purchase
+ * in arrival order against the stock still available, and subtracts the per-sweet totals with one UPDATE.
+ * A purchase that does not fit fails on its own, the rest of the batch still commits.
+ * Opt-in and PostgreSQL only; when disabled, the queue is full, the batcher stops or no batch takes a purchase
+ * within wait-ms, purchases take the usual path. Exactly one of the committer and the waiting caller claims
+ * each queued purchase, so a purchase that falls back can never also be sold by a batch, and a caller whose
+ * purchase a batch claimed waits for that batch's transaction to end - it never answers before the sale is decided.
+ */
+@Slf4j
+@Component
+public class PurchaseBatcher {
+
+    public enum Status {
+        PURCHASED,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND,
+        // Stock lives in sweet_stock_shards, the caller buys from the shards instead
+        SHARDED
+    }
+
+    /**
+     * Result of one queued purchase
+     * @param sweet the sweet as committed by the batch, null when not found
+     * @param remaining quantity left right after this purchase, or the available quantity when it did not fit
+     */
+    public record Outcome(Status status, Sweet sweet, int remaining) {
+    }
+
+    private final SweetDao sweetDao;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean requested;
+    private final long windowMs;
+    private final int batchSize;
+    private final long waitMs;
+    private final BlockingQueue<PendingPurchase> queue;
+    private Thread committer;
+    private volatile boolean running;
+
+    public PurchaseBatcher(SweetDao sweetDao,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${sweetshop.purchases.batching:false}") boolean requested,
+                           @Value("${sweetshop.purchases.window-ms:2}") long windowMs,
+                           @Value("${sweetshop.purchases.batch-size:256}") int batchSize,
+                           @Value("${sweetshop.purchases.wait-ms:5000}") long waitMs,
+                           @Value("${sweetshop.purchases.queue-capacity:10000}") int queueCapacity) {
+        this.sweetDao = sweetDao;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.requested = requested;
+        this.windowMs = windowMs;
+        this.batchSize = batchSize;
+        this.waitMs = waitMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!requested) {
+            return;
+        }
+        try {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Purchase batching disabled, it needs PostgreSQL but found {}", database);
+                return;
+            }
+        } catch (DataAccessException ex) {
+            log.error("Could not check the database, purchase batching is disabled: ", ex);
+            return;
+        }
+        running = true;
+        committer = new Thread(this::runCommitter, "purchase-committer");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("Purchase batching enabled, window {} ms, up to {} purchases per transaction", windowMs, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+        // A committer stuck past the join leaves queued purchases behind, their callers fall back
+        returnLeftovers();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Purchase through the next batch and wait for it to commit
+     * @return the outcome, or null when the purchase was not batched (batching off, shutting down, queue full or
+     * not taken within wait-ms) and the caller must purchase the usual way
+     * @throws ExecutionException when the batch transaction failed, nothing was sold
+     */
+    public Outcome purchase(String sweetId, int quantity) throws InterruptedException, ExecutionException {
+        PendingPurchase pending = new PendingPurchase(sweetId, quantity, new AtomicBoolean(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            return null;
+        }
+        // The committer may have stopped between the check and the offer, nothing would take the purchase now
+        if (!running && withdraw(pending)) {
+            return null;
+        }
+        try {
+            return pending.outcome.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (withdraw(pending)) {
+                log.warn("Purchase of {} was not batched within {} ms, purchasing without the batcher", sweetId, waitMs);
+                return null;
+            }
+            // A batch already holds it and its transaction decides - falling back now could sell the units twice,
+            // and answering before it ends would let an Idempotency-Key retry buy again. The committer completes
+            // every purchase it claimed once that transaction commits or rolls back.
+            return pending.outcome.get();
+        }
+    }
+
+    // Claim the purchase for the caller, false when the committer claimed it first
+    private boolean withdraw(PendingPurchase pending) {
+        if (!pending.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        queue.remove(pending);
+        return true;
+    }
+
+    // Queued purchases no batch will take any more go back to their callers, who purchase the usual way
+    private void returnLeftovers() {
+        PendingPurchase pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending.claimed.compareAndSet(false, true)) {
+                pending.outcome.complete(null);
+            }
+        }
+    }
+
+    private void runCommitter() {
+        List<PendingPurchase> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPurchase first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // The window opens with the first purchase, so a lone buyer waits at most window-ms
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingPurchase next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // Callers that gave up waiting have withdrawn their purchase
+                batch.removeIf(pending -> !pending.claimed.compareAndSet(false, true));
+                if (!batch.isEmpty()) {
+                    commitBatch(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                // Only left incomplete when the committer was interrupted or failed outside the batch transaction
+                for (PendingPurchase pending : batch) {
+                    if (pending.claimed.compareAndSet(false, true)) {
+                        pending.outcome.complete(null);
+                    } else {
+                        pending.outcome.completeExceptionally(new IllegalStateException("Purchase batch was abandoned"));
+                    }
+                }
+                batch.clear();
+            }
+        }
+        returnLeftovers();
+    }
+
+    private void commitBatch(List<PendingPurchase> batch) {
+        List<Outcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> applyBatch(batch));
+        } catch (RuntimeException ex) {
+            // Nothing was committed, every caller in the batch sees the failure
+            log.error("Purchase batch of {} failed: ", batch.size(), ex);
+            batch.forEach(pending -> pending.outcome.completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).outcome.complete(outcomes.get(i));
+        }
+    }
+
+    private List<Outcome> applyBatch(List<PendingPurchase> batch) {
+        TreeSet<String> ids = new TreeSet<>();
+        batch.forEach(pending -> ids.add(pending.sweetId));
+        Map<String, Sweet> locked = new HashMap<>();
+        for (Sweet sweet : sweetDao.lockForPurchase(ids)) {
+            locked.put(sweet.getId(), sweet);
+        }
+
+        // Arrival order decides who gets the last units of a sweet
+        Map<String, Integer> sold = new TreeMap<>();
+        Status[] statuses = new Status[batch.size()];
+        int[] remaining = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            PendingPurchase pending = batch.get(i);
+            Sweet sweet = locked.get(pending.sweetId);
+            if (sweet == null) {
+                statuses[i] = Status.NOT_FOUND;
+                continue;
+            }
+            if (sweet.getStockShards() != null) {
+                statuses[i] = Status.SHARDED;
+                continue;
+            }
+            int soldBefore = sold.getOrDefault(pending.sweetId, 0);
+            int available = sweet.availableQuantity() - soldBefore;
+            if (available >= pending.quantity) {
+                sold.put(pending.sweetId, soldBefore + pending.quantity);
+                statuses[i] = Status.PURCHASED;
+                remaining[i] = sweet.getQuantity() - soldBefore - pending.quantity;
+            } else {
+                statuses[i] = Status.INSUFFICIENT_STOCK;
+                remaining[i] = available;
+            }
+        }
+
+        Map<String, Sweet> updated = new HashMap<>();
+        if (!sold.isEmpty()) {
+            for (Sweet sweet : sweetDao.decrementStock(sold)) {
+                updated.put(sweet.getId(), sweet);
+            }
+        }
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String sweetId = batch.get(i).sweetId;
+            Sweet sweet = updated.getOrDefault(sweetId, locked.get(sweetId));
+            outcomes.add(new Outcome(statuses[i], sweet, remaining[i]));
+        }
+        return outcomes;
+    }
+
+    private record PendingPurchase(String sweetId, int quantity, AtomicBoolean claimed,
+                                   CompletableFuture<Outcome> outcome) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.inn.SweetShop.Sales;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of the append-only sales ledger
+ * Name, category and price are copied at sale time so the ledger stays correct after the sweet changes or is deleted
+ */
+@Value
+public class SaleRecord {
+
+    String sweetId;
+
+    String sweetName;
+
+    String category;
+
+    int quantity;
+
+    BigDecimal unitPrice;
+
+    // Email of the buyer, if known
+    String buyer;
+
+    Instant soldAt;
+
+    public BigDecimal getTotalPrice() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -0,0 +1,344 @@
+package com.inn.SweetShop.Sales;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes committed purchases to the sales ledger off the request path
+ * Sales go through a bounded queue to a single writer thread that inserts them in JDBC batches
+ * With async durability checkout returns as soon as the sale is queued, queued sales are lost if the JVM dies;
+ * with sync durability checkout waits until the batch holding its sale has committed
+ * A full queue makes checkout wait up to enqueue-wait-ms, after that (or once the writer has stopped) the sale is
+ * appended to the spill file instead. The writer retries a failing batch until it commits; batches the database
+ * rejects outright, and those still failing at shutdown, are spilled too. Spilled sales are replayed into the
+ * ledger on a schedule, at least once - a node dying mid-replay can write some of them twice.
+ */
+@Slf4j
+@Component
+public class SalesLedgerWriter {
+
+    private static final String INSERT_SALE = "INSERT INTO sales "
+            + "(sweet_id, sweet_name, category, quantity, unit_price, total_price, buyer, sold_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final TypeReference<Map<String, String>> SPILLED_SALE = new TypeReference<>() {
+    };
+
+    private static final long FIRST_RETRY_MS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesPartitionMaintainer partitionMaintainer;
+    private final BlockingQueue<PendingSale> queue;
+    private final boolean synchronous;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long syncTimeoutMs;
+    private final long enqueueWaitMs;
+    private final long retryMaxMs;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Object spillLock = new Object();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SalesLedgerWriter(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             SalesPartitionMaintainer partitionMaintainer,
+                             @Value("${sweetshop.sales.durability:async}") String durability,
+                             @Value("${sweetshop.sales.queue-capacity:10000}") int queueCapacity,
+                             @Value("${sweetshop.sales.batch-size:500}") int batchSize,
+                             @Value("${sweetshop.sales.linger-ms:20}") long lingerMs,
+                             @Value("${sweetshop.sales.sync-timeout-ms:2000}") long syncTimeoutMs,
+                             @Value("${sweetshop.sales.enqueue-wait-ms:500}") long enqueueWaitMs,
+                             @Value("${sweetshop.sales.retry-max-ms:5000}") long retryMaxMs,
+                             @Value("${sweetshop.sales.spill-file:sales-spill.jsonl}") String spillFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.partitionMaintainer = partitionMaintainer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.synchronous = "sync".equalsIgnoreCase(durability);
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.syncTimeoutMs = syncTimeoutMs;
+        this.enqueueWaitMs = enqueueWaitMs;
+        this.retryMaxMs = retryMaxMs;
+        this.spillFile = Path.of(spillFile);
+        this.replayFile = Path.of(spillFile + ".replaying");
+        this.writer = new Thread(this::runWriter, "sales-ledger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        Sweet sweet = event.getSweet();
+        if (event.getType() != SweetChangedEvent.ChangeType.PURCHASED || event.getQuantity() <= 0 || sweet == null
+                || !partitionMaintainer.isLedgerAvailable()) {
+            return;
+        }
+        record(new SaleRecord(event.getSweetId(), sweet.getName(), sweet.getCategory(), event.getQuantity(),
+                sweet.getPrice(), event.getActor(), Instant.now()));
+    }
+
+    public void record(SaleRecord sale) {
+        PendingSale pending = new PendingSale(sale, synchronous ? new CompletableFuture<>() : null);
+        try {
+            // Writer has fallen behind - hold checkout for a moment, then spill rather than write on the request thread
+            if (!running || !queue.offer(pending, enqueueWaitMs, TimeUnit.MILLISECONDS)) {
+                spill(List.of(pending));
+                return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            spill(List.of(pending));
+            return;
+        }
+        if (pending.written == null) {
+            return;
+        }
+        try {
+            pending.written.get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("Sale of {} not written to the ledger within {} ms, it stays queued", sale.getSweetId(), syncTimeoutMs);
+        } catch (ExecutionException ex) {
+            log.error("Sale of {} could not be written to the ledger: ", sale.getSweetId(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // A replay cut short by a crash left its file behind, that one is finished before the spill file is taken
+    @Scheduled(fixedDelayString = "${sweetshop.sales.spill-replay-ms:60000}")
+    public void replaySpilled() {
+        if (!partitionMaintainer.isLedgerAvailable()) {
+            return;
+        }
+        List<PendingSale> spilled = new ArrayList<>();
+        try {
+            synchronized (spillLock) {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            for (String line : Files.readAllLines(replayFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    spilled.add(new PendingSale(fromLine(line), null));
+                }
+            }
+        } catch (IOException ex) {
+            log.error("Could not read spilled sales from {}: ", replayFile, ex);
+            return;
+        }
+        int replayed = 0;
+        for (int from = 0; from < spilled.size(); from += batchSize) {
+            List<PendingSale> batch = spilled.subList(from, Math.min(from + batchSize, spilled.size()));
+            if (writeBatch(batch) != null) {
+                // Still failing, keep the rest for the next run
+                spill(spilled.subList(from, spilled.size()));
+                break;
+            }
+            replayed += batch.size();
+        }
+        try {
+            Files.delete(replayFile);
+        } catch (IOException ex) {
+            log.error("Could not delete {}, its sales will be replayed again: ", replayFile, ex);
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} spilled sales into the ledger", replayed);
+        }
+    }
+
+    private void runWriter() {
+        List<PendingSale> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSale first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Async mode lingers briefly to fill the batch, sync mode only takes what is already waiting
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(synchronous ? 0 : lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingSale next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeWithRetry(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (RuntimeException ex) {
+                log.error("Sales ledger writer failed: ", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Retries with backoff while the application runs, the queue meanwhile fills and checkout starts spilling
+    private void writeWithRetry(List<PendingSale> batch) throws InterruptedException {
+        long backoffMs = FIRST_RETRY_MS;
+        DataAccessException failure;
+        while ((failure = writeBatch(batch)) != null) {
+            if (failure instanceof NonTransientDataAccessException || !running) {
+                log.error("Spilling {} sales the ledger did not accept: ", batch.size(), failure);
+                spill(batch);
+                return;
+            }
+            log.warn("Sales ledger write of {} sales failed, retrying in {} ms: {}", batch.size(), backoffMs,
+                    failure.getMessage());
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException ex) {
+                spill(batch);
+                throw ex;
+            }
+            backoffMs = Math.min(backoffMs * 2, retryMaxMs);
+        }
+    }
+
+    // One transaction per batch, so the whole batch costs a single commit; returns the failure, null once committed
+    private DataAccessException writeBatch(List<PendingSale> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SALE, batch,
+                    batch.size(), (ps, pending) -> {
+                        SaleRecord sale = pending.sale;
+                        ps.setString(1, sale.getSweetId());
+                        ps.setString(2, sale.getSweetName());
+                        ps.setString(3, sale.getCategory());
+                        ps.setInt(4, sale.getQuantity());
+                        ps.setBigDecimal(5, sale.getUnitPrice());
+                        ps.setBigDecimal(6, sale.getTotalPrice());
+                        if (sale.getBuyer() != null) {
+                            ps.setString(7, sale.getBuyer());
+                        } else {
+                            ps.setNull(7, Types.VARCHAR);
+                        }
+                        ps.setObject(8, OffsetDateTime.ofInstant(sale.getSoldAt(), ZoneOffset.UTC));
+                    }));
+            batch.forEach(pending -> pending.complete(null));
+            return null;
+        } catch (DataAccessException ex) {
+            return ex;
+        }
+    }
+
+    // Appends one JSON line per sale, the sale counts as written once it is on disk
+    private void spill(List<PendingSale> sales) {
+        synchronized (spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (PendingSale pending : sales) {
+                    out.write(toLine(pending.sale));
+                    out.newLine();
+                }
+            } catch (IOException ex) {
+                // Nowhere left to keep them, the log is the only record
+                log.error("Lost {} sales, they could not be spilled to {}: {}", sales.size(), spillFile,
+                        sales.stream().map(pending -> pending.sale).toList(), ex);
+                sales.forEach(pending -> pending.complete(ex));
+                return;
+            }
+        }
+        log.warn("Spilled {} sales to {}, they are replayed into the ledger later", sales.size(), spillFile);
+        sales.forEach(pending -> pending.complete(null));
+    }
+
+    private String toLine(SaleRecord sale) throws IOException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("sweetId", sale.getSweetId());
+        fields.put("sweetName", sale.getSweetName());
+        fields.put("category", sale.getCategory());
+        fields.put("quantity", String.valueOf(sale.getQuantity()));
+        fields.put("unitPrice", sale.getUnitPrice().toPlainString());
+        fields.put("buyer", sale.getBuyer());
+        fields.put("soldAt", sale.getSoldAt().toString());
+        return objectMapper.writeValueAsString(fields);
+    }
+
+    private SaleRecord fromLine(String line) throws IOException {
+        Map<String, String> fields = objectMapper.readValue(line, SPILLED_SALE);
+        return new SaleRecord(fields.get("sweetId"), fields.get("sweetName"), fields.get("category"),
+                Integer.parseInt(fields.get("quantity")), new BigDecimal(fields.get("unitPrice")), fields.get("buyer"),
+                Instant.parse(fields.get("soldAt")));
+    }
+
+    private static final class PendingSale {
+
+        private final SaleRecord sale;
+
+        // Only set with sync durability
+        private final CompletableFuture<Void> written;
+
+        private PendingSale(SaleRecord sale, CompletableFuture<Void> written) {
+            this.sale = sale;
+            this.written = written;
+        }
+
+        private void complete(Throwable failure) {
+            if (written == null) {
+                return;
+            }
+            if (failure == null) {
+                written.complete(null);
+            } else {
+                written.completeExceptionally(failure);
+            }
+        }
+    }
+}
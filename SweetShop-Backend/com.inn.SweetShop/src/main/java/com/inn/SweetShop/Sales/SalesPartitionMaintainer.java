@@ -0,0 +1,79 @@
+package com.inn.SweetShop.Sales;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps monthly partitions of the sales table (created by the V1 migration) ahead of time
+ * Rows that fall outside every monthly partition land in sales_default instead of failing the insert
+ */
+@Slf4j
+@Component
+public class SalesPartitionMaintainer {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sweetshop.sales.partition-months-ahead:2}")
+    private int monthsAhead;
+
+    private volatile boolean ledgerAvailable;
+
+    // Runs before the web server starts, so the current month's partition exists before the first purchase
+    @PostConstruct
+    public void initialize() {
+        try {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Sales ledger disabled, partitioned tables need PostgreSQL but found {}", database);
+                return;
+            }
+            ledgerAvailable = true;
+            createUpcomingPartitions();
+        } catch (DataAccessException ex) {
+            log.error("Could not prepare the sales ledger, purchases will not be recorded: ", ex);
+        }
+    }
+
+    // Daily, so next month's partition always exists well before the first sale in it
+    @Scheduled(cron = "${sweetshop.sales.partition-cron:0 0 3 * * *}")
+    public void createUpcomingPartitions() {
+        if (!ledgerAvailable) {
+            return;
+        }
+        YearMonth month = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(month.plusMonths(i));
+        }
+    }
+
+    public boolean isLedgerAvailable() {
+        return ledgerAvailable;
+    }
+
+    private void createPartition(YearMonth month) {
+        String sql = "CREATE TABLE IF NOT EXISTS sales_" + month.format(PARTITION_SUFFIX)
+                + " PARTITION OF sales FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00+00')"
+                + " TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException ex) {
+            // Fails when sales_default already holds rows for this month, they have to be moved by hand first
+            log.warn("Could not create sales partition for {}: {}", month, ex.getMessage());
+        }
+    }
+}
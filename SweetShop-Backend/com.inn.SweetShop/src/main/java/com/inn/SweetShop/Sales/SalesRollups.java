@@ -0,0 +1,231 @@
+package com.inn.SweetShop.Sales;
+
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.SalesStatWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hourly and daily sales totals per sweet and per category, maintained incrementally from purchases
+ * Purchases are added to in-memory accumulators and flushed as additive upserts into sales_rollup,
+ * so statistics read a handful of rollup rows instead of scanning the sales ledger
+ */
+@Slf4j
+@Component
+public class SalesRollups {
+
+    public enum Window {
+        HOUR,
+        DAY,
+        WEEK;
+
+        // Window for a request parameter, null when it is not one of hour, day or week
+        public static Window parse(String value) {
+            for (Window window : values()) {
+                if (window.name().equalsIgnoreCase(value)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String HOURLY = "H";
+    private static final String DAILY = "D";
+    private static final String BY_SWEET = "sweet";
+    private static final String BY_CATEGORY = "category";
+
+    // Additive, so concurrent flushes from several nodes never overwrite each other
+    private static final String UPSERT = "INSERT INTO sales_rollup "
+            + "(granularity, dimension, bucket_start, dim_key, label, units, revenue) VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (granularity, dimension, bucket_start, dim_key) DO UPDATE SET "
+            + "units = sales_rollup.units + EXCLUDED.units, "
+            + "revenue = sales_rollup.revenue + EXCLUDED.revenue, "
+            + "label = EXCLUDED.label";
+
+    private static final String SELECT_TOTALS = "SELECT dim_key, MAX(label) AS label, SUM(units) AS units, "
+            + "SUM(revenue) AS revenue FROM sales_rollup "
+            + "WHERE granularity = ? AND dimension = ? AND bucket_start >= ? GROUP BY dim_key ";
+
+    // Flush order, so upserts from different nodes lock rollup rows in the same order
+    private static final Comparator<Map.Entry<RollupKey, Totals>> KEY_ORDER = Comparator
+            .comparing((Map.Entry<RollupKey, Totals> entry) -> entry.getKey().getGranularity())
+            .thenComparing(entry -> entry.getKey().getDimension())
+            .thenComparing(entry -> entry.getKey().getBucketStart())
+            .thenComparing(entry -> entry.getKey().getKey());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SalesPartitionMaintainer partitionMaintainer;
+
+    private final Map<RollupKey, Totals> pending = new ConcurrentHashMap<>();
+    private volatile boolean available;
+
+    @PostConstruct
+    public void initialize() {
+        // Same PostgreSQL-only rule as the ledger, ON CONFLICT upserts need it too
+        available = partitionMaintainer.isLedgerAvailable();
+    }
+
+    @EventListener
+    public void onSweetChanged(SweetChangedEvent event) {
+        Sweet sweet = event.getSweet();
+        if (!available || event.getType() != SweetChangedEvent.ChangeType.PURCHASED || event.getQuantity() <= 0
+                || sweet == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Totals sale = new Totals(null, event.getQuantity(), sweet.getPrice().multiply(BigDecimal.valueOf(event.getQuantity())));
+        Instant hour = now.truncatedTo(ChronoUnit.HOURS);
+        Instant day = now.truncatedTo(ChronoUnit.DAYS);
+        add(new RollupKey(HOURLY, BY_SWEET, hour, event.getSweetId()), sale.withLabel(sweet.getName()));
+        add(new RollupKey(DAILY, BY_SWEET, day, event.getSweetId()), sale.withLabel(sweet.getName()));
+        add(new RollupKey(HOURLY, BY_CATEGORY, hour, sweet.getCategory()), sale.withLabel(sweet.getCategory()));
+        add(new RollupKey(DAILY, BY_CATEGORY, day, sweet.getCategory()), sale.withLabel(sweet.getCategory()));
+    }
+
+    // Best-selling sweets by units in the window
+    public List<SalesStatWrapper> topSellers(Window window, int limit) {
+        return totals(window, BY_SWEET, "units", limit);
+    }
+
+    // Revenue per category in the window, highest first
+    public List<SalesStatWrapper> categoryRevenue(Window window, int limit) {
+        return totals(window, BY_CATEGORY, "revenue", limit);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${sweetshop.sales.rollup-flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // remove() is atomic per key, a purchase racing with the flush lands in a fresh entry for the next flush
+        List<Map.Entry<RollupKey, Totals>> drained = new ArrayList<>();
+        for (RollupKey key : pending.keySet()) {
+            Totals totals = pending.remove(key);
+            if (totals != null) {
+                drained.add(Map.entry(key, totals));
+            }
+        }
+        drained.sort(KEY_ORDER);
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT, drained,
+                    drained.size(), (ps, entry) -> {
+                        RollupKey key = entry.getKey();
+                        ps.setString(1, key.getGranularity());
+                        ps.setString(2, key.getDimension());
+                        ps.setTimestamp(3, Timestamp.from(key.getBucketStart()));
+                        ps.setString(4, key.getKey());
+                        ps.setString(5, entry.getValue().getLabel());
+                        ps.setLong(6, entry.getValue().getUnits());
+                        ps.setBigDecimal(7, entry.getValue().getRevenue());
+                    }));
+        } catch (DataAccessException ex) {
+            log.warn("Could not flush {} sales rollups, retrying on the next flush: {}", drained.size(), ex.getMessage());
+            drained.forEach(entry -> add(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Hourly rows only serve the current hour, daily rows are kept for history
+    @Scheduled(cron = "${sweetshop.sales.rollup-prune-cron:0 15 * * * *}")
+    public void pruneHourlyRollups() {
+        if (!available) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM sales_rollup WHERE granularity = ? AND bucket_start < ?",
+                    HOURLY, Timestamp.from(Instant.now().minus(2, ChronoUnit.DAYS)));
+        } catch (DataAccessException ex) {
+            log.warn("Could not prune hourly sales rollups: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (available) {
+            flush();
+        }
+    }
+
+    private void add(RollupKey key, Totals totals) {
+        pending.merge(key, totals, Totals::plus);
+    }
+
+    // Reads at most one row per sweet or category per bucket in the window, independent of sales history
+    private List<SalesStatWrapper> totals(Window window, String dimension, String orderBy, int limit) {
+        if (!available) {
+            return new ArrayList<>();
+        }
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        String granularity = window == Window.HOUR ? HOURLY : DAILY;
+        Instant from = switch (window) {
+            case HOUR -> Instant.now().truncatedTo(ChronoUnit.HOURS);
+            case DAY -> today;
+            case WEEK -> today.minus(6, ChronoUnit.DAYS);
+        };
+        return jdbcTemplate.query(SELECT_TOTALS + "ORDER BY " + orderBy + " DESC, dim_key LIMIT ?",
+                (rs, rowNum) -> new SalesStatWrapper(rs.getString("dim_key"), rs.getString("label"),
+                        rs.getLong("units"), rs.getBigDecimal("revenue")),
+                granularity, dimension, Timestamp.from(from), limit);
+    }
+
+    @Value
+    private static class RollupKey {
+
+        String granularity;
+
+        String dimension;
+
+        Instant bucketStart;
+
+        String key;
+    }
+
+    @Value
+    private static class Totals {
+
+        // Latest sweet name or category, so renamed sweets show their current name
+        String label;
+
+        long units;
+
+        BigDecimal revenue;
+
+        private Totals withLabel(String label) {
+            return new Totals(label, units, revenue);
+        }
+
+        private Totals plus(Totals other) {
+            return new Totals(other.label != null ? other.label : label, units + other.units, revenue.add(other.revenue));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.inn.SweetShop.Service;
+
+import com.inn.SweetShop.Wrapper.RecordingRequest;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Service interface for on-demand profiling operations (admin only)
+ */
+public interface DiagnosticsService {
+
+    // Start a bounded JDK Flight Recorder recording
+    ResponseEntity<String> startRecording(RecordingRequest request);
+
+    // Stop the running recording and dump it to disk
+    ResponseEntity<String> stopRecording();
+
+    // Report the state of the current recording
+    ResponseEntity<String> recordingStatus();
+}
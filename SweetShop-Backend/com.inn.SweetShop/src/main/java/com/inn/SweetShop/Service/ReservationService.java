@@ -0,0 +1,18 @@
+package com.inn.SweetShop.Service;
+
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Service interface for timed stock reservations
+ */
+public interface ReservationService {
+
+    // Hold quantity units of a sweet for the buyer until the TTL runs out
+    ResponseEntity<String> reserve(String sweetId, Integer quantity, Long ttlSeconds);
+
+    // Turn a held reservation into a purchase
+    ResponseEntity<String> confirm(String reservationId);
+
+    // Give a held reservation's units back before it expires
+    ResponseEntity<String> release(String reservationId);
+}
@@ -0,0 +1,18 @@
+package com.inn.SweetShop.Service;
+
+import com.inn.SweetShop.Wrapper.SalesStatWrapper;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Service interface for sales statistics (admin only)
+ */
+public interface SalesStatsService {
+
+    // Best-selling sweets this hour, today or over the last 7 days
+    ResponseEntity<List<SalesStatWrapper>> getTopSellers(String window, Integer limit);
+
+    // Revenue per category this hour, today or over the last 7 days
+    ResponseEntity<List<SalesStatWrapper>> getCategoryRevenue(String window);
+}
@@ -1,24 +1,62 @@
 package com.inn.SweetShop.Service;
 import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import com.inn.SweetShop.Wrapper.StreamTicketWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangesWrapper;
+import com.inn.SweetShop.Wrapper.SweetRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
 
 public interface SweetService {
 
-    ResponseEntity<String> addSweet(Map<String, String> requestMap);
+    ResponseEntity<String> addSweet(SweetRequest request);
 
     ResponseEntity<List<Sweet>> getAllSweets();
 
     ResponseEntity<List<Sweet>> searchSweets(String name, String category,
                                              BigDecimal minPrice, BigDecimal maxPrice);
 
-    ResponseEntity<String> updateSweet(String id, Map<String, String> requestMap);
+    // Search plus category and price-bucket counts for the same filter
+    ResponseEntity<FacetedSearchWrapper> searchSweetsFaceted(String name, String category,
+                                                             BigDecimal minPrice, BigDecimal maxPrice);
+
+    ResponseEntity<Sweet> getSweetById(String id);
+
+    // Sweets and tombstones changed after the given change sequence, for delta sync
+    ResponseEntity<SweetChangesWrapper> getChangesSince(long since, Integer limit);
+
+    // Sweets at or below their reorder threshold, most depleted first
+    ResponseEntity<List<LowStockWrapper>> getLowStockSweets();
+
+    ResponseEntity<String> updateSweet(String id, SweetRequest request);
+
+    // Update guarded by an If-Match version, a mismatch is rejected with 412
+    ResponseEntity<String> updateSweet(String id, SweetRequest request, Long ifMatchVersion);
+
+    // Partial update of only the supplied fields, in a single UPDATE without reading the row first
+    ResponseEntity<String> patchSweet(String id, Map<String, String> requestMap, Long ifMatchVersion);
 
     ResponseEntity<String> deleteSweet(String id);
 
+    // Single-use ticket for opening the stock stream from an EventSource
+    ResponseEntity<StreamTicketWrapper> issueStreamTicket();
+
+    // Live stream of committed stock changes for dashboards
+    ResponseEntity<SseEmitter> streamStockChanges();
+
     ResponseEntity<String> purchaseSweet(String id, Integer quantity);
 
     ResponseEntity<String> restockSweet(String id, Integer quantity);
+
+    // Split a hot sweet's stock across this many counter rows, 1 merges them back
+    ResponseEntity<String> setStockShards(String id, Integer shards);
+
+    // Price, stock and delete changes for many sweets in one transaction, with a result per operation
+    ResponseEntity<BulkResultWrapper> bulkUpdate(BulkRequest request);
 }
\ No newline at end of file
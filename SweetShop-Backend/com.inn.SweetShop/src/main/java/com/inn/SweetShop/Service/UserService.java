@@ -1,23 +1,24 @@
 package com.inn.SweetShop.Service;
 
+import com.inn.SweetShop.Wrapper.LoginRequest;
+import com.inn.SweetShop.Wrapper.SignUpRequest;
+import com.inn.SweetShop.Wrapper.UserStatusRequest;
 import org.springframework.http.ResponseEntity;
 
-import java.util.Map;
-
 /**
  * Service interface for user-related operations
  */
 public interface UserService {
 
     // Register new user
-    ResponseEntity<String> signUp(Map<String, String> requestMap);
+    ResponseEntity<String> signUp(SignUpRequest request);
 
     // Authenticate user and generate token
-    ResponseEntity<String> login(Map<String, String> requestMap);
+    ResponseEntity<String> login(LoginRequest request);
 
     // Validate JWT token
     ResponseEntity<String> checkToken();
 
     // Update user information
-    ResponseEntity<String> update(Map<String, String> requestMap);
+    ResponseEntity<String> update(UserStatusRequest request);
 }
\ No newline at end of file
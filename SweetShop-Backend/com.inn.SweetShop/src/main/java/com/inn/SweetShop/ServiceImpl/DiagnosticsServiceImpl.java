@@ -0,0 +1,169 @@
+package com.inn.SweetShop.ServiceImpl;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.Service.DiagnosticsService;
+import com.inn.SweetShop.Wrapper.RecordingRequest;
+import com.inn.SweetShop.utils.RequestTimingEvent;
+import com.inn.SweetShop.utils.SweetUtils;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service implementation for on-demand JFR recordings
+ * Only one recording runs at a time and it is always bounded by duration and size
+ */
+@Slf4j
+@Service
+public class DiagnosticsServiceImpl implements DiagnosticsService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Value("${sweetshop.jfr.directory:${java.io.tmpdir}}")
+    private String dumpDirectory;
+
+    @Value("${sweetshop.jfr.max-duration-seconds:900}")
+    private long maxDurationSeconds;
+
+    @Value("${sweetshop.jfr.max-size-mb:256}")
+    private long maxSizeMb;
+
+    // ReentrantLock rather than synchronized so file I/O under the lock never pins a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private Recording recording;
+    private Path destination;
+
+    // POST /api/admin/jfr/start - Protected (Admin only)
+    @Override
+    public ResponseEntity<String> startRecording(RecordingRequest request) {
+        lock.lock();
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return SweetUtils.getResponseEntity(SweetConstants.ADMIN_ONLY, HttpStatus.FORBIDDEN);
+            }
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                return SweetUtils.getResponseEntity("A recording is already running", HttpStatus.CONFLICT);
+            }
+            closeRecording();
+
+            // Requested limits are clamped to the configured maximums
+            RecordingRequest limits = request != null ? request : new RecordingRequest(null, null, null);
+            long durationSeconds = limits.durationSeconds() != null
+                    ? Math.min(limits.durationSeconds(), maxDurationSeconds) : maxDurationSeconds;
+            long sizeMb = limits.maxSizeMb() != null ? Math.min(limits.maxSizeMb(), maxSizeMb) : maxSizeMb;
+            String settings = limits.settings() != null ? limits.settings() : "profile";
+
+            Path directory = Paths.get(dumpDirectory);
+            Files.createDirectories(directory);
+            Path file = directory.resolve("sweetshop-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+
+            Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+            newRecording.setName("sweetshop-on-demand");
+            newRecording.enable(RequestTimingEvent.class);
+            newRecording.setToDisk(true);
+            newRecording.setMaxSize(sizeMb * 1024 * 1024);
+            newRecording.setDuration(Duration.ofSeconds(durationSeconds));
+            newRecording.setDestination(file);
+            newRecording.start();
+
+            recording = newRecording;
+            destination = file;
+            log.info("Started JFR recording {} for {}s (max {} MB) -> {}", settings, durationSeconds, sizeMb, file);
+            return SweetUtils.getResponseEntity("Recording started. Output: " + file, HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in startRecording: ", ex);
+        } finally {
+            lock.unlock();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // POST /api/admin/jfr/stop - Protected (Admin only)
+    @Override
+    public ResponseEntity<String> stopRecording() {
+        lock.lock();
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return SweetUtils.getResponseEntity(SweetConstants.ADMIN_ONLY, HttpStatus.FORBIDDEN);
+            }
+            if (recording == null) {
+                return SweetUtils.getResponseEntity("No recording has been started", HttpStatus.NOT_FOUND);
+            }
+            // A recording that hit its duration has already been written to the destination
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Path file = destination;
+            closeRecording();
+            log.info("Stopped JFR recording -> {}", file);
+            return SweetUtils.getResponseEntity("Recording stopped. Output: " + file, HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in stopRecording: ", ex);
+        } finally {
+            lock.unlock();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/admin/jfr/status - Protected (Admin only)
+    @Override
+    public ResponseEntity<String> recordingStatus() {
+        lock.lock();
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return SweetUtils.getResponseEntity(SweetConstants.ADMIN_ONLY, HttpStatus.FORBIDDEN);
+            }
+            if (recording == null) {
+                return SweetUtils.getResponseEntity("No recording", HttpStatus.OK);
+            }
+            return SweetUtils.getResponseEntity("Recording " + recording.getState() + ". Output: " + destination,
+                    HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in recordingStatus: ", ex);
+        } finally {
+            lock.unlock();
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Stop and dump any running recording when the application shuts down
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            closeRecording();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            destination = null;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.inn.SweetShop.ServiceImpl;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Dao.StockReservationDao;
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Dao.SweetDaoCustom;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.POJO.StockReservation;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Service.ReservationService;
+import com.inn.SweetShop.utils.SweetUtils;
+import com.inn.SweetShop.utils.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service implementation for timed stock reservations
+ * A reservation raises sweets.held instead of lowering quantity, so purchases and new reservations only see
+ * quantity - held. Expiry runs off an in-memory timing wheel - one O(1) insert per hold and one bucket per tick,
+ * however many holds are open - instead of a task per hold or a polling query. Expired ids are released
+ * in set-based batches; holds confirmed or released meanwhile are skipped by the SQL, so nothing is cancelled.
+ * The wheel only knows the holds made on this node, so a periodic sweep of the table releases the ones whose
+ * node died or whose wheel fell behind; a hold past its expiry can no longer be confirmed either way.
+ */
+@Slf4j
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    private static final int EXPIRY_BATCH = 500;
+    // A batch that failed to release is retried after this delay
+    private static final long EXPIRY_RETRY_MS = 5000;
+
+    @Autowired
+    private SweetDao sweetDao;
+
+    @Autowired
+    private StockReservationDao stockReservationDao;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sweetshop.reservations.default-ttl:PT15M}")
+    private Duration defaultTtl;
+
+    @Value("${sweetshop.reservations.max-ttl:PT1H}")
+    private Duration maxTtl;
+
+    private final TimingWheel<String> expiryWheel;
+
+    // Releases run off the wheel thread, so a slow database never delays the next tick
+    private final ExecutorService expiryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReservationServiceImpl(@Value("${sweetshop.reservations.wheel-tick-ms:1000}") long tickMillis,
+                                  @Value("${sweetshop.reservations.wheel-size:1024}") int wheelSize) {
+        this.expiryWheel = new TimingWheel<>(tickMillis, wheelSize,
+                expired -> expiryExecutor.execute(() -> expire(expired)));
+    }
+
+    // Holds survive restarts in the table - reload the open ones, releasing those that lapsed while down
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<String> overdue = new ArrayList<>();
+            Instant now = Instant.now();
+            List<StockReservation> open = stockReservationDao.findByStatus(StockReservation.HELD);
+            for (StockReservation reservation : open) {
+                long remainingMs = Duration.between(now, reservation.getExpiresAt()).toMillis();
+                if (remainingMs <= 0) {
+                    overdue.add(reservation.getId());
+                } else {
+                    expiryWheel.schedule(reservation.getId(), remainingMs);
+                }
+            }
+            if (!overdue.isEmpty()) {
+                expiryExecutor.execute(() -> expire(overdue));
+            }
+            log.info("Reservation expiry started with {} open holds, {} already overdue", open.size(), overdue.size());
+        } catch (Exception ex) {
+            log.error("Could not reload open reservations: ", ex);
+        }
+        expiryWheel.start("reservation-wheel");
+    }
+
+    // Fallback to the wheels - every node sweeps, the SQL skips holds another node released first
+    @Scheduled(fixedDelayString = "${sweetshop.reservations.sweep-ms:60000}")
+    public void sweepOverdue() {
+        try {
+            List<String> overdue;
+            do {
+                overdue = stockReservationDao.findOverdueIds(Instant.now(), PageRequest.of(0, EXPIRY_BATCH));
+                if (!overdue.isEmpty()) {
+                    log.info("Sweeping {} overdue reservations", overdue.size());
+                    expire(overdue);
+                }
+            } while (overdue.size() == EXPIRY_BATCH);
+        } catch (Exception ex) {
+            log.error("Could not sweep overdue reservations: ", ex);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryWheel.stop();
+        expiryExecutor.shutdown();
+    }
+
+    // POST /api/sweets/:id/reserve - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<String> reserve(String sweetId, Integer quantity, Long ttlSeconds) {
+        try {
+            if (!jwtFilter.isUser()) {
+                return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
+            }
+            Duration ttl = ttlSeconds == null ? defaultTtl : Duration.ofSeconds(ttlSeconds);
+            if (ttl.getSeconds() < 1 || ttl.compareTo(maxTtl) > 0) {
+                return SweetUtils.getResponseEntity(SweetConstants.INVALID_RESERVATION_TTL, HttpStatus.BAD_REQUEST);
+            }
+
+            String reservationId = UUID.randomUUID().toString();
+            Instant expiresAt = Instant.now().plus(ttl);
+            Sweet sweet = sweetDao.reserveStock(reservationId, sweetId, quantity, jwtFilter.getCurrentUser(), expiresAt);
+            if (sweet == null) {
+                Optional<Sweet> existing = sweetDao.findById(sweetId);
+                if (existing.isEmpty()) {
+                    return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+                }
+                // Holds are counted against sweets.quantity, which only mirrors a sharded sweet's stock
+                if (existing.get().getStockShards() != null) {
+                    return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_UNAVAILABLE_SHARDED, HttpStatus.CONFLICT);
+                }
+                return SweetUtils.getResponseEntity("Insufficient stock. Available quantity: " +
+                        existing.get().availableQuantity(), HttpStatus.BAD_REQUEST);
+            }
+
+            expiryWheel.schedule(reservationId, ttl.toMillis());
+            publishChange(SweetChangedEvent.ChangeType.RESERVED, sweet, quantity, jwtFilter.getCurrentUser());
+            return new ResponseEntity<>(reservationBody(reservationId, sweetId, quantity, expiresAt, sweet.getVersion()),
+                    HttpStatus.CREATED);
+        } catch (Exception ex) {
+            log.error("Error in reserve: ", ex);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // POST /api/sweets/reservations/:reservationId/confirm - Protected (holder or admin)
+    @Override
+    public ResponseEntity<String> confirm(String reservationId) {
+        try {
+            if (!jwtFilter.isUser()) {
+                return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
+            }
+            StockReservation reservation = stockReservationDao.findById(reservationId).orElse(null);
+            ResponseEntity<String> denied = checkHeldByCaller(reservation);
+            if (denied != null) {
+                return denied;
+            }
+            Sweet sweet = sweetDao.confirmReservation(reservationId);
+            if (sweet == null) {
+                // Expired or released between the lookup and the update
+                return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_NOT_HELD, HttpStatus.CONFLICT);
+            }
+            // A confirmed hold is a sale like any other, the ledger and rollups credit it to the holder
+            publishChange(SweetChangedEvent.ChangeType.PURCHASED, sweet, reservation.getQuantity(),
+                    reservation.getHolder());
+            return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_CONFIRMED, sweet.getVersion(), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in confirm: ", ex);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // POST /api/sweets/reservations/:reservationId/release - Protected (holder or admin)
+    @Override
+    public ResponseEntity<String> release(String reservationId) {
+        try {
+            if (!jwtFilter.isUser()) {
+                return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
+            }
+            StockReservation reservation = stockReservationDao.findById(reservationId).orElse(null);
+            ResponseEntity<String> denied = checkHeldByCaller(reservation);
+            if (denied != null) {
+                return denied;
+            }
+            Sweet sweet = sweetDao.releaseReservation(reservationId, StockReservation.RELEASED);
+            if (sweet == null) {
+                return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_NOT_HELD, HttpStatus.CONFLICT);
+            }
+            publishChange(SweetChangedEvent.ChangeType.RELEASED, sweet, reservation.getQuantity(),
+                    jwtFilter.getCurrentUser());
+            return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_RELEASED, sweet.getVersion(), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in release: ", ex);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Null when the caller may act on the reservation, otherwise the error response
+    private ResponseEntity<String> checkHeldByCaller(StockReservation reservation) {
+        // Someone else's reservation reads as missing, ids are not confirmed to exist
+        if (reservation == null
+                || (!reservation.getHolder().equals(jwtFilter.getCurrentUser()) && !jwtFilter.isAdmin())) {
+            return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_NOT_FOUND, HttpStatus.NOT_FOUND);
+        }
+        if (!StockReservation.HELD.equals(reservation.getStatus())) {
+            return SweetUtils.getResponseEntity(SweetConstants.RESERVATION_NOT_HELD, HttpStatus.CONFLICT);
+        }
+        return null;
+    }
+
+    private void expire(List<String> reservationIds) {
+        for (int from = 0; from < reservationIds.size(); from += EXPIRY_BATCH) {
+            List<String> batch = reservationIds.subList(from, Math.min(from + EXPIRY_BATCH, reservationIds.size()));
+            try {
+                for (SweetDaoCustom.ReleasedStock released : sweetDao.expireReservations(batch)) {
+                    publishChange(SweetChangedEvent.ChangeType.RELEASED, released.sweet(), released.quantity(), null);
+                }
+            } catch (Exception ex) {
+                log.error("Could not expire {} reservations, retrying in {} ms: ", batch.size(), EXPIRY_RETRY_MS, ex);
+                for (String reservationId : batch) {
+                    expiryWheel.schedule(reservationId, EXPIRY_RETRY_MS);
+                }
+            }
+        }
+    }
+
+    // Every reservation statement autocommits, so the change is already visible when listeners run
+    private void publishChange(SweetChangedEvent.ChangeType type, Sweet sweet, int quantity, String actor) {
+        eventPublisher.publishEvent(new SweetChangedEvent(type, sweet.getId(), sweet, quantity, actor));
+    }
+
+    private static String reservationBody(String reservationId, String sweetId, int quantity, Instant expiresAt,
+                                          Long version) {
+        return "{\"id\":" + SweetUtils.quote(reservationId)
+                + ",\"sweetId\":" + SweetUtils.quote(sweetId)
+                + ",\"quantity\":" + quantity
+                + ",\"status\":\"" + StockReservation.HELD + "\""
+                + ",\"expiresAt\":\"" + expiresAt + "\""
+                + ",\"version\":" + version + "}";
+    }
+}
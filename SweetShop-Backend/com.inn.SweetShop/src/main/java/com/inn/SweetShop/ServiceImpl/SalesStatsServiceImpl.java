@@ -0,0 +1,69 @@
+package com.inn.SweetShop.ServiceImpl;
+
+import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.Sales.SalesRollups;
+import com.inn.SweetShop.Service.SalesStatsService;
+import com.inn.SweetShop.Wrapper.SalesStatWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service implementation for sales statistics, answered from the incrementally maintained rollups
+ * Figures can lag purchases by up to one rollup flush interval
+ */
+@Slf4j
+@Service
+public class SalesStatsServiceImpl implements SalesStatsService {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private SalesRollups salesRollups;
+
+    // GET /api/sweets/stats/top-sellers - Protected (Admin only)
+    @Override
+    public ResponseEntity<List<SalesStatWrapper>> getTopSellers(String window, Integer limit) {
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.FORBIDDEN);
+            }
+            SalesRollups.Window rollupWindow = SalesRollups.Window.parse(window);
+            if (rollupWindow == null || (limit != null && limit <= 0)) {
+                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.BAD_REQUEST);
+            }
+            int rows = limit == null ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+            return new ResponseEntity<>(salesRollups.topSellers(rollupWindow, rows), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in getTopSellers: ", ex);
+        }
+        return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/sweets/stats/category-revenue - Protected (Admin only)
+    @Override
+    public ResponseEntity<List<SalesStatWrapper>> getCategoryRevenue(String window) {
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.FORBIDDEN);
+            }
+            SalesRollups.Window rollupWindow = SalesRollups.Window.parse(window);
+            if (rollupWindow == null) {
+                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(salesRollups.categoryRevenue(rollupWindow, MAX_LIMIT), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in getCategoryRevenue: ", ex);
+        }
+        return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -1,51 +1,134 @@
 package com.inn.SweetShop.ServiceImpl;
 
+import com.inn.SweetShop.Cache.CatalogVersion;
+import com.inn.SweetShop.Cache.CategoryDictionary;
+import com.inn.SweetShop.Cache.ColumnarCatalog;
+import com.inn.SweetShop.Cache.LowStockIndex;
 import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Dao.StockShardDao;
 import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Events.StockStreamBroker;
+import com.inn.SweetShop.Events.SweetChangedEvent;
 import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.JWT.StreamTicketStore;
 import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.Sales.PurchaseBatcher;
 import com.inn.SweetShop.Service.SweetService;
+import com.inn.SweetShop.Wrapper.BulkItemResultWrapper;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import com.inn.SweetShop.Wrapper.StreamTicketWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangeWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangesWrapper;
+import com.inn.SweetShop.Wrapper.SweetRequest;
 import com.inn.SweetShop.utils.SweetUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 public class SweetServiceImpl implements SweetService {
 
+    private static final int DEFAULT_CHANGES_PAGE = 500;
+    private static final int MAX_CHANGES_PAGE = 5000;
+
     @Autowired
     private SweetDao sweetDao;
 
     @Autowired
     private JwtFilter jwtFilter;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockShardDao stockShardDao;
+
+    @Autowired
+    private PurchaseBatcher purchaseBatcher;
+
+    @Autowired
+    private LowStockIndex lowStockIndex;
+
+    @Autowired
+    private StockStreamBroker stockStreamBroker;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    // Only present with sweetshop.catalog.columnar.enabled=true
+    @Autowired(required = false)
+    private ColumnarCatalog columnarCatalog;
+
+    @Value("${sweetshop.search.price-buckets:10,25,50,100}")
+    private List<BigDecimal> priceBucketEdges;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // optimistic (version check + retry) or pessimistic (SELECT ... FOR UPDATE) for purchase and restock
+    @Value("${sweetshop.inventory.locking:optimistic}")
+    private String stockLockingMode;
+
+    @Value("${sweetshop.inventory.max-retries:5}")
+    private int maxStockRetries;
+
+    @Value("${sweetshop.inventory.retry-backoff-ms:5}")
+    private long stockRetryBackoffMs;
+
     // POST /api/sweets - Protected (Any authenticated user)
     @Override
-    public ResponseEntity<String> addSweet(Map<String, String> requestMap) {
+    public ResponseEntity<String> addSweet(SweetRequest request) {
         try {
             // Check if user is authenticated
             if (!jwtFilter.isUser()) {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
             }
 
-            if (validateSweetMap(requestMap, false)) {
-                Sweet sweet = getSweetFromMap(requestMap, false);
-                sweetDao.save(sweet);
-                return SweetUtils.getResponseEntity("Sweet added successfully", HttpStatus.CREATED);
+            if (validateSweetRequest(request)) {
+                Sweet sweet = new Sweet();
+                sweet.setId(generateSweetId());
+                setSweetFields(sweet, request);
+                Sweet saved = sweetDao.save(sweet);
+                publishChange(SweetChangedEvent.ChangeType.ADDED, saved != null ? saved : sweet, 0);
+                return SweetUtils.getResponseEntity(SweetConstants.SWEET_ADDED, HttpStatus.CREATED);
             }
             return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
         } catch (org.springframework.dao.DataIntegrityViolationException ex) {
             log.error("Duplicate sweet name: ", ex);
-            return SweetUtils.getResponseEntity("Sweet with this name already exists", HttpStatus.CONFLICT);
+            return SweetUtils.getResponseEntity(SweetConstants.DUPLICATE_SWEET_NAME, HttpStatus.CONFLICT);
         } catch (Exception ex) {
             log.error("Error in addSweet: ", ex);
         }
@@ -54,6 +137,7 @@ public class SweetServiceImpl implements SweetService {
 
     // GET /api/sweets - Protected (Any authenticated user)
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Sweet>> getAllSweets() {
         try {
             // Check if user is authenticated
@@ -71,6 +155,7 @@ public class SweetServiceImpl implements SweetService {
 
     // GET /api/sweets/search - Protected (Any authenticated user)
     @Override
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Sweet>> searchSweets(String name, String category,
                                                     BigDecimal minPrice, BigDecimal maxPrice) {
         try {
@@ -79,6 +164,14 @@ public class SweetServiceImpl implements SweetService {
                 return new ResponseEntity<>(new ArrayList<>(), HttpStatus.UNAUTHORIZED);
             }
 
+            // Price/category filters are answered from the off-heap snapshot while it is current
+            if (name == null && columnarCatalog != null) {
+                List<Sweet> sweets = columnarCatalog.search(category, minPrice, maxPrice);
+                if (sweets != null) {
+                    return new ResponseEntity<>(sweets, HttpStatus.OK);
+                }
+            }
+
             List<Sweet> sweets = sweetDao.searchSweets(name, category, minPrice, maxPrice);
             return new ResponseEntity<>(sweets, HttpStatus.OK);
         } catch (Exception ex) {
@@ -87,35 +180,264 @@ public class SweetServiceImpl implements SweetService {
         return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    // GET /api/sweets/search/faceted - Protected (Any authenticated user)
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<FacetedSearchWrapper> searchSweetsFaceted(String name, String category,
+                                                                    BigDecimal minPrice, BigDecimal maxPrice) {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+
+            FacetedSearchWrapper result = sweetDao.countFacets(name, category, minPrice, maxPrice, priceBucketEdges);
+            result.setSweets(sweetDao.searchSweets(name, category, minPrice, maxPrice));
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in searchSweetsFaceted: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/sweets/:id - Protected (Any authenticated user)
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<Sweet> getSweetById(String id) {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+
+            Optional<Sweet> optional = sweetDao.findById(String.valueOf(id));
+            if (optional.isPresent()) {
+                Sweet sweet = optional.get();
+                // A single sweet reads its live shard total, the list endpoints show the folded copy
+                if (sweet.getStockShards() != null && stockShardDao.isAvailable()) {
+                    sweet = withQuantity(sweet, stockShardDao.total(sweet.getId()));
+                }
+                return new ResponseEntity<>(sweet, HttpStatus.OK);
+            }
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception ex) {
+            log.error("Error in getSweetById: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     // PUT /api/sweets/:id - Protected (Any authenticated user)
     @Override
-    public ResponseEntity<String> updateSweet(String id, Map<String, String> requestMap) {
+    public ResponseEntity<String> updateSweet(String id, SweetRequest request) {
+        return updateSweet(id, request, null);
+    }
+
+    // PUT /api/sweets/:id with If-Match - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<String> updateSweet(String id, SweetRequest request, Long ifMatchVersion) {
         try {
             // Check if user is authenticated
             if (!jwtFilter.isUser()) {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
             }
 
-            if (validateSweetMap(requestMap, true)) {
+            if (!validateSweetRequest(request)) {
+                return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+            }
+            // The row and its shards change together, a failed rebalance also undoes the edit
+            return transactionTemplate.execute(status -> {
                 Optional<Sweet> optional = sweetDao.findById(String.valueOf(id));
-                if (optional.isPresent()) {
-                    Sweet sweet = getSweetFromMap(requestMap, true);
-                    sweet.setId(String.valueOf(id));
-                    sweetDao.save(sweet);
-                    return SweetUtils.getResponseEntity("Sweet updated successfully", HttpStatus.OK);
+                if (optional.isEmpty()) {
+                    return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+                }
+                Sweet sweet = optional.get();
+                if (ifMatchVersion != null && !ifMatchVersion.equals(sweet.getVersion())) {
+                    return SweetUtils.getResponseEntity(SweetConstants.PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
                 }
-                return SweetUtils.getResponseEntity("Sweet not found", HttpStatus.NOT_FOUND);
+                // Edits made against an older version are rejected rather than retried
+                if (request.version() != null && !request.version().equals(sweet.getVersion())) {
+                    return SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+                }
+                // A reservation made after this read bumps the version, so the save fails rather than undercutting it
+                if (sweet.getHeld() != null && request.quantity() < sweet.getHeld()) {
+                    return SweetUtils.getResponseEntity(SweetConstants.QUANTITY_BELOW_HELD, HttpStatus.CONFLICT);
+                }
+                setSweetFields(sweet, request);
+                Sweet saved = sweetDao.save(sweet);
+                if (saved == null) {
+                    saved = sweet;
+                }
+                // An edited quantity on a sharded sweet becomes the new shard total
+                if (saved.getStockShards() != null && stockShardDao.isAvailable()) {
+                    stockShardDao.rebalance(saved.getId(), saved.getQuantity());
+                }
+                publishChange(SweetChangedEvent.ChangeType.UPDATED, saved, 0);
+                ResponseEntity<String> response = SweetUtils.getResponseEntity(SweetConstants.SWEET_UPDATED, HttpStatus.OK);
+                if (saved.getVersion() == null) {
+                    return response;
+                }
+                return ResponseEntity.ok().eTag(CatalogVersion.sweetETag(saved.getId(), saved.getVersion()))
+                        .body(response.getBody());
+            });
+        } catch (OptimisticLockingFailureException ex) {
+            log.warn("Concurrent modification during update of sweet {}", id);
+            if (ifMatchVersion != null) {
+                return SweetUtils.getResponseEntity(SweetConstants.PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED);
             }
-            return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+            return SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
         } catch (org.springframework.dao.DataIntegrityViolationException ex) {
             log.error("Duplicate sweet name during update: ", ex);
-            return SweetUtils.getResponseEntity("Sweet with this name already exists", HttpStatus.CONFLICT);
+            return SweetUtils.getResponseEntity(SweetConstants.DUPLICATE_SWEET_NAME, HttpStatus.CONFLICT);
         } catch (Exception ex) {
             log.error("Error in updateSweet: ", ex);
         }
         return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    // POST /api/sweets/stream/ticket - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<StreamTicketWrapper> issueStreamTicket() {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            String ticket = streamTicketStore.issue(jwtFilter.getCurrentToken());
+            if (ticket == null) {
+                return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return new ResponseEntity<>(new StreamTicketWrapper(ticket, streamTicketStore.getTtlSeconds()),
+                    HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in issueStreamTicket: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/sweets/stream - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<SseEmitter> streamStockChanges() {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            SseEmitter emitter = stockStreamBroker.subscribe();
+            if (emitter == null) {
+                return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return new ResponseEntity<>(emitter, HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in streamStockChanges: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/sweets/changes - Protected (Any authenticated user)
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<SweetChangesWrapper> getChangesSince(long since, Integer limit) {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            if (since < 0 || (limit != null && limit <= 0)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            int pageSize = limit == null ? DEFAULT_CHANGES_PAGE : Math.min(limit, MAX_CHANGES_PAGE);
+
+            // One extra row tells whether another page follows
+            List<SweetChangeWrapper> changes = sweetDao.findChangesSince(since, pageSize + 1);
+            boolean hasMore = changes.size() > pageSize;
+            if (hasMore) {
+                changes = new ArrayList<>(changes.subList(0, pageSize));
+            }
+            long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getChangeSeq();
+            return new ResponseEntity<>(new SweetChangesWrapper(changes, nextSince, hasMore), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in getChangesSince: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // GET /api/sweets/low-stock - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<List<LowStockWrapper>> getLowStockSweets() {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.UNAUTHORIZED);
+            }
+            // Served from the in-memory index, kept current by every write path's SweetChangedEvent
+            return new ResponseEntity<>(lowStockIndex.lowStock(), HttpStatus.OK);
+        } catch (Exception ex) {
+            log.error("Error in getLowStockSweets: ", ex);
+        }
+        return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // PATCH /api/sweets/:id - Protected (Any authenticated user)
+    @Override
+    public ResponseEntity<String> patchSweet(String id, Map<String, String> requestMap, Long ifMatchVersion) {
+        try {
+            // Check if user is authenticated
+            if (!jwtFilter.isUser()) {
+                return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
+            }
+
+            Map<String, Object> changes = getPatchFromMap(requestMap);
+            if (changes == null) {
+                return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+            }
+            // A body "version" is an admin-edit check (409), If-Match is an HTTP precondition (412)
+            Long expectedVersion = ifMatchVersion;
+            if (expectedVersion == null && requestMap.containsKey("version")) {
+                expectedVersion = Long.parseLong(requestMap.get("version"));
+            }
+
+            Long versionCheck = expectedVersion;
+            // The row and its shards change together, a failed rebalance also undoes the patch
+            return transactionTemplate.execute(status -> {
+                Sweet patched = sweetDao.patchSweet(String.valueOf(id), changes, versionCheck);
+                if (patched == null) {
+                    return patchRejected(String.valueOf(id), versionCheck, ifMatchVersion != null);
+                }
+                if (changes.containsKey("quantity") && patched.getStockShards() != null && stockShardDao.isAvailable()) {
+                    stockShardDao.rebalance(patched.getId(), patched.getQuantity());
+                }
+                publishChange(SweetChangedEvent.ChangeType.UPDATED, patched, 0);
+
+                ResponseEntity<String> response =
+                        SweetUtils.getResponseEntity(SweetConstants.SWEET_UPDATED, patched.getVersion(), HttpStatus.OK);
+                return ResponseEntity.ok().eTag(CatalogVersion.sweetETag(patched.getId(), patched.getVersion()))
+                        .body(response.getBody());
+            });
+        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            log.error("Duplicate sweet name during patch: ", ex);
+            return SweetUtils.getResponseEntity(SweetConstants.DUPLICATE_SWEET_NAME, HttpStatus.CONFLICT);
+        } catch (NumberFormatException ex) {
+            return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            log.error("Error in patchSweet: ", ex);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Only the failure path pays for a second query, to tell a missing sweet, a stale version and held stock apart
+    private ResponseEntity<String> patchRejected(String id, Long expectedVersion, boolean ifMatch) {
+        Optional<Sweet> current = sweetDao.findById(id);
+        if (current.isEmpty()) {
+            return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(current.get().getVersion())) {
+            return ifMatch
+                    ? SweetUtils.getResponseEntity(SweetConstants.PRECONDITION_FAILED, HttpStatus.PRECONDITION_FAILED)
+                    : SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.QUANTITY_BELOW_HELD, HttpStatus.CONFLICT);
+    }
+
     // DELETE /api/sweets/:id - Protected (Admin only)
     @Override
     public ResponseEntity<String> deleteSweet(String id) {
@@ -125,12 +447,24 @@ public class SweetServiceImpl implements SweetService {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.FORBIDDEN);
             }
 
-            Optional<Sweet> optional = sweetDao.findById(String.valueOf(id));
-            if (optional.isPresent()) {
+            // The row lock keeps reservations out between the held check and the delete
+            return transactionTemplate.execute(status -> {
+                Optional<Sweet> optional = sweetDao.findByIdForUpdate(String.valueOf(id));
+                if (optional.isEmpty()) {
+                    return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+                }
+                // stock_reservations has no foreign key, deleting now would leave the holds to fail on confirm
+                Integer held = optional.get().getHeld();
+                if (held != null && held > 0) {
+                    return SweetUtils.getResponseEntity(SweetConstants.SWEET_HAS_HELD_STOCK, HttpStatus.CONFLICT);
+                }
                 sweetDao.deleteById(String.valueOf(id));
-                return SweetUtils.getResponseEntity("Sweet deleted successfully", HttpStatus.OK);
-            }
-            return SweetUtils.getResponseEntity("Sweet not found", HttpStatus.NOT_FOUND);
+                publishChange(SweetChangedEvent.ChangeType.DELETED, String.valueOf(id), null, 0);
+                return SweetUtils.getResponseEntity(SweetConstants.SWEET_DELETED, HttpStatus.OK);
+            });
+        } catch (OptimisticLockingFailureException ex) {
+            log.warn("Concurrent modification during delete of sweet {}", id);
+            return SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
         } catch (Exception ex) {
             log.error("Error in deleteSweet: ", ex);
         }
@@ -146,19 +480,36 @@ public class SweetServiceImpl implements SweetService {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
             }
 
-            Optional<Sweet> optional = sweetDao.findById(String.valueOf(id));
-            if (optional.isPresent()) {
-                Sweet sweet = optional.get();
-                if (sweet.getQuantity() >= quantity) {
-                    sweet.setQuantity(sweet.getQuantity() - quantity);
-                    sweetDao.save(sweet);
-                    return SweetUtils.getResponseEntity("Sweet purchased successfully. Remaining quantity: " +
-                            sweet.getQuantity(), HttpStatus.OK);
+            if (purchaseBatcher.isEnabled()) {
+                PurchaseBatcher.Outcome outcome = purchaseBatcher.purchase(String.valueOf(id), quantity);
+                if (outcome != null) {
+                    return batchedPurchase(String.valueOf(id), quantity, outcome);
                 }
-                return SweetUtils.getResponseEntity("Insufficient stock. Available quantity: " +
-                        sweet.getQuantity(), HttpStatus.BAD_REQUEST);
             }
-            return SweetUtils.getResponseEntity("Sweet not found", HttpStatus.NOT_FOUND);
+
+            // A scalar lookup, so a sharded sweet's row is neither locked nor version-bumped by its buyers
+            Integer shards = stockShardDao.isAvailable() ? sweetDao.findStockShardsById(String.valueOf(id)) : null;
+            if (shards != null) {
+                return purchaseFromShards(String.valueOf(id), quantity, shards);
+            }
+
+            return withStockRetry(() -> inStockTransaction(() -> {
+                Optional<Sweet> optional = loadForStockChange(String.valueOf(id));
+                if (optional.isPresent()) {
+                    Sweet sweet = optional.get();
+                    // Units held by open reservations are not for sale
+                    if (sweet.availableQuantity() >= quantity) {
+                        sweet.setQuantity(sweet.getQuantity() - quantity);
+                        Sweet saved = sweetDao.save(sweet);
+                        publishChange(SweetChangedEvent.ChangeType.PURCHASED, saved != null ? saved : sweet, quantity);
+                        return SweetUtils.getResponseEntity("Sweet purchased successfully. Remaining quantity: " +
+                                sweet.getQuantity(), HttpStatus.OK);
+                    }
+                    return SweetUtils.getResponseEntity("Insufficient stock. Available quantity: " +
+                            sweet.availableQuantity(), HttpStatus.BAD_REQUEST);
+                }
+                return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+            }));
         } catch (Exception ex) {
             log.error("Error in purchaseSweet: ", ex);
         }
@@ -174,30 +525,401 @@ public class SweetServiceImpl implements SweetService {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.FORBIDDEN);
             }
 
-            Optional<Sweet> optional = sweetDao.findById(String.valueOf(id));
-            if (optional.isPresent()) {
-                Sweet sweet = optional.get();
-                sweet.setQuantity(sweet.getQuantity() + quantity);
-                sweetDao.save(sweet);
-                return SweetUtils.getResponseEntity("Sweet restocked successfully. New quantity: " +
-                        sweet.getQuantity(), HttpStatus.OK);
+            Integer shards = stockShardDao.isAvailable() ? sweetDao.findStockShardsById(String.valueOf(id)) : null;
+            if (shards != null) {
+                return restockShards(String.valueOf(id), quantity);
             }
-            return SweetUtils.getResponseEntity("Sweet not found", HttpStatus.NOT_FOUND);
+
+            return withStockRetry(() -> inStockTransaction(() -> {
+                Optional<Sweet> optional = loadForStockChange(String.valueOf(id));
+                if (optional.isPresent()) {
+                    Sweet sweet = optional.get();
+                    sweet.setQuantity(sweet.getQuantity() + quantity);
+                    Sweet saved = sweetDao.save(sweet);
+                    publishChange(SweetChangedEvent.ChangeType.RESTOCKED, saved != null ? saved : sweet, quantity);
+                    return SweetUtils.getResponseEntity("Sweet restocked successfully. New quantity: " +
+                            sweet.getQuantity(), HttpStatus.OK);
+                }
+                return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+            }));
         } catch (Exception ex) {
             log.error("Error in restockSweet: ", ex);
         }
         return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
-    private boolean validateSweetMap(Map<String, String> requestMap, boolean validateId) {
-        if (requestMap.containsKey("name") &&
-                requestMap.containsKey("category") &&
-                requestMap.containsKey("price") &&
-                requestMap.containsKey("quantity")) {
-            return true;
+    // PUT /api/sweets/:id/stock-shards - Protected (Admin only)
+    @Override
+    public ResponseEntity<String> setStockShards(String id, Integer shards) {
+        try {
+            // Check if user is admin
+            if (!jwtFilter.isAdmin()) {
+                return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.FORBIDDEN);
+            }
+            if (!stockShardDao.isAvailable()) {
+                return SweetUtils.getResponseEntity(SweetConstants.STOCK_SHARDS_UNSUPPORTED, HttpStatus.CONFLICT);
+            }
+
+            return transactionTemplate.execute(status -> {
+                // The row lock keeps purchases of an unsharded sweet out while its stock moves into shards
+                Optional<Sweet> optional = sweetDao.findByIdForUpdate(String.valueOf(id));
+                if (optional.isEmpty()) {
+                    return SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+                }
+                Sweet sweet = optional.get();
+                if (sweet.getHeld() != null && sweet.getHeld() > 0) {
+                    return SweetUtils.getResponseEntity(SweetConstants.STOCK_SHARDS_WITH_HELD_STOCK, HttpStatus.CONFLICT);
+                }
+                int total = sweet.getStockShards() != null ? stockShardDao.remove(sweet.getId()) : sweet.getQuantity();
+                if (shards > 1) {
+                    stockShardDao.split(sweet.getId(), total, shards);
+                    sweet.setStockShards(shards);
+                } else {
+                    sweet.setStockShards(null);
+                }
+                sweet.setQuantity(total);
+                Sweet saved = sweetDao.save(sweet);
+                publishChange(SweetChangedEvent.ChangeType.UPDATED, saved != null ? saved : sweet, 0);
+                return SweetUtils.getResponseEntity(SweetConstants.STOCK_SHARDS_UPDATED, HttpStatus.OK);
+            });
+        } catch (Exception ex) {
+            log.error("Error in setStockShards: ", ex);
+        }
+        return SweetUtils.getResponseEntity(SweetConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // POST /api/sweets/bulk - Protected (Admin only)
+    @Override
+    public ResponseEntity<BulkResultWrapper> bulkUpdate(BulkRequest request) {
+        try {
+            // Check if user is admin
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+            }
+            if (request == null || !request.isValid()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+
+            return transactionTemplate.execute(status -> {
+                List<BulkRequest.Operation> operations;
+                List<Sweet> locked;
+                if (request.isByFilter()) {
+                    BulkRequest.Filter filter = request.filter();
+                    // One row past the cap tells an oversized match apart from one that fits exactly
+                    locked = sweetDao.lockMatching(filter.name(), filter.category(), filter.minPrice(),
+                            filter.maxPrice(), BulkRequest.MAX_ITEMS + 1);
+                    if (locked.size() > BulkRequest.MAX_ITEMS) {
+                        return new ResponseEntity<BulkResultWrapper>(HttpStatus.BAD_REQUEST);
+                    }
+                    operations = locked.stream().map(sweet -> request.apply().forSweet(sweet.getId())).toList();
+                } else {
+                    operations = request.operations();
+                    Set<String> ids = new TreeSet<>();
+                    for (BulkRequest.Operation operation : operations) {
+                        if (operation != null && operation.id() != null) {
+                            ids.add(operation.id());
+                        }
+                    }
+                    locked = sweetDao.lockForPurchase(ids);
+                }
+                return applyBulk(operations, locked, Boolean.TRUE.equals(request.atomic()));
+            });
+        } catch (Exception ex) {
+            log.error("Error in bulkUpdate: ", ex);
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // Copy the shard totals of sharded sweets into sweets.quantity, so lists, search and low-stock catch up
+    @Scheduled(fixedDelayString = "${sweetshop.inventory.shard-fold-ms:1000}")
+    public void foldShardedStock() {
+        if (!stockShardDao.isAvailable()) {
+            return;
+        }
+        try {
+            for (Sweet folded : sweetDao.foldShardedStock()) {
+                eventPublisher.publishEvent(new SweetChangedEvent(SweetChangedEvent.ChangeType.STOCK_SYNCED,
+                        folded.getId(), folded, 0, null));
+            }
+        } catch (Exception ex) {
+            log.error("Could not fold sharded stock: ", ex);
         }
-        return false;
     }
+
+    // Every item is checked against the locked rows first, then each kind of change runs as one statement
+    private ResponseEntity<BulkResultWrapper> applyBulk(List<BulkRequest.Operation> operations, List<Sweet> locked,
+                                                       boolean atomic) {
+        Map<String, Sweet> sweets = new HashMap<>();
+        for (Sweet sweet : locked) {
+            sweets.put(sweet.getId(), sweet);
+        }
+        List<BulkItemResultWrapper> results = new ArrayList<>(operations.size());
+        // Accepted operations and their results, index for index
+        List<BulkRequest.Operation> accepted = new ArrayList<>();
+        List<BulkItemResultWrapper> acceptedResults = new ArrayList<>();
+        Map<String, BigDecimal> prices = new TreeMap<>();
+        Map<String, Integer> deltas = new TreeMap<>();
+        Set<String> deletes = new TreeSet<>();
+        Set<String> claimed = new HashSet<>();
+        Set<String> touched = new HashSet<>();
+
+        for (BulkRequest.Operation operation : operations) {
+            BulkItemResultWrapper result = new BulkItemResultWrapper(operation == null ? null : operation.id(),
+                    operation == null || operation.type() == null ? null : operation.type().name());
+            results.add(result);
+            if (operation == null || operation.id() == null || !operation.hasValidValue()) {
+                fail(result, "INVALID", SweetConstants.BULK_INVALID_OPERATION);
+                continue;
+            }
+            String id = operation.id();
+            Sweet sweet = sweets.get(id);
+            if (sweet == null) {
+                fail(result, "NOT_FOUND", SweetConstants.SWEET_NOT_FOUND);
+                continue;
+            }
+            // Price and quantity of one sweet may change together, a second change to a field or
+            // anything alongside a delete conflicts
+            boolean delete = operation.type() == BulkRequest.Type.DELETE;
+            String field = delete ? "DELETE" : operation.type() == BulkRequest.Type.ADJUST_QUANTITY ? "QUANTITY" : "PRICE";
+            if (deletes.contains(id) || (delete && touched.contains(id)) || !claimed.add(id + ":" + field)) {
+                fail(result, "DUPLICATE", SweetConstants.BULK_DUPLICATE_OPERATION);
+                continue;
+            }
+            switch (operation.type()) {
+                case SET_PRICE -> prices.put(id, operation.price().setScale(2, RoundingMode.HALF_UP));
+                case SCALE_PRICE -> prices.put(id, sweet.getPrice().multiply(operation.factor())
+                        .setScale(2, RoundingMode.HALF_UP));
+                case ADJUST_QUANTITY -> {
+                    if (sweet.getStockShards() != null) {
+                        fail(result, "SHARDED", SweetConstants.BULK_SHARDED_STOCK);
+                        continue;
+                    }
+                    // Units held by open reservations must stay covered
+                    if (sweet.availableQuantity() + operation.delta() < 0) {
+                        fail(result, "INSUFFICIENT_STOCK", "Insufficient stock. Available quantity: " +
+                                sweet.availableQuantity());
+                        continue;
+                    }
+                    deltas.put(id, operation.delta());
+                }
+                case DELETE -> {
+                    // stock_reservations has no foreign key, the holds would be left to fail on confirm
+                    if (sweet.getHeld() != null && sweet.getHeld() > 0) {
+                        fail(result, "HELD", SweetConstants.BULK_HELD_STOCK);
+                        continue;
+                    }
+                    deletes.add(id);
+                }
+            }
+            touched.add(id);
+            accepted.add(operation);
+            acceptedResults.add(result);
+        }
+
+        BulkResultWrapper summary = new BulkResultWrapper(results);
+        summary.setFailed(results.size() - accepted.size());
+        // Nothing has been written yet, so an atomic request just skips the statements and the locks go at commit
+        if (atomic && summary.getFailed() > 0) {
+            for (BulkItemResultWrapper result : acceptedResults) {
+                fail(result, "NOT_APPLIED", SweetConstants.BULK_NOT_APPLIED);
+            }
+            summary.setRolledBack(true);
+            return new ResponseEntity<>(summary, HttpStatus.CONFLICT);
+        }
+
+        // Stock goes second, so a sweet with both changes ends up with the row from the later statement
+        Map<String, Sweet> updated = new HashMap<>();
+        for (Sweet sweet : sweetDao.setPrices(prices)) {
+            updated.put(sweet.getId(), sweet);
+        }
+        for (Sweet sweet : sweetDao.adjustStock(deltas)) {
+            updated.put(sweet.getId(), sweet);
+        }
+        Set<String> deleted = new HashSet<>(sweetDao.deleteSweets(deletes));
+
+        for (int i = 0; i < accepted.size(); i++) {
+            BulkItemResultWrapper result = acceptedResults.get(i);
+            result.setStatus("OK");
+            Sweet sweet = updated.get(accepted.get(i).id());
+            if (sweet != null && accepted.get(i).type() != BulkRequest.Type.DELETE) {
+                result.setPrice(sweet.getPrice());
+                result.setQuantity(sweet.getQuantity());
+                result.setVersion(sweet.getVersion());
+            }
+        }
+        summary.setSucceeded(accepted.size());
+        summary.setRowsUpdated(updated.size());
+        summary.setRowsDeleted(deleted.size());
+
+        // Never PURCHASED - the sales ledger must not book bulk stock corrections as sales
+        for (Sweet sweet : updated.values()) {
+            Integer delta = deltas.get(sweet.getId());
+            if (delta != null && delta > 0 && !prices.containsKey(sweet.getId())) {
+                publishChange(SweetChangedEvent.ChangeType.RESTOCKED, sweet, delta);
+            } else {
+                publishChange(SweetChangedEvent.ChangeType.UPDATED, sweet, 0);
+            }
+        }
+        for (String id : deleted) {
+            publishChange(SweetChangedEvent.ChangeType.DELETED, id, null, 0);
+        }
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    private static void fail(BulkItemResultWrapper result, String status, String message) {
+        result.setStatus(status);
+        result.setMessage(message);
+    }
+
+    // The batch has committed by now, so the event goes out straight away
+    private ResponseEntity<String> batchedPurchase(String id, int quantity, PurchaseBatcher.Outcome outcome) {
+        return switch (outcome.status()) {
+            case PURCHASED -> {
+                publishChange(SweetChangedEvent.ChangeType.PURCHASED, outcome.sweet(), quantity);
+                yield SweetUtils.getResponseEntity("Sweet purchased successfully. Remaining quantity: " +
+                        outcome.remaining(), HttpStatus.OK);
+            }
+            case INSUFFICIENT_STOCK -> SweetUtils.getResponseEntity("Insufficient stock. Available quantity: " +
+                    outcome.remaining(), HttpStatus.BAD_REQUEST);
+            case NOT_FOUND -> SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+            case SHARDED -> purchaseFromShards(id, quantity, outcome.sweet().getStockShards());
+        };
+    }
+
+    // Buyers of a sharded sweet decrement one shard row, sweets.quantity catches up on the next fold
+    private ResponseEntity<String> purchaseFromShards(String id, int quantity, int shards) {
+        if (!stockShardDao.take(id, quantity, shards)) {
+            return SweetUtils.getResponseEntity("Insufficient stock. Available quantity: " +
+                    stockShardDao.total(id), HttpStatus.BAD_REQUEST);
+        }
+        int remaining = stockShardDao.total(id);
+        Optional<Sweet> optional = sweetDao.findById(id);
+        if (optional.isPresent()) {
+            publishChange(SweetChangedEvent.ChangeType.PURCHASED, withQuantity(optional.get(), remaining), quantity);
+        }
+        return SweetUtils.getResponseEntity("Sweet purchased successfully. Remaining quantity: " +
+                remaining, HttpStatus.OK);
+    }
+
+    private ResponseEntity<String> restockShards(String id, int quantity) {
+        int total = stockShardDao.addAndRebalance(id, quantity);
+        Optional<Sweet> optional = sweetDao.findById(id);
+        if (optional.isPresent()) {
+            publishChange(SweetChangedEvent.ChangeType.RESTOCKED, withQuantity(optional.get(), total), quantity);
+        }
+        return SweetUtils.getResponseEntity("Sweet restocked successfully. New quantity: " + total, HttpStatus.OK);
+    }
+
+    // Detached copy carrying the shard total - the managed entity keeps the folded quantity, so nothing is flushed
+    private static Sweet withQuantity(Sweet sweet, int quantity) {
+        return new Sweet(sweet.getId(), sweet.getName(), sweet.getCategory(), sweet.getPrice(), quantity,
+                sweet.getHeld(), sweet.getStockShards(), sweet.getDescription(), sweet.getReorderThreshold(),
+                sweet.getChangeSeq(), sweet.getVersion());
+    }
+
+    // Retry a read-modify-write stock change when a concurrent write bumped the version first
+    private ResponseEntity<String> withStockRetry(Supplier<ResponseEntity<String>> attempt) throws InterruptedException {
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return attempt.get();
+            } catch (OptimisticLockingFailureException ex) {
+                if (attemptNumber >= maxStockRetries) {
+                    log.warn("Giving up stock change after {} conflicting attempts", attemptNumber);
+                    return SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT);
+                }
+                // Full jitter: sleep a random time below an exponentially growing cap
+                long capMs = stockRetryBackoffMs << Math.min(attemptNumber - 1, 6);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(capMs + 1));
+            }
+        }
+    }
+
+    // In pessimistic mode the read and the write share one transaction holding the row lock
+    private <T> T inStockTransaction(Supplier<T> work) {
+        if (isPessimisticLocking()) {
+            return transactionTemplate.execute(status -> work.get());
+        }
+        return work.get();
+    }
+
+    private Optional<Sweet> loadForStockChange(String id) {
+        return isPessimisticLocking() ? sweetDao.findByIdForUpdate(id) : sweetDao.findById(id);
+    }
+
+    private boolean isPessimisticLocking() {
+        return "pessimistic".equalsIgnoreCase(stockLockingMode);
+    }
+
+    private void publishChange(SweetChangedEvent.ChangeType type, Sweet sweet, int quantity) {
+        publishChange(type, sweet.getId(), sweet, quantity);
+    }
+
+    // Listeners only ever see committed state - inside a transaction the event waits for the commit
+    private void publishChange(SweetChangedEvent.ChangeType type, String sweetId, Sweet sweet, int quantity) {
+        SweetChangedEvent event = new SweetChangedEvent(type, sweetId, sweet, quantity, jwtFilter.getCurrentUser());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    // The REST layer validates the annotations, this guards callers that build requests themselves
+    private boolean validateSweetRequest(SweetRequest request) {
+        return request.name() != null && !request.name().isBlank()
+                && request.category() != null && !request.category().isBlank()
+                && request.price() != null && request.price().signum() >= 0
+                && request.quantity() != null && request.quantity() >= 0
+                && (request.reorderThreshold() == null || request.reorderThreshold() >= 0);
+    }
+
+    // Parse the fields present in a PATCH body, null when the body is empty or a value is invalid
+    private Map<String, Object> getPatchFromMap(Map<String, String> requestMap) {
+        if (requestMap == null) {
+            return null;
+        }
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : requestMap.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "name", "category" -> {
+                    if (value == null || value.isBlank()) {
+                        return null;
+                    }
+                    changes.put(entry.getKey(), value);
+                }
+                case "price" -> {
+                    BigDecimal price = new BigDecimal(value);
+                    if (price.signum() < 0) {
+                        return null;
+                    }
+                    changes.put("price", price);
+                }
+                case "quantity" -> {
+                    int quantity = Integer.parseInt(value);
+                    if (quantity < 0) {
+                        return null;
+                    }
+                    changes.put("quantity", quantity);
+                }
+                case "description" -> changes.put("description", value);
+                case "reorderThreshold" -> changes.put("reorderThreshold", parseThreshold(value));
+                case "version" -> {
+                    // Handled as the expected version, not as a column change
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return changes.isEmpty() ? null : changes;
+    }
+
     private String generateSweetId() {
         String lastId = sweetDao.getLastSweetId(); // Example: "S000129"
         int nextIdNumber = 1;
@@ -215,20 +937,31 @@ public class SweetServiceImpl implements SweetService {
         return String.format("S%06d", nextIdNumber);
     }
 
-    private Sweet getSweetFromMap(Map<String, String> requestMap, boolean isUpdate) {
-        Sweet sweet = new Sweet();
-        if (isUpdate) {
-        } else {
-            sweet.setId(generateSweetId());
+    // Copy the editable fields from the request onto a new or loaded sweet
+    private void setSweetFields(Sweet sweet, SweetRequest request) {
+        sweet.setName(request.name());
+        sweet.setCategory(request.category());
+        // Create a new category up front, so the converter only hits the dictionary cache while Hibernate flushes
+        categoryDictionary.idFor(sweet.getCategory());
+        sweet.setPrice(request.price());
+        sweet.setQuantity(request.quantity());
+        if (request.description() != null) {
+            sweet.setDescription(request.description());
+        }
+        if (request.reorderThreshold() != null) {
+            sweet.setReorderThreshold(request.reorderThreshold());
         }
+    }
 
-        sweet.setName(requestMap.get("name"));
-        sweet.setCategory(requestMap.get("category"));
-        sweet.setPrice(new BigDecimal(requestMap.get("price")));
-        sweet.setQuantity(Integer.parseInt(requestMap.get("quantity")));
-        if (requestMap.containsKey("description")) {
-            sweet.setDescription(requestMap.get("description"));
+    // Blank clears the sweet's own threshold so the category/shop default applies again
+    private Integer parseThreshold(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        int threshold = Integer.parseInt(value);
+        if (threshold < 0) {
+            throw new NumberFormatException("Negative reorder threshold: " + value);
         }
-        return sweet;
+        return threshold;
     }
 }
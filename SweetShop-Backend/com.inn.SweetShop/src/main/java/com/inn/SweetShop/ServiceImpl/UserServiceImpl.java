@@ -2,14 +2,18 @@ package com.inn.SweetShop.ServiceImpl;
 
 import com.inn.SweetShop.Constants.SweetConstants;
 import com.inn.SweetShop.Dao.UserDao;
+import com.inn.SweetShop.Events.CacheInvalidationEvent;
+import com.inn.SweetShop.Events.InvalidationBus;
 import com.inn.SweetShop.JWT.CustomerUsersDetailsService;
 import com.inn.SweetShop.JWT.JwtFilter;
 import com.inn.SweetShop.JWT.JwtUtil;
 import com.inn.SweetShop.POJO.User;
-import com.inn.SweetShop.Rest.UserRest;
+import com.inn.SweetShop.Service.UserService;
+import com.inn.SweetShop.Wrapper.LoginRequest;
+import com.inn.SweetShop.Wrapper.SignUpRequest;
+import com.inn.SweetShop.Wrapper.UserStatusRequest;
 import com.inn.SweetShop.utils.SweetUtils;
 import lombok.extern.slf4j.Slf4j;
-import com.inn.SweetShop.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +23,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -49,24 +52,27 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
     // Register new user
     @Override
-    public ResponseEntity<String> signUp(Map<String, String> requestMap) {
-        log.info("Inside signup {}", requestMap);
+    public ResponseEntity<String> signUp(SignUpRequest request) {
+        log.info("Inside signup {}", request);
 
         try {
-            if (validateSignUp(requestMap)) {
-                User user = userDao.findByEmailId(requestMap.get("email"));
+            if (validateSignUp(request)) {
+                User user = userDao.findByEmailId(request.email());
 
                 if (Objects.isNull(user)) {
                     // Create new user with encoded password
-                    User newUser = getUserFromMap(requestMap);
-                    newUser.setPassword(passwordEncoder.encode(requestMap.get("password")));
+                    User newUser = getUserFromRequest(request);
+                    newUser.setPassword(passwordEncoder.encode(request.password()));
                     userDao.save(newUser);
 
-                    return SweetUtils.getResponseEntity("Successfully Registered", HttpStatus.OK);
+                    return SweetUtils.getResponseEntity(SweetConstants.REGISTERED, HttpStatus.OK);
                 } else {
-                    return SweetUtils.getResponseEntity("Email already exists", HttpStatus.BAD_REQUEST);
+                    return SweetUtils.getResponseEntity(SweetConstants.EMAIL_EXISTS, HttpStatus.BAD_REQUEST);
                 }
             } else {
                 return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
@@ -78,18 +84,18 @@ public class UserServiceImpl implements UserService {
     }
 
     // Validate signup request contains all required fields
-    private boolean validateSignUp(Map<String, String> requestMap) {
-        return requestMap.containsKey("name") && requestMap.containsKey("contactNumber")
-                && requestMap.containsKey("email") && requestMap.containsKey("password");
+    private boolean validateSignUp(SignUpRequest request) {
+        return request.name() != null && request.contactNumber() != null
+                && request.email() != null && request.password() != null;
     }
 
     // Map request data to User object
-    private User getUserFromMap(Map<String, String> requestMap) {
+    private User getUserFromRequest(SignUpRequest request) {
         User user = new User();
-        user.setName(requestMap.get("name"));
-        user.setContactNumber(requestMap.get("contactNumber"));
-        user.setEmail(requestMap.get("email"));
-        user.setPassword(requestMap.get("password"));
+        user.setName(request.name());
+        user.setContactNumber(request.contactNumber());
+        user.setEmail(request.email());
+        user.setPassword(request.password());
         user.setStatus("false"); // Pending admin approval
         user.setRole("user");
         return user;
@@ -97,29 +103,29 @@ public class UserServiceImpl implements UserService {
 
     // Authenticate user and generate JWT token
     @Override
-    public ResponseEntity<String> login(Map<String, String> requestMap) {
+    public ResponseEntity<String> login(LoginRequest request) {
         log.info("Inside login");
 
         try {
             // Authenticate with Spring Security
             Authentication auth = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(requestMap.get("email"), requestMap.get("password"))
+                    new UsernamePasswordAuthenticationToken(request.email(), request.password())
             );
 
             if (auth.isAuthenticated()) {
                 // Check if user is approved by admin
                 if (customerUsersDetailsService.getUserDetail().getStatus().equalsIgnoreCase("true")) {
-                    return new ResponseEntity<String>("{\"token\":\"" +
+                    return SweetUtils.getTokenResponseEntity(
                             jwtUtil.generateToken(customerUsersDetailsService.getUserDetail().getEmail(),
-                                    customerUsersDetailsService.getUserDetail().getRole()) + "\"}", HttpStatus.OK);
+                                    customerUsersDetailsService.getUserDetail().getRole()));
                 } else {
-                    return new ResponseEntity<String>("{\"message\":\"" + "Wait for Admin Approval." + "\"}", HttpStatus.BAD_REQUEST);
+                    return SweetUtils.getResponseEntity(SweetConstants.AWAITING_APPROVAL, HttpStatus.BAD_REQUEST);
                 }
             }
         } catch (Exception ex) {
             log.error("{}", ex);
         }
-        return new ResponseEntity<String>("{\"message\":\"" + "Wrong Credentials" + "\"}", HttpStatus.UNAUTHORIZED);
+        return SweetUtils.getResponseEntity(SweetConstants.WRONG_CREDENTIALS, HttpStatus.UNAUTHORIZED);
     }
 
     // Validate JWT token
@@ -130,16 +136,19 @@ public class UserServiceImpl implements UserService {
 
     // Update user status (admin only)
     @Override
-    public ResponseEntity<String> update(Map<String, String> requestMap) {
+    public ResponseEntity<String> update(UserStatusRequest request) {
         try {
             if (jwtFilter.isAdmin()) {
-                Optional<User> optional = userDao.findById(Integer.parseInt(requestMap.get("id")));
+                Optional<User> optional = userDao.findById(request.id());
 
                 if (optional.isPresent()) {
-                    userDao.updateStatus(requestMap.get("status"), Integer.parseInt(requestMap.get("id")));
-                    return SweetUtils.getResponseEntity("User Status Successfully Updated", HttpStatus.OK);
+                    userDao.updateStatus(request.status(), request.id());
+                    // updateStatus commits on return, other nodes must not keep authorising with the old status
+                    invalidationBus.publish(new CacheInvalidationEvent(CacheInvalidationEvent.USERS,
+                            String.valueOf(request.id()), "STATUS", null, null));
+                    return SweetUtils.getResponseEntity(SweetConstants.USER_STATUS_UPDATED, HttpStatus.OK);
                 } else {
-                    return SweetUtils.getResponseEntity("User id doesn't exist", HttpStatus.OK);
+                    return SweetUtils.getResponseEntity(SweetConstants.USER_NOT_FOUND, HttpStatus.OK);
                 }
             } else {
                 return SweetUtils.getResponseEntity(SweetConstants.UNAUTHORIZED_ACCESS, HttpStatus.UNAUTHORIZED);
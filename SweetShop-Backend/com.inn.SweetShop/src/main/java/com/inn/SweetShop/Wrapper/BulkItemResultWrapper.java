@@ -0,0 +1,32 @@
+package com.inn.SweetShop.Wrapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Wrapper class for the outcome of one bulk operation
+ * status is OK, NOT_FOUND, INVALID, DUPLICATE, SHARDED, HELD or INSUFFICIENT_STOCK; price, quantity and
+ * version are the sweet as committed, left out for deletes and failures
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultWrapper {
+
+    private String id;
+    private String type;
+    private String status;
+    private String message;
+    private BigDecimal price;
+    private Integer quantity;
+    private Long version;
+
+    // Constructor for creating BulkItemResultWrapper for an operation not yet decided
+    public BulkItemResultWrapper(String id, String type) {
+        this.id = id;
+        this.type = type;
+    }
+}
@@ -0,0 +1,69 @@
+package com.inn.SweetShop.Wrapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Request body for bulk admin changes - either operations on listed sweets, or a filter plus one
+ * operation applied to every sweet it matches (e.g. category Milk, SCALE_PRICE by 1.1)
+ * atomic rolls the whole request back when any item fails, otherwise failed items are skipped
+ */
+public record BulkRequest(List<Operation> operations, Filter filter, Operation apply, Boolean atomic) {
+
+    // Operations per request, and sweets a filter may match
+    public static final int MAX_ITEMS = 5000;
+
+    public enum Type {
+        SET_PRICE,
+        SCALE_PRICE,
+        ADJUST_QUANTITY,
+        DELETE
+    }
+
+    /**
+     * One change, id is left out in the apply of a filter
+     * @param price new price for SET_PRICE
+     * @param factor price multiplier for SCALE_PRICE, the result is rounded to cents
+     * @param delta units added, or removed when negative, for ADJUST_QUANTITY
+     */
+    public record Operation(Type type, String id, BigDecimal price, BigDecimal factor, Integer delta) {
+
+        // The value the type needs is present and in range, the id is checked separately
+        public boolean hasValidValue() {
+            if (type == null) {
+                return false;
+            }
+            return switch (type) {
+                case SET_PRICE -> price != null && price.signum() >= 0;
+                case SCALE_PRICE -> factor != null && factor.signum() > 0;
+                case ADJUST_QUANTITY -> delta != null && delta != 0;
+                case DELETE -> true;
+            };
+        }
+
+        public Operation forSweet(String sweetId) {
+            return new Operation(type, sweetId, price, factor, delta);
+        }
+    }
+
+    // Same filters as GET /api/sweets/search, at least one is required
+    public record Filter(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+
+        public boolean isEmpty() {
+            return name == null && category == null && minPrice == null && maxPrice == null;
+        }
+    }
+
+    public boolean isByFilter() {
+        return filter != null;
+    }
+
+    // Exactly one of the two forms; bad values of a listed operation only fail that item
+    public boolean isValid() {
+        if (isByFilter()) {
+            return operations == null && !filter.isEmpty() && apply != null && apply.id() == null
+                    && apply.hasValidValue();
+        }
+        return apply == null && operations != null && !operations.isEmpty() && operations.size() <= MAX_ITEMS;
+    }
+}
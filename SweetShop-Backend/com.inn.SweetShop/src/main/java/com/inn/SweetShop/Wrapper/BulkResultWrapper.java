@@ -0,0 +1,29 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Wrapper class for a bulk admin request - rows-affected summary plus one result per operation, in request order
+ * (in sweet id order for a filter); rolledBack is set when an atomic request had a failed item
+ */
+@Data
+@NoArgsConstructor
+public class BulkResultWrapper {
+
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private int rowsUpdated;
+    private int rowsDeleted;
+    private boolean rolledBack;
+    private List<BulkItemResultWrapper> results;
+
+    // Constructor for creating BulkResultWrapper with the per-item results
+    public BulkResultWrapper(List<BulkItemResultWrapper> results) {
+        this.results = results;
+        this.requested = results.size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for one facet value and the number of matching sweets
+ * key is the category id for category facets and the bucket range (e.g. 10-25, 100+) for price facets
+ */
+@Data
+@NoArgsConstructor
+public class FacetCountWrapper {
+
+    private String key;
+    private String label;
+    private long count;
+
+    // Constructor for creating FacetCountWrapper with all fields
+    public FacetCountWrapper(String key, String label, long count) {
+        this.key = key;
+        this.label = label;
+        this.count = count;
+    }
+}
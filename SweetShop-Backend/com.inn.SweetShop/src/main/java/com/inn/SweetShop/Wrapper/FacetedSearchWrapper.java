@@ -0,0 +1,26 @@
+package com.inn.SweetShop.Wrapper;
+
+import com.inn.SweetShop.POJO.Sweet;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Wrapper class for a search result together with its category and price facet counts
+ */
+@Data
+@NoArgsConstructor
+public class FacetedSearchWrapper {
+
+    private List<Sweet> sweets;
+    private List<FacetCountWrapper> categories;
+    private List<FacetCountWrapper> priceBuckets;
+
+    // Constructor for creating FacetedSearchWrapper with all fields
+    public FacetedSearchWrapper(List<Sweet> sweets, List<FacetCountWrapper> categories, List<FacetCountWrapper> priceBuckets) {
+        this.sweets = sweets;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+    }
+}
@@ -0,0 +1,15 @@
+package com.inn.SweetShop.Wrapper;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request body for login
+ */
+public record LoginRequest(@NotBlank String email, @NotBlank String password) {
+
+    // Keeps the password out of logs
+    @Override
+    public String toString() {
+        return "LoginRequest[email=" + email + "]";
+    }
+}
@@ -0,0 +1,27 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for a sweet at or below its reorder threshold
+ */
+@Data
+@NoArgsConstructor
+public class LowStockWrapper {
+
+    private String id;
+    private String name;
+    private String category;
+    private int quantity;
+    private int threshold;
+
+    // Constructor for creating LowStockWrapper with all fields
+    public LowStockWrapper(String id, String name, String category, int quantity, int threshold) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.quantity = quantity;
+        this.threshold = threshold;
+    }
+}
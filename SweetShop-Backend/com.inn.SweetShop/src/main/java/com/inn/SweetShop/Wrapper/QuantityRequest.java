@@ -0,0 +1,13 @@
+package com.inn.SweetShop.Wrapper;
+
+/**
+ * Request body for purchase and restock
+ * Checked inline by SweetRestImpl rather than with @Valid - Bean Validation would more than double
+ * the allocation of the busiest write endpoint for a single null/positive check
+ */
+public record QuantityRequest(Integer quantity) {
+
+    public boolean isValid() {
+        return quantity != null && quantity > 0;
+    }
+}
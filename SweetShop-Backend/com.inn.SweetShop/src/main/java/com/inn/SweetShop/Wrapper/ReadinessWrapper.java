@@ -0,0 +1,21 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for the readiness probe - UP or OUT_OF_SERVICE, with the startup warm-up it waited for
+ */
+@Data
+@NoArgsConstructor
+public class ReadinessWrapper {
+
+    private String status;
+    private WarmupReportWrapper warmup;
+
+    // Constructor for creating ReadinessWrapper with all fields
+    public ReadinessWrapper(String status, WarmupReportWrapper warmup) {
+        this.status = status;
+        this.warmup = warmup;
+    }
+}
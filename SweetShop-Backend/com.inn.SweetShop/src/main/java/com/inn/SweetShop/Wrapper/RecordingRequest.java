@@ -0,0 +1,15 @@
+package com.inn.SweetShop.Wrapper;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Request body for starting a JFR recording, every field is optional
+ * Limits above the configured maximums are clamped by the service
+ */
+public record RecordingRequest(
+        @Positive Long durationSeconds,
+        @Positive Long maxSizeMb,
+        // Name of a built-in JFR configuration
+        @Pattern(regexp = "default|profile") String settings) {
+}
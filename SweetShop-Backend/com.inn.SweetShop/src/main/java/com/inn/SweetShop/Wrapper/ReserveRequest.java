@@ -0,0 +1,12 @@
+package com.inn.SweetShop.Wrapper;
+
+/**
+ * Request body for reserving stock
+ * ttlSeconds is optional and falls back to sweetshop.reservations.default-ttl
+ */
+public record ReserveRequest(Integer quantity, Long ttlSeconds) {
+
+    public boolean isValid() {
+        return quantity != null && quantity > 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Wrapper class for one line of a sales statistics response
+ * key is the sweet id for top sellers and the category for category revenue
+ */
+@Data
+@NoArgsConstructor
+public class SalesStatWrapper {
+
+    private String key;
+    private String label;
+    private long units;
+    private BigDecimal revenue;
+
+    // Constructor for creating SalesStatWrapper with all fields
+    public SalesStatWrapper(String key, String label, long units, BigDecimal revenue) {
+        this.key = key;
+        this.label = label;
+        this.units = units;
+        this.revenue = revenue;
+    }
+}
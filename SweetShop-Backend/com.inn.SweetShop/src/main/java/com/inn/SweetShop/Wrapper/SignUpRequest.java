@@ -0,0 +1,20 @@
+package com.inn.SweetShop.Wrapper;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request body for user registration
+ */
+public record SignUpRequest(
+        @NotBlank String name,
+        @NotBlank String contactNumber,
+        @NotBlank @Email String email,
+        @NotBlank String password) {
+
+    // Keeps the password out of logs
+    @Override
+    public String toString() {
+        return "SignUpRequest[name=" + name + ", contactNumber=" + contactNumber + ", email=" + email + "]";
+    }
+}
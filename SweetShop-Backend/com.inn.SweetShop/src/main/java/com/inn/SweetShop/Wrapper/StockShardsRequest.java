@@ -0,0 +1,15 @@
+package com.inn.SweetShop.Wrapper;
+
+/**
+ * Request body for sharding a sweet's stock counter
+ * 1 merges the shards back into sweets.quantity
+ */
+public record StockShardsRequest(Integer shards) {
+
+    // Beyond this more shards stop helping - the rows outnumber the connections that could contend on them
+    public static final int MAX_SHARDS = 64;
+
+    public boolean isValid() {
+        return shards != null && shards >= 1 && shards <= MAX_SHARDS;
+    }
+}
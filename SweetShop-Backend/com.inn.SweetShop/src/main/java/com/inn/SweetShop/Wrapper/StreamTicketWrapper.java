@@ -0,0 +1,22 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for a stock stream ticket
+ * Open GET /api/sweets/stream?ticket= with it within expiresInSeconds, it works once
+ */
+@Data
+@NoArgsConstructor
+public class StreamTicketWrapper {
+
+    private String ticket;
+    private long expiresInSeconds;
+
+    // Constructor for creating StreamTicketWrapper with all fields
+    public StreamTicketWrapper(String ticket, long expiresInSeconds) {
+        this.ticket = ticket;
+        this.expiresInSeconds = expiresInSeconds;
+    }
+}
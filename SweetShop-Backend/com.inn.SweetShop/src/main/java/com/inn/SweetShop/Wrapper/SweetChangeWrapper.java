@@ -0,0 +1,27 @@
+package com.inn.SweetShop.Wrapper;
+
+import com.inn.SweetShop.POJO.Sweet;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for one entry of a delta-sync response
+ * A deleted sweet is a tombstone - only id and changeSeq are set
+ */
+@Data
+@NoArgsConstructor
+public class SweetChangeWrapper {
+
+    private long changeSeq;
+    private String id;
+    private boolean deleted;
+    private Sweet sweet;
+
+    // Constructor for creating SweetChangeWrapper with all fields
+    public SweetChangeWrapper(long changeSeq, String id, boolean deleted, Sweet sweet) {
+        this.changeSeq = changeSeq;
+        this.id = id;
+        this.deleted = deleted;
+        this.sweet = sweet;
+    }
+}
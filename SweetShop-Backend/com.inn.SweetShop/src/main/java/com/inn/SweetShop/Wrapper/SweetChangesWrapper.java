@@ -0,0 +1,26 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Wrapper class for a page of delta-sync changes
+ * Clients pass nextSince as the next since, and keep paging while hasMore is true
+ */
+@Data
+@NoArgsConstructor
+public class SweetChangesWrapper {
+
+    private List<SweetChangeWrapper> changes;
+    private long nextSince;
+    private boolean hasMore;
+
+    // Constructor for creating SweetChangesWrapper with all fields
+    public SweetChangesWrapper(List<SweetChangeWrapper> changes, long nextSince, boolean hasMore) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+        this.hasMore = hasMore;
+    }
+}
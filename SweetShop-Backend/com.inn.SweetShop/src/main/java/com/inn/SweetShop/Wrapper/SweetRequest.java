@@ -0,0 +1,31 @@
+package com.inn.SweetShop.Wrapper;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * Request body for adding or replacing a sweet, bound and validated before it reaches the service
+ * Numeric fields still accept the quoted values older clients send, e.g. "price": "40.00"
+ */
+public record SweetRequest(
+        @NotBlank @Size(max = 255) String name,
+        @NotBlank @Size(max = 255) String category,
+        @NotNull @DecimalMin("0.00") @Digits(integer = 17, fraction = 2) BigDecimal price,
+        @NotNull @PositiveOrZero Integer quantity,
+        @Size(max = 500) String description,
+        // Left unchanged on update when absent
+        @PositiveOrZero Integer reorderThreshold,
+        // Expected version on update, a stale one is rejected with 409
+        Long version) {
+
+    // Constructor for the fields every request must carry
+    public SweetRequest(String name, String category, BigDecimal price, Integer quantity) {
+        this(name, category, price, quantity, null, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.inn.SweetShop.Wrapper;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Request body for an admin approving or blocking a user
+ */
+public record UserStatusRequest(@NotNull Integer id, @NotBlank String status) {
+}
@@ -0,0 +1,27 @@
+package com.inn.SweetShop.Wrapper;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wrapper class for the startup warm-up, reported with the readiness probe
+ * First and last round latencies show what the warm-up took off the first real requests
+ */
+@Data
+@NoArgsConstructor
+public class WarmupReportWrapper {
+
+    // RUNNING, DONE, SKIPPED or FAILED
+    private String state;
+    private long durationMs;
+    private int connectionsOpened;
+    private int catalogSweets;
+    private int rounds;
+    private int requests;
+    private long compileTimeMs;
+    private boolean compileSettled;
+    private double firstRoundP50Ms;
+    private double firstRoundP99Ms;
+    private double lastRoundP50Ms;
+    private double lastRoundP99Ms;
+}
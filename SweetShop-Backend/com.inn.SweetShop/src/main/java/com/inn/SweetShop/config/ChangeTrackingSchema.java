@@ -0,0 +1,45 @@
+package com.inn.SweetShop.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether delta sync (GET /api/sweets/changes) is available, PostgreSQL only
+ * The sequence, tombstones and triggers behind it come from the V1 migration: every inserted or updated
+ * sweet is stamped with the next value of sweet_change_seq and deletes are recorded as tombstones.
+ * Rows also carry the writing transaction id, which lets readers skip changes whose lower sequence
+ * numbers may still be uncommitted.
+ */
+@Slf4j
+@Component
+public class ChangeTrackingSchema {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile boolean available;
+
+    @PostConstruct
+    public void initialize() {
+        try {
+            String database = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(database)) {
+                log.info("Change tracking disabled, it needs PostgreSQL triggers but found {}", database);
+                return;
+            }
+            available = true;
+        } catch (DataAccessException ex) {
+            log.error("Could not check the database, delta sync will be unavailable: ", ex);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
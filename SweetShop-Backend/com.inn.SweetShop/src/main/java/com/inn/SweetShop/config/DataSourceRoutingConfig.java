@@ -0,0 +1,71 @@
+package com.inn.SweetShop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, enabled by setting sweetshop.datasource.replica-urls
+ * The primary pool is built from spring.datasource.*, each replica gets its own read-only pool
+ */
+@Configuration
+@ConditionalOnExpression("!'${sweetshop.datasource.replica-urls:}'.isBlank()")
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${sweetshop.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${sweetshop.datasource.replica-username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${sweetshop.datasource.replica-password:${spring.datasource.password:}}") String replicaPassword,
+            @Value("${sweetshop.datasource.read-your-writes-ms:2000}") long readYourWritesMs,
+            @Value("${sweetshop.datasource.health-check-interval-ms:5000}") long healthCheckIntervalMs) {
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        bindHikariSettings(environment, primary);
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            bindHikariSettings(environment, replica);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setPoolName("replica-" + i);
+            replicas.add(replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas,
+                Duration.ofMillis(readYourWritesMs));
+        routing.startHealthChecks(Duration.ofMillis(healthCheckIntervalMs));
+        return routing;
+    }
+
+    // The lazy proxy defers the physical connection until the transaction's read-only flag is set
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private void bindHikariSettings(Environment environment, HikariDataSource dataSource) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+    }
+}
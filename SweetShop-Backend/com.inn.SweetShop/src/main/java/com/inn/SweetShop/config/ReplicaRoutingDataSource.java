@@ -0,0 +1,217 @@
+package com.inn.SweetShop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that sends read-only transactions to healthy replicas in round-robin order
+ * Everything else stays on the primary:
+ * - writes and calls outside a read-only transaction
+ * - any transaction running inside a non-GET request, so read-modify-write flows never read a replica
+ * - reads by a user who committed a write within the read-your-writes window
+ * - reads wrapped in onPrimary, whose response is tagged with a version only the primary is sure to have
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the read-only flag is known when the connection is fetched
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long readYourWritesNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+    private volatile List<DataSource> healthyReplicas;
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthyReplicas = this.replicas;
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    // Same routing, the chosen pool decides whether it accepts other credentials
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(target -> target.getConnection(username, password));
+    }
+
+    /**
+     * Run work with every read on the primary, whether or not routing is configured
+     * A replica that lags behind can return rows older than the in-memory catalog version, and a client
+     * would then cache them under the current ETag and keep getting 304s until the next write.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean outermost = PRIMARY_ONLY.get() == null;
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outermost) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    // Pick the data source for the current thread's transaction
+    DataSource determineTarget() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriter();
+            return primary;
+        }
+        if (PRIMARY_ONLY.get() != null || isMutatingRequest() || isRecentWriter(currentPrincipal())) {
+            return primary;
+        }
+        List<DataSource> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return primary;
+        }
+        return candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+    }
+
+    // Probe every replica and rebuild the rotation from the ones that answer
+    public void checkReplicas() {
+        List<DataSource> healthy = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            try (Connection connection = replica.getConnection()) {
+                if (connection.isValid(2)) {
+                    healthy.add(replica);
+                }
+            } catch (SQLException ex) {
+                log.warn("Replica health check failed: {}", ex.getMessage());
+            }
+        }
+        if (healthy.size() != healthyReplicas.size()) {
+            log.info("Healthy replicas: {}/{}", healthy.size(), replicas.size());
+        }
+        healthyReplicas = List.copyOf(healthy);
+
+        // Drop writers whose read-your-writes window has passed
+        long now = System.nanoTime();
+        recentWriters.values().removeIf(writtenAt -> now - writtenAt > readYourWritesNanos);
+    }
+
+    // Run checkReplicas() periodically on a daemon thread
+    public void startHealthChecks(Duration interval) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        closeQuietly(primary);
+        replicas.forEach(this::closeQuietly);
+    }
+
+    private Connection connect(ConnectionOpener opener) throws SQLException {
+        DataSource target = determineTarget();
+        if (target == primary) {
+            return opener.open(primary);
+        }
+        try {
+            return opener.open(target);
+        } catch (SQLException ex) {
+            // Take the replica out of rotation until the next successful health check
+            log.warn("Replica connection failed, falling back to primary: {}", ex.getMessage());
+            markUnhealthy(target);
+            return opener.open(primary);
+        }
+    }
+
+    private void markUnhealthy(DataSource replica) {
+        List<DataSource> remaining = new ArrayList<>(healthyReplicas);
+        if (remaining.remove(replica)) {
+            healthyReplicas = List.copyOf(remaining);
+        }
+    }
+
+    // Record the principal once the write transaction commits, so their next reads stay on the primary
+    private void rememberWriter() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || readYourWritesNanos <= 0) {
+            return;
+        }
+        String principal = currentPrincipal();
+        if (principal != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(principal, System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private boolean isRecentWriter(String principal) {
+        if (principal == null) {
+            return false;
+        }
+        Long writtenAt = recentWriters.get(principal);
+        return writtenAt != null && System.nanoTime() - writtenAt <= readYourWritesNanos;
+    }
+
+    private boolean isMutatingRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String method = servletAttributes.getRequest().getMethod();
+            return !"GET".equals(method) && !"HEAD".equals(method);
+        }
+        return false;
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                log.warn("Error closing data source: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource target) throws SQLException;
+    }
+}
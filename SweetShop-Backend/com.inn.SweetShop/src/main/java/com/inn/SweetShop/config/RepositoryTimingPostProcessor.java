@@ -0,0 +1,41 @@
+package com.inn.SweetShop.config;
+
+import com.inn.SweetShop.utils.RequestTimer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds a timing advice to every Spring Data repository (SweetDao, UserDao)
+ * Time spent inside repository calls is charged to the db phase of the current request
+ */
+@Component
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    private static final MethodInterceptor DB_PHASE_INTERCEPTOR = new DbPhaseInterceptor();
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory ->
+                    factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                            proxyFactory.addAdvice(DB_PHASE_INTERCEPTOR)));
+        }
+        return bean;
+    }
+
+    private static final class DbPhaseInterceptor implements MethodInterceptor {
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RequestTimer.Phase previous = RequestTimer.enter(RequestTimer.Phase.DB);
+            try {
+                return invocation.proceed();
+            } finally {
+                RequestTimer.exit(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.inn.SweetShop.config;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.utils.SweetUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns request bodies that fail binding or @Valid into the usual {"message":"Invalid data"} 400
+ */
+@Slf4j
+@RestControllerAdvice
+public class RequestErrorAdvice {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<String> handleInvalidRequest(MethodArgumentNotValidException ex) {
+        log.debug("Rejected request body: {}", ex.getBindingResult().getFieldErrors());
+        return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<String> handleUnreadableRequest(HttpMessageNotReadableException ex) {
+        log.debug("Unreadable request body: {}", ex.getMessage());
+        return SweetUtils.getResponseEntity(SweetConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
+    }
+}
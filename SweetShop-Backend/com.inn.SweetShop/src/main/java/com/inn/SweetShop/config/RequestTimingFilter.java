@@ -0,0 +1,52 @@
+package com.inn.SweetShop.config;
+
+import com.inn.SweetShop.utils.RequestTimer;
+import com.inn.SweetShop.utils.RequestTimingEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Outermost filter that times every request by phase
+ * Runs before the security chain so JWT validation is included in the auth phase
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    @Value("${sweetshop.timing.server-timing-header:false}")
+    private boolean serverTimingHeader;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTimingEvent event = new RequestTimingEvent();
+        event.begin();
+        RequestTimer.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimer timer = RequestTimer.finish();
+            event.end();
+
+            // Responses with a body get the header from ServerTimingAdvice, this covers the bodiless ones
+            if (serverTimingHeader && !response.isCommitted() && !response.containsHeader(SERVER_TIMING_HEADER)) {
+                response.setHeader(SERVER_TIMING_HEADER, timer.toServerTiming());
+            }
+            if (event.shouldCommit()) {
+                event.record(request.getMethod(), request.getRequestURI(), response.getStatus(), timer);
+                event.commit();
+            }
+        }
+    }
+}
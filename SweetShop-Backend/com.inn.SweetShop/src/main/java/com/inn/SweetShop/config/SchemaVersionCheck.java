@@ -0,0 +1,135 @@
+package com.inn.SweetShop.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Boot-time check that the database is at the schema version this build was written for, PostgreSQL only
+ * Migrations (db/migration) are applied at deploy time with the Flyway Maven plugin; the application only
+ * compares flyway_schema_history with the bundled scripts - versions, success flags and Flyway's CRC32
+ * checksums - and refuses to start on a pending, failed or edited migration. One small query instead of
+ * Hibernate diffing the whole schema on every boot.
+ */
+@Slf4j
+@Component
+@ImportRuntimeHints(SchemaVersionCheck.MigrationHints.class)
+public class SchemaVersionCheck {
+
+    private static final String MIGRATIONS = "classpath:db/migration/V*__*.sql";
+    private static final Pattern VERSION = Pattern.compile("V([0-9]+)__.*\\.sql");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sweetshop.schema.validate:true}")
+    private boolean validate;
+
+    // Runs before Hibernate, so a missing migration fails the boot here rather than as a confusing SQL error later
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor schemaVersionCheckDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaVersionCheck.class);
+    }
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (!validate) {
+            return;
+        }
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.info("Schema check skipped, migrations are written for PostgreSQL but found {}", database);
+            return;
+        }
+
+        TreeMap<Integer, Integer> expected = bundledChecksums();
+        // Keyed by version text, the baseline row (version 0, no checksum) never matches a bundled script
+        Map<String, Integer> applied = new HashMap<>();
+        try {
+            jdbcTemplate.query("SELECT version, checksum, success FROM flyway_schema_history WHERE version IS NOT NULL",
+                    rs -> {
+                        if (!rs.getBoolean("success")) {
+                            throw new IllegalStateException("Migration V" + rs.getString("version")
+                                    + " failed, repair the database and run mvn flyway:repair flyway:migrate");
+                        }
+                        applied.put(rs.getString("version"), (Integer) rs.getObject("checksum"));
+                    });
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("No flyway_schema_history, run mvn flyway:migrate before starting", ex);
+        }
+
+        for (Map.Entry<Integer, Integer> migration : expected.entrySet()) {
+            String version = String.valueOf(migration.getKey());
+            if (!applied.containsKey(version)) {
+                throw new IllegalStateException("Migration V" + migration.getKey()
+                        + " has not been applied, run mvn flyway:migrate before starting");
+            }
+            if (!migration.getValue().equals(applied.get(version))) {
+                throw new IllegalStateException("Migration V" + migration.getKey()
+                        + " was changed after it was applied, add a new migration instead of editing it");
+            }
+        }
+        log.info("Database schema is at V{}", expected.isEmpty() ? 0 : expected.lastKey());
+    }
+
+    private TreeMap<Integer, Integer> bundledChecksums() throws IOException {
+        TreeMap<Integer, Integer> checksums = new TreeMap<>();
+        for (Resource script : new PathMatchingResourcePatternResolver().getResources(MIGRATIONS)) {
+            Matcher matcher = VERSION.matcher(script.getFilename());
+            if (matcher.matches()) {
+                checksums.put(Integer.parseInt(matcher.group(1)), checksum(script));
+            }
+        }
+        return checksums;
+    }
+
+    // Same as Flyway: CRC32 over the UTF-8 bytes of each line without its line break, BOM removed
+    private static int checksum(Resource script) throws IOException {
+        CRC32 crc32 = new CRC32();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            while (line != null) {
+                crc32.update(line.getBytes(StandardCharsets.UTF_8));
+                line = reader.readLine();
+            }
+        }
+        return (int) crc32.getValue();
+    }
+
+    // A native image only contains the resources it is told about, the check reads the scripts at runtime
+    static class MigrationHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("db/migration/*.sql");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.inn.SweetShop.config;
+
+import com.inn.SweetShop.utils.RequestTimer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks the start of the serialization phase just before a response body is written
+ * Also adds the Server-Timing header while the response headers are still writable
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Value("${sweetshop.timing.server-timing-header:false}")
+    private boolean serverTimingHeader;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimer timer = RequestTimer.current();
+        if (timer != null) {
+            if (serverTimingHeader) {
+                response.getHeaders().set(RequestTimingFilter.SERVER_TIMING_HEADER, timer.toServerTiming());
+            }
+            // Everything from here until the filter completes is message conversion
+            RequestTimer.enter(RequestTimer.Phase.SERIALIZATION);
+        }
+        return body;
+    }
+}
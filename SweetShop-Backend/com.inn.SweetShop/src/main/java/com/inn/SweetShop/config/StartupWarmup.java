@@ -0,0 +1,289 @@
+package com.inn.SweetShop.config;
+
+import com.inn.SweetShop.Cache.CatalogSnapshot;
+import com.inn.SweetShop.Cache.CategoryDictionary;
+import com.inn.SweetShop.Dao.UserDao;
+import com.inn.SweetShop.JWT.JwtUtil;
+import com.inn.SweetShop.POJO.User;
+import com.inn.SweetShop.Wrapper.WarmupReportWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup warm-up, run before the node reports ready (sweetshop.warmup.enabled)
+ * Boot only moves readiness to ACCEPTING_TRAFFIC once every ApplicationRunner has returned, so while this
+ * runs the probe answers 503 and the load balancer keeps traffic away. It fills the connection pool, loads
+ * the category dictionary and the catalog snapshot, then replays a mix of read requests through Tomcat,
+ * JwtFilter and SweetRest in rounds until the JIT's compile time per round settles (or max-duration).
+ * Best effort - a failed warm-up is logged and the node becomes ready anyway.
+ */
+@Slf4j
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${sweetshop.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sweetshop.warmup.connections:5}")
+    private int connections;
+
+    @Value("${sweetshop.warmup.concurrency:8}")
+    private int concurrency;
+
+    @Value("${sweetshop.warmup.round-requests:200}")
+    private int roundRequests;
+
+    @Value("${sweetshop.warmup.min-rounds:3}")
+    private int minRounds;
+
+    // Compile time per round below this share of the round's wall time counts as settled
+    @Value("${sweetshop.warmup.settle-ratio:0.1}")
+    private double settleRatio;
+
+    @Value("${sweetshop.warmup.max-duration:PT60S}")
+    private Duration maxDuration;
+
+    // Approved account the synthetic requests are signed as, blank for the first approved user
+    @Value("${sweetshop.warmup.user:}")
+    private String warmupUser;
+
+    private volatile WarmupReportWrapper report = withState("PENDING");
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            report = withState("SKIPPED");
+            return;
+        }
+        report = withState("RUNNING");
+        WarmupReportWrapper result = new WarmupReportWrapper();
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        try {
+            result.setConnectionsOpened(fillPool());
+            result.setCatalogSweets(loadCaches(deadline));
+            replay(result, deadline);
+            result.setState("DONE");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.setState("FAILED");
+        } catch (Exception ex) {
+            log.error("Warm-up failed, the node reports ready without it: ", ex);
+            result.setState("FAILED");
+        }
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        report = result;
+        log.info("Warm-up {} in {} ms: {} connections, {} sweets cached, {} requests in {} rounds, "
+                        + "JIT {} ms{}, p50 {} -> {} ms, p99 {} -> {} ms", result.getState(), result.getDurationMs(),
+                result.getConnectionsOpened(), result.getCatalogSweets(), result.getRequests(), result.getRounds(),
+                result.getCompileTimeMs(), result.isCompileSettled() ? " (settled)" : "",
+                result.getFirstRoundP50Ms(), result.getLastRoundP50Ms(),
+                result.getFirstRoundP99Ms(), result.getLastRoundP99Ms());
+    }
+
+    public WarmupReportWrapper getReport() {
+        return report;
+    }
+
+    // Holds that many connections at once, so the pool opens them now instead of on the first requests
+    private int fillPool() throws SQLException {
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                // Also makes a lazy connection proxy fetch its physical connection
+                connection.isValid(2);
+            }
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException ex) {
+                    log.debug("Could not return a warm-up connection: ", ex);
+                }
+            }
+        }
+        return held.size();
+    }
+
+    private int loadCaches(long deadline) throws InterruptedException {
+        categoryDictionary.reload();
+        if (!catalogSnapshot.isEnabled()) {
+            return 0;
+        }
+        // The first miss queues the encode, wait for it so the first real GET /api/sweets is served from bytes
+        CatalogSnapshot.Encoded snapshot;
+        while ((snapshot = catalogSnapshot.current()) == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        return snapshot == null ? 0 : snapshot.sweets();
+    }
+
+    private void replay(WarmupReportWrapper result, long deadline) throws Exception {
+        String port = environment.getProperty("local.server.port");
+        if (port == null) {
+            log.info("No web server to warm up");
+            return;
+        }
+        List<HttpRequest> mix = syntheticMix("http://localhost:" + port, warmupToken());
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean compileTimed = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long compileStart = compileTimed ? compiler.getTotalCompilationTime() : 0;
+        long compileBefore = compileStart;
+        int quietRounds = 0;
+        try {
+            while (true) {
+                long roundStarted = System.nanoTime();
+                long[] latencies = runRound(client, senders, mix);
+                long roundMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStarted);
+                result.setRounds(result.getRounds() + 1);
+                result.setRequests(result.getRequests() + latencies.length);
+                if (result.getRounds() == 1) {
+                    result.setFirstRoundP50Ms(percentileMs(latencies, 0.50));
+                    result.setFirstRoundP99Ms(percentileMs(latencies, 0.99));
+                }
+                result.setLastRoundP50Ms(percentileMs(latencies, 0.50));
+                result.setLastRoundP99Ms(percentileMs(latencies, 0.99));
+
+                if (compileTimed) {
+                    long compileNow = compiler.getTotalCompilationTime();
+                    quietRounds = compileNow - compileBefore <= settleRatio * roundMs ? quietRounds + 1 : 0;
+                    compileBefore = compileNow;
+                }
+                // Two quiet rounds in a row, one alone can be a lull between compile batches
+                if (result.getRounds() >= minRounds && quietRounds >= 2) {
+                    result.setCompileSettled(true);
+                    break;
+                }
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+        } finally {
+            senders.shutdownNow();
+        }
+        result.setCompileTimeMs(compileBefore - compileStart);
+    }
+
+    private long[] runRound(HttpClient client, ExecutorService senders, List<HttpRequest> mix) throws Exception {
+        List<Callable<Long>> calls = new ArrayList<>(roundRequests);
+        for (int i = 0; i < roundRequests; i++) {
+            HttpRequest request = mix.get(i % mix.size());
+            calls.add(() -> {
+                long sent = System.nanoTime();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return System.nanoTime() - sent;
+            });
+        }
+        List<Future<Long>> futures = senders.invokeAll(calls);
+        long[] latencies = new long[futures.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = futures.get(i).get();
+        }
+        return latencies;
+    }
+
+    // Read-only requests only, nothing the warm-up sends may change the catalog
+    private List<HttpRequest> syntheticMix(String base, String token) {
+        List<HttpRequest> mix = new ArrayList<>();
+        // JwtFilter without a token, refused by Spring Security
+        mix.add(get(base + "/api/sweets", null).build());
+        if (token == null) {
+            log.info("No approved user to sign warm-up requests, only unauthenticated paths are warmed");
+            return mix;
+        }
+        mix.add(get(base + "/api/auth/checkToken", token).build());
+        mix.add(get(base + "/api/sweets", token).build());
+        mix.add(get(base + "/api/sweets", token).header(HttpHeaders.IF_NONE_MATCH, "*").build());
+        // CBOR skips the snapshot, so this one loads and encodes the entities like a cold snapshot would
+        mix.add(get(base + "/api/sweets", token).header(HttpHeaders.ACCEPT, "application/cbor").build());
+        mix.add(get(base + "/api/sweets/search?name=a", token).build());
+        mix.add(get(base + "/api/sweets/search?minPrice=1&maxPrice=100", token).build());
+        mix.add(get(base + "/api/sweets/search/faceted?minPrice=1", token).build());
+        mix.add(get(base + "/api/sweets/low-stock", token).build());
+        mix.add(get(base + "/api/sweets/changes?since=0&limit=100", token).build());
+        for (String id : jdbcTemplate.queryForList("SELECT id FROM sweets ORDER BY id LIMIT 10", String.class)) {
+            mix.add(get(base + "/api/sweets/" + id, token).build());
+        }
+        return mix;
+    }
+
+    private String warmupToken() {
+        User user = warmupUser.isBlank() ? userDao.findFirstByStatusOrderByIdAsc("true") : userDao.findByEmail(warmupUser);
+        if (user == null || !"true".equalsIgnoreCase(user.getStatus())) {
+            return null;
+        }
+        return jwtUtil.generateToken(user.getEmail(), user.getRole());
+    }
+
+    private static HttpRequest.Builder get(String uri, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(10)).GET();
+        if (token != null) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static double percentileMs(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        return Math.round(sorted[index] / 10_000.0) / 100.0;
+    }
+
+    private static WarmupReportWrapper withState(String state) {
+        WarmupReportWrapper report = new WarmupReportWrapper();
+        report.setState(state);
+        return report;
+    }
+}
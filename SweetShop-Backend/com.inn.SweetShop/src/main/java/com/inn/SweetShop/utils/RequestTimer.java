@@ -0,0 +1,113 @@
+package com.inn.SweetShop.utils;
+
+/**
+ * Lightweight per-request phase timer
+ * Tracks exclusive time spent in auth, db, app and serialization phases on the request thread
+ */
+public final class RequestTimer {
+
+    // Request phases, labelled with their Server-Timing metric names
+    public enum Phase {
+        AUTH("auth"),
+        DB("db"),
+        APP("app"),
+        SERIALIZATION("ser");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = metric;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<>();
+
+    private final long[] phaseNanos = new long[PHASES.length];
+    private Phase phase = Phase.APP;
+    private long phaseStartNanos;
+
+    private RequestTimer() {
+        this.phaseStartNanos = System.nanoTime();
+    }
+
+    // Start timing the current request, time is charged to APP until another phase is entered
+    public static RequestTimer start() {
+        RequestTimer timer = new RequestTimer();
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    // Timer of the request running on this thread, or null outside a timed request
+    public static RequestTimer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Switch the current request into the given phase
+     * @return the phase to restore with {@link #exit(Phase)}, or null when no request is being timed
+     */
+    public static Phase enter(Phase next) {
+        RequestTimer timer = CURRENT.get();
+        return timer != null ? timer.switchTo(next) : null;
+    }
+
+    // Restore the phase returned by enter()
+    public static void exit(Phase previous) {
+        if (previous == null) {
+            return;
+        }
+        RequestTimer timer = CURRENT.get();
+        if (timer != null) {
+            timer.switchTo(previous);
+        }
+    }
+
+    // Stop timing the current request and detach it from the thread
+    public static RequestTimer finish() {
+        RequestTimer timer = CURRENT.get();
+        if (timer != null) {
+            CURRENT.remove();
+            timer.switchTo(timer.phase);
+        }
+        return timer;
+    }
+
+    private Phase switchTo(Phase next) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - phaseStartNanos;
+        Phase previous = phase;
+        phase = next;
+        phaseStartNanos = now;
+        return previous;
+    }
+
+    // Accumulated nanoseconds for a phase, the running phase is included up to now
+    public long nanos(Phase p) {
+        long total = phaseNanos[p.ordinal()];
+        if (p == phase && CURRENT.get() == this) {
+            total += System.nanoTime() - phaseStartNanos;
+        }
+        return total;
+    }
+
+    // Format as a Server-Timing header value, e.g. "auth;dur=1.20, db;dur=3.05, app;dur=0.41"
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder(64);
+        for (Phase p : PHASES) {
+            long nanos = nanos(p);
+            if (nanos == 0 && p == Phase.SERIALIZATION) {
+                continue;
+            }
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(p.getMetric()).append(";dur=").append(nanos / 1_000L / 1000.0);
+        }
+        return header.toString();
+    }
+}
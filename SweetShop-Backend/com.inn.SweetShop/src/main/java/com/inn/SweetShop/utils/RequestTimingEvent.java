@@ -0,0 +1,57 @@
+package com.inn.SweetShop.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event emitted once per HTTP request
+ * Splits the request duration into auth, db, app (business logic) and serialization phases
+ */
+@Name("com.inn.SweetShop.RequestTiming")
+@Label("Request Timing")
+@Category({"SweetShop", "HTTP"})
+@Description("Per-request time split into auth, db, business logic and serialization phases")
+@StackTrace(false)
+public class RequestTimingEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status")
+    int status;
+
+    @Label("Auth")
+    @Timespan(Timespan.NANOSECONDS)
+    long auth;
+
+    @Label("Database")
+    @Timespan(Timespan.NANOSECONDS)
+    long db;
+
+    @Label("Business Logic")
+    @Timespan(Timespan.NANOSECONDS)
+    long app;
+
+    @Label("Serialization")
+    @Timespan(Timespan.NANOSECONDS)
+    long serialization;
+
+    // Copy request details and phase timings into the event before commit
+    public void record(String method, String uri, int status, RequestTimer timer) {
+        this.method = method;
+        this.uri = uri;
+        this.status = status;
+        this.auth = timer.nanos(RequestTimer.Phase.AUTH);
+        this.db = timer.nanos(RequestTimer.Phase.DB);
+        this.app = timer.nanos(RequestTimer.Phase.APP);
+        this.serialization = timer.nanos(RequestTimer.Phase.SERIALIZATION);
+    }
+}
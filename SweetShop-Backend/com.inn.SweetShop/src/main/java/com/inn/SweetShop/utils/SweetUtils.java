@@ -1,21 +1,108 @@
 package com.inn.SweetShop.utils;
 
+import com.inn.SweetShop.Constants.SweetConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Utility class for common operations in SweetShop application
  */
 @Slf4j
 public class SweetUtils {
 
+    // {"message":...} bodies for every SweetConstants message, built once at class load instead of per response.
+    // Kept as String: every endpoint and the idempotency store deal in ResponseEntity<String>, so the
+    // converter's UTF-8 encoding of these short ASCII bodies stays per response
+    private static final Map<String, String> ENCODED_MESSAGES = encodeConstantMessages();
+
     // Private constructor to prevent instantiation
     private SweetUtils() {
     }
 
     // Helper method to create standardized JSON response
     public static ResponseEntity<String> getResponseEntity(String responseMessage, HttpStatus httpStatus) {
-        return new ResponseEntity<String>("{\"message\":\"" + responseMessage + "\"}", httpStatus);
+        return new ResponseEntity<String>(messageBody(responseMessage), httpStatus);
+    }
+
+    // Same as above, plus the sweet version so clients can keep their caches coherent
+    public static ResponseEntity<String> getResponseEntity(String responseMessage, long version, HttpStatus httpStatus) {
+        return new ResponseEntity<String>(encode(responseMessage, version), httpStatus);
+    }
+
+    // Login response carrying a freshly issued JWT
+    public static ResponseEntity<String> getTokenResponseEntity(String token) {
+        return new ResponseEntity<String>("{\"token\":" + quote(token) + "}", HttpStatus.OK);
+    }
+
+    // JSON string literal for the value, escaping only when something needs it
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        int i = 0;
+        while (i < value.length() && !needsEscape(value.charAt(i))) {
+            i++;
+        }
+        if (i == value.length()) {
+            return "\"" + value + "\"";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 16).append('"').append(value, 0, i);
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String messageBody(String responseMessage) {
+        String body = ENCODED_MESSAGES.get(responseMessage);
+        return body != null ? body : encode(responseMessage, null);
+    }
+
+    // The one place a message body is written, version is left out when null
+    private static String encode(String message, Long version) {
+        StringBuilder body = new StringBuilder(64).append("{\"message\":").append(quote(message));
+        if (version != null) {
+            body.append(",\"version\":").append(version);
+        }
+        return body.append('}').toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '"' || c == '\\' || c < 0x20;
+    }
+
+    private static Map<String, String> encodeConstantMessages() {
+        Map<String, String> encoded = new HashMap<>();
+        for (Field field : SweetConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    String message = (String) field.get(null);
+                    encoded.put(message, encode(message, null));
+                } catch (IllegalAccessException ex) {
+                    log.warn("Could not pre-encode message {}", field.getName());
+                }
+            }
+        }
+        return Map.copyOf(encoded);
     }
-}
\ No newline at end of file
+}
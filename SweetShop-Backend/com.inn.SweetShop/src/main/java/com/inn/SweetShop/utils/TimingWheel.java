@@ -0,0 +1,154 @@
+package com.inn.SweetShop.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel - schedules are O(1), and each tick only visits the one bucket whose time has come
+ * Items further away than one rotation carry a round count that the bucket visit decrements.
+ * schedule() may be called from any thread; buckets are only touched by the ticking thread, which picks up
+ * new items from a lock-free queue at the start of every tick. Expired items are handed to the callback
+ * as one list per tick. There is no cancel - callers make expiry a no-op for items that completed early.
+ */
+@Slf4j
+public class TimingWheel<T> {
+
+    private final long tickNanos;
+    private final int mask;
+    private final Node<T>[] buckets;
+    private final Queue<Node<T>> pending = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> onExpired;
+    private final long startNanos;
+    private long tick;
+    private volatile Thread ticker;
+
+    /**
+     * @param tickMillis expiry resolution
+     * @param wheelSize  buckets per rotation, rounded up to a power of two
+     */
+    public TimingWheel(long tickMillis, int wheelSize, Consumer<List<T>> onExpired) {
+        this(tickMillis, wheelSize, onExpired, System.nanoTime());
+    }
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize, Consumer<List<T>> onExpired, long startNanos) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.buckets = new Node[size];
+        this.onExpired = onExpired;
+        this.startNanos = startNanos;
+    }
+
+    public void schedule(T item, long delayMillis) {
+        schedule(item, delayMillis, System.nanoTime());
+    }
+
+    void schedule(T item, long delayMillis, long nowNanos) {
+        pending.add(new Node<>(item, nowNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0))));
+    }
+
+    public synchronized void start(String threadName) {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Thread.ofPlatform().name(threadName).daemon().start(this::run);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Process every tick that has elapsed by nowNanos and pass what expired to the callback
+     * Called by the ticker thread, or directly by tests driving the wheel with their own clock
+     */
+    int advanceTo(long nowNanos) {
+        List<T> expired = new ArrayList<>();
+        while (startNanos + (tick + 1) * tickNanos - nowNanos <= 0) {
+            transferPending();
+            expireBucket((int) (tick & mask), expired);
+            tick++;
+        }
+        if (!expired.isEmpty()) {
+            onExpired.accept(expired);
+        }
+        return expired.size();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long nextTick = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = nextTick - System.nanoTime();
+            try {
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                advanceTo(System.nanoTime());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                // A failing callback must not stop the wheel, the items it was given are lost to the caller
+                log.error("Timing wheel callback failed: ", ex);
+            }
+        }
+    }
+
+    private void transferPending() {
+        Node<T> node;
+        while ((node = pending.poll()) != null) {
+            long deadlineTick = (node.deadlineNanos - startNanos) / tickNanos;
+            // Already overdue items go into the current bucket and expire on this tick
+            long targetTick = Math.max(deadlineTick, tick);
+            node.rounds = (targetTick - tick) / buckets.length;
+            int index = (int) (targetTick & mask);
+            node.next = buckets[index];
+            buckets[index] = node;
+        }
+    }
+
+    private void expireBucket(int index, List<T> expired) {
+        Node<T> kept = null;
+        Node<T> node = buckets[index];
+        while (node != null) {
+            Node<T> next = node.next;
+            if (node.rounds <= 0) {
+                expired.add(node.item);
+            } else {
+                node.rounds--;
+                node.next = kept;
+                kept = node;
+            }
+            node = next;
+        }
+        buckets[index] = kept;
+    }
+
+    private static final class Node<T> {
+
+        private final T item;
+        private final long deadlineNanos;
+        private long rounds;
+        private Node<T> next;
+
+        private Node(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+-- Baseline schema, PostgreSQL 14+
+-- Every statement is idempotent: on a database built by the old ddl-auto=update and in-code DDL it only
+-- adds what is missing (run with baselineOnMigrate and baselineVersion 0, see the flyway plugin in pom.xml).
+
+-- Users
+CREATE TABLE IF NOT EXISTS users (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    contact_number VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    status VARCHAR(255),
+    role VARCHAR(255)
+);
+
+-- Categories, names unique ignoring case
+CREATE TABLE IF NOT EXISTS categories (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS categories_name_lower_idx ON categories (LOWER(name));
+
+-- Sweets
+CREATE TABLE IF NOT EXISTS sweets (
+    id VARCHAR(255) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    category_id INTEGER,
+    price NUMERIC(19, 2) NOT NULL,
+    quantity INTEGER NOT NULL,
+    held INTEGER NOT NULL DEFAULT 0,
+    stock_shards INTEGER,
+    description VARCHAR(500),
+    reorder_threshold INTEGER,
+    change_seq BIGINT,
+    change_txid XID8,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Columns added after the first release, missing from older databases
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS category_id INTEGER;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS held INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS stock_shards INTEGER;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS reorder_threshold INTEGER;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS change_txid XID8;
+ALTER TABLE sweets ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Sweets from before categories had their own table carry a free-text category, move it to category_id
+DO $$ BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'sweets' AND column_name = 'category') THEN
+        INSERT INTO categories (name) SELECT MIN(s.category) FROM sweets s
+        WHERE NOT EXISTS (SELECT 1 FROM categories c WHERE LOWER(c.name) = LOWER(s.category))
+        GROUP BY LOWER(s.category);
+        UPDATE sweets s SET category_id = c.id FROM categories c
+        WHERE s.category_id IS NULL AND LOWER(c.name) = LOWER(s.category);
+        ALTER TABLE sweets DROP COLUMN category;
+    END IF;
+END $$;
+
+ALTER TABLE sweets ALTER COLUMN category_id SET NOT NULL;
+
+DO $$ BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'sweets_category_id_fk') THEN
+        ALTER TABLE sweets ADD CONSTRAINT sweets_category_id_fk FOREIGN KEY (category_id) REFERENCES categories (id);
+    END IF;
+END $$;
+
+-- Change tracking behind delta sync (GET /api/sweets/changes)
+-- Triggers stamp every inserted or updated sweet with the next sequence number and the writing transaction,
+-- deletes leave a tombstone, so JPA, PATCH's single UPDATE and hand-written SQL are all covered
+CREATE SEQUENCE IF NOT EXISTS sweet_change_seq;
+
+CREATE TABLE IF NOT EXISTS sweet_tombstones (
+    sweet_id VARCHAR(255) PRIMARY KEY,
+    change_seq BIGINT NOT NULL,
+    change_txid XID8 NOT NULL,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE OR REPLACE FUNCTION sweets_stamp_change() RETURNS trigger AS $$ BEGIN
+    NEW.change_seq := nextval('sweet_change_seq');
+    NEW.change_txid := pg_current_xact_id();
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sweets_record_tombstone() RETURNS trigger AS $$ BEGIN
+    INSERT INTO sweet_tombstones (sweet_id, change_seq, change_txid)
+    VALUES (OLD.id, nextval('sweet_change_seq'), pg_current_xact_id())
+    ON CONFLICT (sweet_id) DO UPDATE SET change_seq = EXCLUDED.change_seq,
+        change_txid = EXCLUDED.change_txid, deleted_at = now();
+    RETURN OLD;
+END $$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER sweets_stamp_change BEFORE INSERT OR UPDATE ON sweets
+    FOR EACH ROW EXECUTE FUNCTION sweets_stamp_change();
+
+CREATE OR REPLACE TRIGGER sweets_record_tombstone AFTER DELETE ON sweets
+    FOR EACH ROW EXECUTE FUNCTION sweets_record_tombstone();
+
+-- Sweets written before change tracking existed get a sequence number through the trigger
+UPDATE sweets SET change_seq = NULL WHERE change_seq IS NULL;
+
+-- Timed reservations, counted in sweets.held while HELD
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id VARCHAR(36) PRIMARY KEY,
+    sweet_id VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    holder VARCHAR(255) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Sharded stock counters of hot sweets, each row kept non-negative
+CREATE TABLE IF NOT EXISTS sweet_stock_shards (
+    sweet_id VARCHAR(255) NOT NULL REFERENCES sweets (id) ON DELETE CASCADE,
+    shard SMALLINT NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0),
+    PRIMARY KEY (sweet_id, shard)
+);
+
+-- Sales ledger, range-partitioned by month on sold_at; SalesPartitionMaintainer adds the monthly partitions
+-- No foreign key to sweets - the ledger is append-only and must outlive deleted sweets
+CREATE SEQUENCE IF NOT EXISTS sales_id_seq;
+
+CREATE TABLE IF NOT EXISTS sales (
+    id BIGINT NOT NULL DEFAULT nextval('sales_id_seq'),
+    sweet_id VARCHAR(255) NOT NULL,
+    sweet_name VARCHAR(255) NOT NULL,
+    category VARCHAR(255),
+    quantity INTEGER NOT NULL,
+    unit_price NUMERIC(19, 2) NOT NULL,
+    total_price NUMERIC(19, 2) NOT NULL,
+    buyer VARCHAR(255),
+    sold_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (id, sold_at)
+) PARTITION BY RANGE (sold_at);
+
+CREATE TABLE IF NOT EXISTS sales_default PARTITION OF sales DEFAULT;
+
+-- Hourly and daily sales totals, maintained by additive upserts
+CREATE TABLE IF NOT EXISTS sales_rollup (
+    granularity CHAR(1) NOT NULL,
+    dimension VARCHAR(16) NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    dim_key VARCHAR(255) NOT NULL,
+    label VARCHAR(255),
+    units BIGINT NOT NULL,
+    revenue NUMERIC(19, 2) NOT NULL,
+    PRIMARY KEY (granularity, dimension, bucket_start, dim_key)
+);
+
+-- Durable Idempotency-Key responses
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scoped_key VARCHAR(600) PRIMARY KEY,
+    fingerprint VARCHAR(600) NOT NULL,
+    status_code INTEGER,
+    body TEXT,
+    etag VARCHAR(255),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    expires_at TIMESTAMPTZ NOT NULL,
+    -- A claim without an outcome past this time belonged to a run that died, a retry may take it over
+    lease_until TIMESTAMPTZ NOT NULL DEFAULT now()
+);
@@ -0,0 +1,36 @@
+-- Indexes and constraints behind the SweetDao, UserDao and background-job queries
+-- Plain CREATE INDEX takes a write lock for the build; on a large live table create the index
+-- CONCURRENTLY by hand first, the IF NOT EXISTS here then skips it.
+
+-- UserDao.findByEmail / findByEmailId - sign-up already refuses duplicates, the constraint makes it hold under races
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_key ON users (email);
+
+-- Users by approval status, e.g. sign-ups still waiting for an admin
+CREATE INDEX IF NOT EXISTS users_status_idx ON users (status);
+
+-- Units held by open reservations stay covered by stock, whichever path edits quantity
+ALTER TABLE sweets DROP CONSTRAINT IF EXISTS sweets_quantity_covers_held;
+ALTER TABLE sweets ADD CONSTRAINT sweets_quantity_covers_held CHECK (quantity >= held);
+
+-- Search by category filters on ids resolved from the category dictionary
+CREATE INDEX IF NOT EXISTS sweets_category_id_idx ON sweets (category_id);
+
+-- Price range search (findByPriceBetween, searchSweets) and the columnar catalog's ORDER BY price, id
+CREATE INDEX IF NOT EXISTS sweets_price_id_idx ON sweets (price, id);
+
+-- Name search is a case-insensitive substring match, which only a trigram index can serve
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS sweets_name_trgm_idx ON sweets USING gin (name gin_trgm_ops);
+
+-- Delta sync walks both change streams in change_seq order
+CREATE INDEX IF NOT EXISTS sweets_change_seq_idx ON sweets (change_seq);
+CREATE INDEX IF NOT EXISTS sweet_tombstones_change_seq_idx ON sweet_tombstones (change_seq);
+
+-- Open holds are reloaded into the expiry wheel at startup, and swept by expiry when overdue
+CREATE INDEX IF NOT EXISTS stock_reservations_status_expires_at_idx ON stock_reservations (status, expires_at);
+
+-- Sales statistics per sweet over a time range
+CREATE INDEX IF NOT EXISTS sales_sweet_id_sold_at_idx ON sales (sweet_id, sold_at);
+
+-- Cleanup of expired idempotency keys
+CREATE INDEX IF NOT EXISTS idempotency_keys_expires_at_idx ON idempotency_keys (expires_at);
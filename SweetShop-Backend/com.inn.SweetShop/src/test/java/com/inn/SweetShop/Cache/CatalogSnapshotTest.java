@@ -0,0 +1,123 @@
+package com.inn.SweetShop.Cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.POJO.Sweet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotTest {
+
+    private static final long ENCODE_TIMEOUT_MS = 2000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CatalogSnapshot catalogSnapshot;
+    private CatalogVersion catalogVersion;
+    private SweetDao sweetDao;
+    private List<Sweet> sweets;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setupSnapshot() {
+        sweets = new ArrayList<>(List.of(
+                new Sweet("S000001", "Kaju Katli", "Nut-Based", new BigDecimal("25.50"), 40, "Cashew fudge")));
+        sweetDao = mock(SweetDao.class);
+        when(sweetDao.findAll()).thenAnswer(invocation -> new ArrayList<>(sweets));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
+        catalogVersion = new CatalogVersion();
+        catalogSnapshot = new CatalogSnapshot();
+        ReflectionTestUtils.setField(catalogSnapshot, "sweetDao", sweetDao);
+        ReflectionTestUtils.setField(catalogSnapshot, "catalogVersion", catalogVersion);
+        ReflectionTestUtils.setField(catalogSnapshot, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(catalogSnapshot, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(catalogSnapshot, "enabled", true);
+        ReflectionTestUtils.setField(catalogSnapshot, "gzip", true);
+    }
+
+    @AfterEach
+    void stopEncoder() {
+        catalogSnapshot.shutdown();
+    }
+
+    @Test
+    void shouldServeEncodedCatalogAtCurrentVersion() throws Exception {
+        // Act
+        catalogSnapshot.start();
+        CatalogSnapshot.Encoded encoded = awaitCurrent();
+
+        // Assert - plain and gzipped bytes are the JSON the converter would have written
+        assertArrayEquals(objectMapper.writeValueAsBytes(sweets), encoded.json());
+        assertArrayEquals(encoded.json(), gunzip(encoded.gzip()));
+        assertEquals(catalogVersion.catalogETag(catalogVersion.current()), encoded.eTag());
+        assertEquals(1, encoded.sweets());
+    }
+
+    @Test
+    void shouldTreatSnapshotAsStaleAfterWriteUntilReEncoded() throws Exception {
+        // Arrange
+        catalogSnapshot.start();
+        CatalogSnapshot.Encoded before = awaitCurrent();
+
+        // Act - a committed write moves the catalog version and queues the re-encode
+        Sweet added = new Sweet("S000002", "Rasgulla", "Milk-Based", new BigDecimal("15.00"), 60, "Syrup balls");
+        added.setVersion(0L);
+        sweets.add(added);
+        SweetChangedEvent event = new SweetChangedEvent(SweetChangedEvent.ChangeType.ADDED, "S000002", added, 0, "admin");
+        catalogVersion.onSweetChanged(event);
+        catalogSnapshot.onSweetChanged(event);
+        CatalogSnapshot.Encoded after = awaitCurrent();
+
+        // Assert
+        assertNotEquals(before.eTag(), after.eTag());
+        assertEquals(2, after.sweets());
+        verify(sweetDao, times(2)).findAll();
+    }
+
+    @Test
+    void shouldNeverEncodeWhenDisabled() {
+        // Arrange
+        ReflectionTestUtils.setField(catalogSnapshot, "enabled", false);
+
+        // Act
+        catalogSnapshot.start();
+
+        // Assert
+        assertNull(catalogSnapshot.current());
+        verifyNoInteractions(sweetDao);
+    }
+
+    private CatalogSnapshot.Encoded awaitCurrent() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + ENCODE_TIMEOUT_MS;
+        CatalogSnapshot.Encoded encoded;
+        while ((encoded = catalogSnapshot.current()) == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Snapshot was not encoded in time");
+            Thread.sleep(10);
+        }
+        return encoded;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
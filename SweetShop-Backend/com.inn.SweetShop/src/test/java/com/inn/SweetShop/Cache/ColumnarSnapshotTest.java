@@ -0,0 +1,102 @@
+package com.inn.SweetShop.Cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the off-heap snapshot against a brute-force scan of the same rows
+ */
+public class ColumnarSnapshotTest {
+
+    private static final int ROWS = 5_000;
+
+    private long[] cents;
+    private int[] categories;
+    private ColumnarSnapshot snapshot;
+
+    @BeforeEach
+    void buildSnapshot() {
+        // Prices ascend with frequent duplicates, as the builder requires
+        Random random = new Random(42);
+        cents = new long[ROWS];
+        categories = new int[ROWS];
+        ColumnarSnapshot.Builder builder = ColumnarSnapshot.builder(16);
+        long price = 100;
+        for (int i = 0; i < ROWS; i++) {
+            price += random.nextInt(3) * 25;
+            cents[i] = price;
+            categories[i] = random.nextInt(12);
+            builder.add("S" + i, "Sweet " + i, categories[i], price, i % 40, i % 3 == 0 ? null : "Desc " + i,
+                    i % 5 == 0 ? ColumnarSnapshot.NULL_INT : 7, 1, i);
+        }
+        snapshot = builder.build();
+    }
+
+    @Test
+    void shouldMatchBruteForceScanWhenSearching() {
+        Random random = new Random(7);
+        for (int query = 0; query < 200; query++) {
+            // Arrange
+            long min = cents[random.nextInt(ROWS)];
+            long max = min + random.nextInt(2_000);
+            BitSet wanted = null;
+            if (query % 2 == 0) {
+                wanted = new BitSet();
+                wanted.set(random.nextInt(12));
+                wanted.set(random.nextInt(12));
+            }
+
+            // Act
+            int[] rows = snapshot.search(wanted, min, max);
+
+            // Assert
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                if (cents[i] >= min && cents[i] <= max && (wanted == null || wanted.get(categories[i]))) {
+                    expected.add("S" + i);
+                }
+            }
+            List<String> actual = new ArrayList<>();
+            for (int row : rows) {
+                actual.add(snapshot.id(row));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void shouldReadBackEveryColumnOfARow() {
+        // Act
+        int row = snapshot.rowOf("S3");
+
+        // Assert
+        assertEquals("Sweet 3", snapshot.name(row));
+        assertNull(snapshot.description(row));
+        assertEquals(cents[3], snapshot.priceCents(row));
+        assertEquals(categories[3], snapshot.categoryId(row));
+        assertEquals(7, snapshot.reorderThreshold(row));
+        assertEquals(ColumnarSnapshot.NULL_INT, snapshot.reorderThreshold(snapshot.rowOf("S5")));
+        assertEquals(-1, snapshot.rowOf("missing"));
+    }
+
+    @Test
+    void shouldIgnoreQuantityPatchesFromOlderVersions() {
+        // Act
+        boolean applied = snapshot.patchQuantity("S10", 99, 3);
+        snapshot.patchQuantity("S10", 1, 2);
+
+        // Assert
+        int row = snapshot.rowOf("S10");
+        assertTrue(applied);
+        assertEquals(99, snapshot.quantity(row));
+        assertEquals(3, snapshot.version(row));
+        assertFalse(snapshot.patchQuantity("missing", 1, 5));
+    }
+}
@@ -0,0 +1,152 @@
+package com.inn.SweetShop.Cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Wrapper.BulkItemResultWrapper;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.utils.SweetUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyStoreTest {
+
+    private IdempotencyStore store;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setupStore() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(store, "maxEntries", 3);
+        ReflectionTestUtils.setField(store, "inFlightWaitMs", 5_000L);
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper());
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void shouldReplayFirstResponseWithoutRunningWriteAgain() {
+        // Act
+        ResponseEntity<String> first = store.execute("key-1", "alice", "purchase:S000001:2", this::purchase);
+        ResponseEntity<String> retry = store.execute("key-1", "alice", "purchase:S000001:2", this::purchase);
+
+        // Assert
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void shouldCollapseConcurrentDuplicatesOntoOneExecution() throws Exception {
+        // Arrange
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> original = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", "alice", "purchase:S000001:2", () -> {
+                    writeStarted.countDown();
+                    await(releaseWrite);
+                    return purchase();
+                }));
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<ResponseEntity<String>> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("key-1", "alice", "purchase:S000001:2", this::purchase));
+        Thread.sleep(50);
+        releaseWrite.countDown();
+
+        // Assert
+        assertEquals(HttpStatus.OK, duplicate.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(original.get(5, TimeUnit.SECONDS).getBody(), duplicate.get().getBody());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // Act
+        store.execute("key-1", "alice", "purchase:S000001:2", this::purchase);
+        ResponseEntity<String> reused = store.execute("key-1", "alice", "purchase:S000001:5", this::purchase);
+        ResponseEntity<String> otherUser = store.execute("key-1", "bob", "purchase:S000001:5", this::purchase);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+        assertEquals(HttpStatus.OK, otherUser.getStatusCode());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void shouldRunAgainAfterConflictAndStayBounded() {
+        // Act
+        store.execute("key-1", "alice", "purchase:S000001:2", () ->
+                SweetUtils.getResponseEntity(SweetConstants.CONCURRENT_MODIFICATION, HttpStatus.CONFLICT));
+        ResponseEntity<String> retry = store.execute("key-1", "alice", "purchase:S000001:2", this::purchase);
+        for (int i = 2; i <= 6; i++) {
+            store.execute("key-" + i, "alice", "purchase:S000001:2", this::purchase);
+        }
+
+        // Assert
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+        assertNull(retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void shouldReplayBulkResultForSameBodyAndRejectDifferentBody() {
+        // Arrange
+        BulkRequest scale = new BulkRequest(List.of(new BulkRequest.Operation(BulkRequest.Type.SCALE_PRICE, "S000001",
+                null, new BigDecimal("1.1"), null)), null, null, true);
+        BulkRequest scaleMore = new BulkRequest(List.of(new BulkRequest.Operation(BulkRequest.Type.SCALE_PRICE, "S000001",
+                null, new BigDecimal("1.2"), null)), null, null, true);
+
+        // Act
+        ResponseEntity<?> first = store.executeJson("key-1", "admin", store.bodyFingerprint("bulk", scale),
+                BulkResultWrapper.class, this::bulk);
+        ResponseEntity<?> retry = store.executeJson("key-1", "admin", store.bodyFingerprint("bulk", scale),
+                BulkResultWrapper.class, this::bulk);
+        ResponseEntity<?> reused = store.executeJson("key-1", "admin", store.bodyFingerprint("bulk", scaleMore),
+                BulkResultWrapper.class, this::bulk);
+
+        // Assert - the retry is the stored result, not a second scaling
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+    }
+
+    private ResponseEntity<BulkResultWrapper> bulk() {
+        BulkItemResultWrapper item = new BulkItemResultWrapper("S000001", "SCALE_PRICE");
+        item.setStatus("OK");
+        item.setPrice(new BigDecimal("55.00"));
+        item.setVersion((long) executions.incrementAndGet());
+        BulkResultWrapper result = new BulkResultWrapper(List.of(item));
+        result.setSucceeded(1);
+        result.setRowsUpdated(1);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    private ResponseEntity<String> purchase() {
+        return SweetUtils.getResponseEntity("Sweet purchased successfully. Remaining quantity: "
+                + (20 - executions.incrementAndGet() * 2), HttpStatus.OK);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.inn.SweetShop.Dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Taking units from sharded stock with mocked JDBC - the single-shard fast path and the lock-all fallback
+ */
+public class StockShardDaoTest {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private StockShardDao stockShardDao;
+
+    @BeforeEach
+    void setupDao() {
+        stockShardDao = new StockShardDao();
+        ReflectionTestUtils.setField(stockShardDao, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(stockShardDao, "transactionTemplate", transactionTemplate);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void shouldTakeFromOneShardWithoutLockingTheOthers() {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenReturn(1);
+
+        // Act
+        boolean taken = stockShardDao.take("S000001", 2, 4);
+
+        // Assert
+        assertTrue(taken);
+        verifyNoInteractions(transactionTemplate);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    void shouldFallBackToTakingAcrossAllShardsWhenNoSingleShardHasEnough() {
+        // Arrange - 2 + 0 + 3 units, no one shard covers 4
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenReturn(0);
+        lockedShards(new int[]{0, 2}, new int[]{1, 0}, new int[]{2, 3});
+
+        // Act
+        boolean taken = stockShardDao.take("S000001", 4, 3);
+
+        // Assert - 2 from shard 0 and the other 2 from shard 2, the empty shard is left alone
+        assertTrue(taken);
+        ArgumentCaptor<SqlParameterSource[]> updates = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertEquals(List.of("0:2", "2:2"), Arrays.stream(updates.getValue())
+                .map(update -> update.getValue("shard") + ":" + update.getValue("taken"))
+                .toList());
+    }
+
+    @Test
+    void shouldTakeNothingWhenShardsTogetherHoldTooFewUnits() {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(SqlParameterSource.class))).thenReturn(0);
+        lockedShards(new int[]{0, 2}, new int[]{1, 1});
+
+        // Act
+        boolean taken = stockShardDao.take("S000001", 4, 2);
+
+        // Assert - no shard is decremented, so the stock can never be oversold
+        assertFalse(taken);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void lockedShards(int[]... rows) {
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(rows));
+    }
+}
@@ -0,0 +1,113 @@
+package com.inn.SweetShop.Events;
+
+import com.inn.SweetShop.Cache.CatalogVersion;
+import com.inn.SweetShop.Cache.CategoryDictionary;
+import com.inn.SweetShop.Cache.LowStockIndex;
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.SweetShopManagementSystemApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts in one JVM, sharing one H2 database and the in-JVM bus, standing in for two nodes
+ */
+public class InvalidationBusTest {
+
+    private static final long DELIVERY_TIMEOUT_MS = 2000;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void shouldEvictOnOtherNodeAfterWriteOnOneNode() throws InterruptedException {
+        // Arrange
+        CatalogVersion versionsA = nodeA.getBean(CatalogVersion.class);
+        CatalogVersion versionsB = nodeB.getBean(CatalogVersion.class);
+        LowStockIndex lowStockB = nodeB.getBean(LowStockIndex.class);
+        long catalogA = versionsA.current();
+        long catalogB = versionsB.current();
+
+        // Act - node A adds a low-stock sweet, then restocks it, publishing after each commit as SweetServiceImpl does
+        Sweet added = write(new Sweet("S900001", "Kaju Roll", "Nut-Based", new BigDecimal("40.00"), 2, "Cashew roll"),
+                SweetChangedEvent.ChangeType.ADDED);
+
+        // Assert - node B moved its catalog tag, knows the new version and re-read the row for its low-stock list
+        assertTrue(waitFor(() -> lowStockB.lowStock().stream().anyMatch(s -> s.getId().equals("S900001"))));
+        assertEquals(added.getVersion(), versionsB.knownVersion("S900001"));
+        assertTrue(versionsB.current() > catalogB);
+
+        added.setQuantity(50);
+        Sweet restocked = write(added, SweetChangedEvent.ChangeType.RESTOCKED);
+
+        assertTrue(waitFor(() -> lowStockB.lowStock().stream().noneMatch(s -> s.getId().equals("S900001"))));
+        assertEquals(restocked.getVersion(), versionsB.knownVersion("S900001"));
+        // Node A saw its own two writes once each, its notices were not echoed back to it
+        assertEquals(catalogA + 2, versionsA.current());
+    }
+
+    @Test
+    void shouldMatchCategoryCreatedOnOtherNode() throws InterruptedException {
+        // Arrange - node B already matches "based", so its miss reload cannot be what finds the new category
+        CategoryDictionary categoriesA = nodeA.getBean(CategoryDictionary.class);
+        CategoryDictionary categoriesB = nodeB.getBean(CategoryDictionary.class);
+        categoriesB.idFor("Nut-Based");
+        assertFalse(categoriesB.idsMatching("based").isEmpty());
+
+        // Act
+        int roseBased = categoriesA.idFor("Rose-Based");
+
+        // Assert
+        assertTrue(waitFor(() -> categoriesB.idsMatching("based").contains(roseBased)));
+        assertEquals("Rose-Based", categoriesB.nameFor(roseBased));
+    }
+
+    private static Sweet write(Sweet sweet, SweetChangedEvent.ChangeType type) {
+        Sweet saved = nodeA.getBean(SweetDao.class).save(sweet);
+        nodeA.publishEvent(new SweetChangedEvent(type, saved.getId(), saved, 0, "admin@sweetshop.test"));
+        return saved;
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + DELIVERY_TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        // Arguments, not builder properties - those are defaults and application.properties would win
+        return new SpringApplicationBuilder(SweetShopManagementSystemApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:invalidation-bus;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jmx.enabled=false",
+                        "--sweetshop.invalidation.bus=local",
+                        "--sweetshop.invalidation.channel=invalidation_bus_test");
+    }
+}
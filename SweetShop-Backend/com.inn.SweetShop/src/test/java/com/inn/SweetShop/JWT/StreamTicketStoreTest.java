@@ -0,0 +1,59 @@
+package com.inn.SweetShop.JWT;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamTicketStoreTest {
+
+    @Test
+    void shouldRedeemTicketOnlyOnce() {
+        // Arrange
+        StreamTicketStore store = new StreamTicketStore(30_000, 10);
+        String ticket = store.issue("jwt-alice");
+
+        // Act
+        String first = store.redeem(ticket);
+        String replayed = store.redeem(ticket);
+
+        // Assert
+        assertEquals("jwt-alice", first);
+        assertNull(replayed);
+        assertNotEquals("jwt-alice", ticket);
+    }
+
+    @Test
+    void shouldRejectExpiredAndUnknownTickets() {
+        // Arrange
+        StreamTicketStore store = new StreamTicketStore(0, 10);
+        String ticket = store.issue("jwt-alice");
+
+        // Act & Assert
+        assertNull(store.redeem(ticket));
+        assertNull(store.redeem("not-a-ticket"));
+        assertNull(store.redeem(null));
+    }
+
+    @Test
+    void shouldRefuseTicketsBeyondTheLimitUntilExpiredOnesAreDropped() {
+        // Arrange
+        StreamTicketStore store = new StreamTicketStore(30_000, 2);
+        store.issue("jwt-alice");
+        store.issue("jwt-bob");
+
+        // Act
+        String refused = store.issue("jwt-carol");
+
+        // Assert
+        assertNull(refused);
+        assertEquals(2, store.size());
+
+        // Arrange - tickets that expire immediately make room on the next issue
+        StreamTicketStore expiring = new StreamTicketStore(0, 1);
+        expiring.issue("jwt-alice");
+
+        // Act & Assert
+        assertNotNull(expiring.issue("jwt-bob"));
+        assertEquals(1, expiring.size());
+    }
+}
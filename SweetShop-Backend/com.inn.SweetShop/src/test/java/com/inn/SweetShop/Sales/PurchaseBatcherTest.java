@@ -0,0 +1,100 @@
+package com.inn.SweetShop.Sales;
+
+import com.inn.SweetShop.Dao.SweetDao;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fallback paths of the purchase batcher, without a committer thread or a database
+ */
+public class PurchaseBatcherTest {
+
+    private final SweetDao sweetDao = mock(SweetDao.class);
+
+    @Test
+    void shouldFallBackWhenPurchaseIsNotTakenInTime() throws Exception {
+        // Arrange - running, but no committer ever takes from the queue
+        PurchaseBatcher batcher = batcher(50);
+        ReflectionTestUtils.setField(batcher, "running", true);
+
+        // Act
+        PurchaseBatcher.Outcome outcome = batcher.purchase("S000001", 1);
+
+        // Assert - withdrawn from the queue, so no later batch can sell it as well
+        assertNull(outcome);
+        assertTrue(((Queue<?>) ReflectionTestUtils.getField(batcher, "queue")).isEmpty());
+        verifyNoInteractions(sweetDao);
+    }
+
+    @Test
+    void shouldReturnQueuedPurchasesToTheirCallersOnShutdown() throws Exception {
+        // Arrange - a caller waiting longer than the test
+        PurchaseBatcher batcher = batcher(60_000);
+        ReflectionTestUtils.setField(batcher, "running", true);
+        ReflectionTestUtils.setField(batcher, "committer", new Thread(() -> { }));
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<PurchaseBatcher.Outcome> waiting = caller.submit(() -> batcher.purchase("S000001", 1));
+            Queue<?> queue = (Queue<?>) ReflectionTestUtils.getField(batcher, "queue");
+            while (queue.isEmpty()) {
+                Thread.sleep(5);
+            }
+
+            // Act
+            batcher.shutdown();
+
+            // Assert - released straight away, the caller purchases the usual way
+            assertNull(waiting.get(2, TimeUnit.SECONDS));
+            assertFalse(batcher.isEnabled());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWaitForTheBatchThatClaimedThePurchase() throws Exception {
+        // Arrange - a batch claims the purchase, then its transaction outlasts both of the caller's waits
+        PurchaseBatcher batcher = batcher(20);
+        ReflectionTestUtils.setField(batcher, "running", true);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<PurchaseBatcher.Outcome> waiting = caller.submit(() -> batcher.purchase("S000001", 1));
+            Queue<?> queue = (Queue<?>) ReflectionTestUtils.getField(batcher, "queue");
+            Object pending;
+            while ((pending = queue.poll()) == null) {
+                Thread.sleep(5);
+            }
+            ((AtomicBoolean) ReflectionTestUtils.invokeMethod(pending, "claimed")).set(true);
+            Thread.sleep(200);
+
+            // Act - the batch commits
+            PurchaseBatcher.Outcome committed = new PurchaseBatcher.Outcome(PurchaseBatcher.Status.PURCHASED, null, 4);
+            ((CompletableFuture<PurchaseBatcher.Outcome>) ReflectionTestUtils.invokeMethod(pending, "outcome"))
+                    .complete(committed);
+
+            // Assert - the caller answers with the committed sale instead of failing or falling back
+            assertSame(committed, waiting.get(2, TimeUnit.SECONDS));
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    private PurchaseBatcher batcher(long waitMs) {
+        return new PurchaseBatcher(sweetDao, mock(JdbcTemplate.class), mock(TransactionTemplate.class),
+                true, 2, 256, waitMs, 100);
+    }
+}
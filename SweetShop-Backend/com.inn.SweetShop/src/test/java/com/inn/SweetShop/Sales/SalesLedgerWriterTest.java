@@ -0,0 +1,79 @@
+package com.inn.SweetShop.Sales;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Spilling and replaying sales while the ledger cannot be written, with mocked JDBC
+ */
+public class SalesLedgerWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final SalesPartitionMaintainer partitionMaintainer = mock(SalesPartitionMaintainer.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSpillSalesWhileDatabaseIsDownThenReplayThem() throws Exception {
+        // Arrange - every write fails, the queue holds one sale and the writer one more
+        Path spillFile = dir.resolve("sales-spill.jsonl");
+        when(partitionMaintainer.isLedgerAvailable()).thenReturn(true);
+        doThrow(new TransientDataAccessResourceException("database down"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        SalesLedgerWriter down = writer(spillFile);
+
+        // Act - the third sale cannot be queued, stopping spills the ones still being retried
+        for (int i = 1; i <= 3; i++) {
+            down.record(sale("S00000" + i));
+        }
+        down.shutdown();
+
+        // Assert - nothing dropped, nothing written on the calling thread
+        assertEquals(3, Files.readAllLines(spillFile).size());
+        verifyNoInteractions(jdbcTemplate);
+
+        // Arrange - the database is back
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        SalesLedgerWriter up = writer(spillFile);
+
+        // Act
+        up.replaySpilled();
+        up.shutdown();
+
+        // Assert - one batch of all three, and the spill file is gone
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<Object> batch) -> batch.size() == 3),
+                eq(3), any());
+        assertFalse(Files.exists(spillFile));
+        assertFalse(Files.exists(dir.resolve("sales-spill.jsonl.replaying")));
+    }
+
+    private SalesLedgerWriter writer(Path spillFile) {
+        return new SalesLedgerWriter(jdbcTemplate, transactionTemplate, partitionMaintainer,
+                "async", 1, 3, 0, 2000, 20, 20, spillFile.toString());
+    }
+
+    private static SaleRecord sale(String sweetId) {
+        return new SaleRecord(sweetId, "Kaju Katli", "Nut-Based", 2, new BigDecimal("12.50"), null, Instant.now());
+    }
+}
@@ -0,0 +1,251 @@
+package com.inn.SweetShop.Service;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Dao.StockReservationDao;
+import com.inn.SweetShop.Dao.SweetDao;
+import com.inn.SweetShop.Dao.SweetDaoCustom;
+import com.inn.SweetShop.Events.SweetChangedEvent;
+import com.inn.SweetShop.JWT.JwtFilter;
+import com.inn.SweetShop.POJO.StockReservation;
+import com.inn.SweetShop.POJO.Sweet;
+import com.inn.SweetShop.ServiceImpl.ReservationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@RecordApplicationEvents
+public class ReservationServiceImplTest {
+
+    //                          ---------------SETUP AND CONFIGURATION-------------
+
+    @Autowired
+    private ReservationServiceImpl reservationService;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockBean
+    private SweetDao sweetDao;
+
+    @MockBean
+    private StockReservationDao stockReservationDao;
+
+    @MockBean
+    private JwtFilter jwtFilter;
+
+    private Sweet kajuKatli;
+
+    @BeforeEach
+    void setupDefaultSweet() {
+        kajuKatli = new Sweet("S000001", "Kaju Katli", "Nut-Based", new BigDecimal("50.00"), 20, "Delicious cashew sweet");
+        kajuKatli.setVersion(4L);
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(jwtFilter.getCurrentUser()).thenReturn("alice@example.com");
+    }
+
+    //                          ---------------RESERVE-------------
+
+    @Test
+    void shouldHoldStockAndReturnReservation() {
+        // Arrange
+        kajuKatli.setHeld(2);
+        when(sweetDao.reserveStock(anyString(), eq("S000001"), eq(2), eq("alice@example.com"), any(Instant.class)))
+                .thenReturn(kajuKatli);
+
+        // Act
+        ResponseEntity<String> response = reservationService.reserve("S000001", 2, 60L);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(response.getBody().contains("\"status\":\"" + StockReservation.HELD + "\""));
+        assertTrue(response.getBody().contains("\"version\":4"));
+        assertEquals(1, changes(SweetChangedEvent.ChangeType.RESERVED).size());
+    }
+
+    @Test
+    void shouldReportAvailableQuantityWhenStockCannotBeHeld() {
+        // Arrange
+        kajuKatli.setHeld(19);
+        when(sweetDao.reserveStock(anyString(), eq("S000001"), eq(5), anyString(), any(Instant.class))).thenReturn(null);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = reservationService.reserve("S000001", 5, null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("Available quantity: 1"));
+        assertTrue(changes(SweetChangedEvent.ChangeType.RESERVED).isEmpty());
+    }
+
+    @Test
+    void shouldRefuseToReserveShardedSweet() {
+        // Arrange - holds count against sweets.quantity, which only mirrors a sharded sweet's stock
+        kajuKatli.setStockShards(4);
+        when(sweetDao.reserveStock(anyString(), eq("S000001"), eq(2), anyString(), any(Instant.class))).thenReturn(null);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = reservationService.reserve("S000001", 2, null);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_UNAVAILABLE_SHARDED));
+        assertTrue(changes(SweetChangedEvent.ChangeType.RESERVED).isEmpty());
+    }
+
+    @Test
+    void shouldRejectTtlAboveConfiguredMaximum() {
+        // Act
+        ResponseEntity<String> response = reservationService.reserve("S000001", 1, 7 * 24 * 3600L);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.INVALID_RESERVATION_TTL));
+        verify(sweetDao, never()).reserveStock(anyString(), anyString(), anyInt(), anyString(), any(Instant.class));
+    }
+
+    //                          ---------------CONFIRM-------------
+
+    @Test
+    void shouldConfirmHeldReservationAsPurchase() {
+        // Arrange
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(reservation("R1", StockReservation.HELD)));
+        when(sweetDao.confirmReservation("R1")).thenReturn(kajuKatli);
+
+        // Act
+        ResponseEntity<String> response = reservationService.confirm("R1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_CONFIRMED));
+        List<SweetChangedEvent> purchases = changes(SweetChangedEvent.ChangeType.PURCHASED);
+        assertEquals(1, purchases.size());
+        assertEquals(3, purchases.get(0).getQuantity());
+        assertEquals("alice@example.com", purchases.get(0).getActor());
+    }
+
+    @Test
+    void shouldReturnConflictWhenConfirmingExpiredReservation() {
+        // Arrange
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(reservation("R1", StockReservation.EXPIRED)));
+
+        // Act
+        ResponseEntity<String> response = reservationService.confirm("R1");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_NOT_HELD));
+        verify(sweetDao, never()).confirmReservation(anyString());
+    }
+
+    @Test
+    void shouldReturnConflictWhenHoldLapsesBeforeConfirmIsApplied() {
+        // Arrange - still HELD when read, but past its expiry so the confirm statement matches nothing
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(reservation("R1", StockReservation.HELD)));
+        when(sweetDao.confirmReservation("R1")).thenReturn(null);
+
+        // Act
+        ResponseEntity<String> response = reservationService.confirm("R1");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_NOT_HELD));
+        assertTrue(changes(SweetChangedEvent.ChangeType.PURCHASED).isEmpty());
+    }
+
+    @Test
+    void shouldHideOtherUsersReservationWhenConfirming() {
+        // Arrange
+        StockReservation bobs = reservation("R1", StockReservation.HELD);
+        bobs.setHolder("bob@example.com");
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(bobs));
+
+        // Act
+        ResponseEntity<String> response = reservationService.confirm("R1");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_NOT_FOUND));
+        verify(sweetDao, never()).confirmReservation(anyString());
+    }
+
+    //                          ---------------RELEASE-------------
+
+    @Test
+    void shouldReleaseHeldReservation() {
+        // Arrange
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(reservation("R1", StockReservation.HELD)));
+        when(sweetDao.releaseReservation("R1", StockReservation.RELEASED)).thenReturn(kajuKatli);
+
+        // Act
+        ResponseEntity<String> response = reservationService.release("R1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.RESERVATION_RELEASED));
+        assertEquals(1, changes(SweetChangedEvent.ChangeType.RELEASED).size());
+    }
+
+    @Test
+    void shouldReturnConflictWhenReleasingConfirmedReservation() {
+        // Arrange
+        when(stockReservationDao.findById("R1")).thenReturn(Optional.of(reservation("R1", StockReservation.CONFIRMED)));
+
+        // Act
+        ResponseEntity<String> response = reservationService.release("R1");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(sweetDao, never()).releaseReservation(anyString(), anyString());
+    }
+
+    //                          ---------------EXPIRE-------------
+
+    @Test
+    void shouldExpireOverdueReservationsFoundBySweep() {
+        // Arrange
+        when(stockReservationDao.findOverdueIds(any(Instant.class), any(Pageable.class))).thenReturn(List.of("R1", "R2"));
+        when(sweetDao.expireReservations(List.of("R1", "R2")))
+                .thenReturn(List.of(new SweetDaoCustom.ReleasedStock(kajuKatli, 3)));
+
+        // Act
+        reservationService.sweepOverdue();
+
+        // Assert - R2 was confirmed or released meanwhile, the SQL skipped it and only R1 gave units back
+        verify(sweetDao).expireReservations(List.of("R1", "R2"));
+        List<SweetChangedEvent> released = changes(SweetChangedEvent.ChangeType.RELEASED);
+        assertEquals(1, released.size());
+        assertEquals(3, released.get(0).getQuantity());
+        assertNull(released.get(0).getActor());
+    }
+
+    private StockReservation reservation(String id, String status) {
+        return new StockReservation(id, "S000001", 3, "alice@example.com", status,
+                Instant.now().plusSeconds(60), Instant.now());
+    }
+
+    private List<SweetChangedEvent> changes(SweetChangedEvent.ChangeType type) {
+        return events.stream(SweetChangedEvent.class).filter(event -> event.getType() == type).toList();
+    }
+}
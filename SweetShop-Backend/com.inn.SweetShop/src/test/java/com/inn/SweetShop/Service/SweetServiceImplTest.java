@@ -1,10 +1,20 @@
 package com.inn.SweetShop.Service;
 
 import com.inn.SweetShop.Constants.SweetConstants;
+import com.inn.SweetShop.Dao.StockShardDao;
 import com.inn.SweetShop.Dao.SweetDao;
 import com.inn.SweetShop.JWT.JwtFilter;
 import com.inn.SweetShop.POJO.Sweet;
 import com.inn.SweetShop.ServiceImpl.SweetServiceImpl;
+import com.inn.SweetShop.Wrapper.BulkItemResultWrapper;
+import com.inn.SweetShop.Wrapper.BulkRequest;
+import com.inn.SweetShop.Wrapper.BulkResultWrapper;
+import com.inn.SweetShop.Wrapper.FacetCountWrapper;
+import com.inn.SweetShop.Wrapper.FacetedSearchWrapper;
+import com.inn.SweetShop.Wrapper.LowStockWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangeWrapper;
+import com.inn.SweetShop.Wrapper.SweetChangesWrapper;
+import com.inn.SweetShop.Wrapper.SweetRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,12 +22,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -34,6 +47,9 @@ public class SweetServiceImplTest {
     @MockBean
     private JwtFilter jwtFilter;
 
+    @MockBean
+    private StockShardDao stockShardDao;
+
     private Sweet kajuKatli;
     private Sweet gajarHalwa;
     private Sweet gulabJamun;
@@ -57,15 +73,10 @@ public class SweetServiceImplTest {
         when(sweetDao.getLastSweetId()).thenReturn("S000003");
         when(sweetDao.save(any(Sweet.class))).thenReturn(rabdi);
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Rabdi");
-        requestMap.put("category", "Milk-Based");
-        requestMap.put("price", "40.00");
-        requestMap.put("quantity", "10");
-        requestMap.put("description", "Thick sweetened milk");
+        SweetRequest request = new SweetRequest("Rabdi", "Milk-Based", new BigDecimal("40.00"), 10, "Thick sweetened milk", null, null);
 
         // Act
-        ResponseEntity<String> response = sweetService.addSweet(requestMap);
+        ResponseEntity<String> response = sweetService.addSweet(request);
 
         // Assert
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -78,14 +89,10 @@ public class SweetServiceImplTest {
         // Arrange
         when(jwtFilter.isUser()).thenReturn(false);
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Rabdi");
-        requestMap.put("category", "Milk-Based");
-        requestMap.put("price", "40.00");
-        requestMap.put("quantity", "10");
+        SweetRequest request = new SweetRequest("Rabdi", "Milk-Based", new BigDecimal("40.00"), 10);
 
         // Act
-        ResponseEntity<String> response = sweetService.addSweet(requestMap);
+        ResponseEntity<String> response = sweetService.addSweet(request);
 
         // Assert
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
@@ -100,14 +107,10 @@ public class SweetServiceImplTest {
         when(sweetDao.save(any(Sweet.class)))
                 .thenThrow(new org.springframework.dao.DataIntegrityViolationException("Duplicate entry"));
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Kaju Katli");
-        requestMap.put("category", "Nut-Based");
-        requestMap.put("price", "50.00");
-        requestMap.put("quantity", "20");
+        SweetRequest request = new SweetRequest("Kaju Katli", "Nut-Based", new BigDecimal("50.00"), 20);
 
         // Act
-        ResponseEntity<String> response = sweetService.addSweet(requestMap);
+        ResponseEntity<String> response = sweetService.addSweet(request);
 
         // Assert
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -119,12 +122,11 @@ public class SweetServiceImplTest {
         // Arrange
         when(jwtFilter.isUser()).thenReturn(true);
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Incomplete Sweet");
+        SweetRequest request = new SweetRequest("Incomplete Sweet", null, null, null);
         // Missing required fields: category, price, quantity
 
         // Act
-        ResponseEntity<String> response = sweetService.addSweet(requestMap);
+        ResponseEntity<String> response = sweetService.addSweet(request);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -166,6 +168,37 @@ public class SweetServiceImplTest {
         verify(sweetDao, never()).findAll();
     }
 
+    @Test
+    void shouldReturnSweetById() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<Sweet> response = sweetService.getSweetById("S000001");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Kaju Katli", response.getBody().getName());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedForStaleIfMatch() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        kajuKatli.setVersion(7L);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        SweetRequest request = new SweetRequest("Kaju Katli", "Nut-Based", new BigDecimal("55.00"), 20);
+
+        // Act
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request, 6L);
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
     //                      --------------SEARCH SWEETS--------------
 
     @Test
@@ -203,6 +236,27 @@ public class SweetServiceImplTest {
         assertEquals(2, response.getBody().size());
     }
 
+    @Test
+    void shouldReturnFacetCountsWithSearchResults() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        List<FacetCountWrapper> categories = List.of(new FacetCountWrapper("3", "Milk-Based", 2));
+        List<FacetCountWrapper> priceBuckets = List.of(new FacetCountWrapper("0-10", "0-10", 0),
+                new FacetCountWrapper("10-25", "10-25", 1), new FacetCountWrapper("25-50", "25-50", 1));
+        when(sweetDao.countFacets(isNull(), eq("Milk"), isNull(), isNull(), anyList()))
+                .thenReturn(new FacetedSearchWrapper(null, categories, priceBuckets));
+        when(sweetDao.searchSweets(null, "Milk", null, null)).thenReturn(Arrays.asList(gulabJamun, rabdi));
+
+        // Act
+        ResponseEntity<FacetedSearchWrapper> response = sweetService.searchSweetsFaceted(null, "Milk", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getSweets().size());
+        assertEquals(2, response.getBody().getCategories().get(0).getCount());
+        assertEquals(3, response.getBody().getPriceBuckets().size());
+    }
+
     @Test
     void shouldReturnUnauthorizedForSearchWithoutAuthentication() {
         // Arrange
@@ -226,14 +280,10 @@ public class SweetServiceImplTest {
         when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
         when(sweetDao.save(any(Sweet.class))).thenReturn(kajuKatli);
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Kaju Katli Premium");
-        requestMap.put("category", "Nut-Based");
-        requestMap.put("price", "60.00");
-        requestMap.put("quantity", "25");
+        SweetRequest request = new SweetRequest("Kaju Katli Premium", "Nut-Based", new BigDecimal("60.00"), 25);
 
         // Act
-        ResponseEntity<String> response = sweetService.updateSweet("S000001", requestMap);
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -247,14 +297,10 @@ public class SweetServiceImplTest {
         when(jwtFilter.isUser()).thenReturn(true);
         when(sweetDao.findById("S999999")).thenReturn(Optional.empty());
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Non-existent Sweet");
-        requestMap.put("category", "Unknown");
-        requestMap.put("price", "100.00");
-        requestMap.put("quantity", "10");
+        SweetRequest request = new SweetRequest("Non-existent Sweet", "Unknown", new BigDecimal("100.00"), 10);
 
         // Act
-        ResponseEntity<String> response = sweetService.updateSweet("S999999", requestMap);
+        ResponseEntity<String> response = sweetService.updateSweet("S999999", request);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -267,14 +313,10 @@ public class SweetServiceImplTest {
         // Arrange
         when(jwtFilter.isUser()).thenReturn(false);
 
-        Map<String, String> requestMap = new HashMap<>();
-        requestMap.put("name", "Updated Sweet");
-        requestMap.put("category", "Category");
-        requestMap.put("price", "50.00");
-        requestMap.put("quantity", "10");
+        SweetRequest request = new SweetRequest("Updated Sweet", "Category", new BigDecimal("50.00"), 10);
 
         // Act
-        ResponseEntity<String> response = sweetService.updateSweet("S000001", requestMap);
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request);
 
         // Assert
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
@@ -288,7 +330,7 @@ public class SweetServiceImplTest {
     void shouldDeleteSweetSuccessfullyFromShop() {
         // Arrange
         when(jwtFilter.isAdmin()).thenReturn(true);
-        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+        when(sweetDao.findByIdForUpdate("S000001")).thenReturn(Optional.of(kajuKatli));
         doNothing().when(sweetDao).deleteById("S000001");
 
         // Act
@@ -304,7 +346,7 @@ public class SweetServiceImplTest {
     void shouldThrowExceptionWhenDeletingNonExistingSweet() {
         // Arrange
         when(jwtFilter.isAdmin()).thenReturn(true);
-        when(sweetDao.findById("S999999")).thenReturn(Optional.empty());
+        when(sweetDao.findByIdForUpdate("S999999")).thenReturn(Optional.empty());
 
         // Act
         ResponseEntity<String> response = sweetService.deleteSweet("S999999");
@@ -315,6 +357,22 @@ public class SweetServiceImplTest {
         verify(sweetDao, never()).deleteById(any());
     }
 
+    @Test
+    void shouldRefuseToDeleteSweetWithHeldStock() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        kajuKatli.setHeld(3);
+        when(sweetDao.findByIdForUpdate("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = sweetService.deleteSweet("S000001");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.SWEET_HAS_HELD_STOCK));
+        verify(sweetDao, never()).deleteById(any());
+    }
+
     @Test
     void shouldReturnForbiddenWhenNonAdminTriesToDelete() {
         // Arrange
@@ -397,6 +455,149 @@ public class SweetServiceImplTest {
         verify(sweetDao, never()).findById(any());
     }
 
+    @Test
+    void shouldRetryPurchaseWhenConcurrentUpdateWins() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(sweetDao.findById("S000001"))
+                .thenReturn(Optional.of(kajuKatli))
+                .thenReturn(Optional.of(new Sweet("S000001", "Kaju Katli", "Nut-Based",
+                        new BigDecimal("50.00"), 18, "Delicious cashew sweet")));
+        when(sweetDao.save(any(Sweet.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, "S000001"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        ResponseEntity<String> response = sweetService.purchaseSweet("S000001", 5);
+
+        // Assert - second attempt re-reads the sweet and applies the purchase on top of the concurrent change
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("Remaining quantity: 13"));
+        verify(sweetDao, times(2)).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleVersion() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        kajuKatli.setVersion(4L);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        SweetRequest request = new SweetRequest("Kaju Katli Premium", "Nut-Based", new BigDecimal("60.00"), 25, null, null, 3L);
+
+        // Act
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedFieldsWithoutReadingSweet() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        Sweet patched = new Sweet("S000001", "Kaju Katli", "Nut-Based", new BigDecimal("55.00"), 20, "Diamond-shaped cashew fudge");
+        patched.setVersion(5L);
+        when(sweetDao.patchSweet(eq("S000001"), eq(Map.<String, Object>of("price", new BigDecimal("55.00"))), eq(4L)))
+                .thenReturn(patched);
+
+        // Act
+        ResponseEntity<String> response = sweetService.patchSweet("S000001", Map.of("price", "55.00"), 4L);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"S000001-5\"", response.getHeaders().getETag());
+        verify(sweetDao, never()).findById(any());
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldRejectPatchedQuantityBelowHeldUnits() {
+        // Arrange - the UPDATE matched no row, the sweet exists at the expected version with 8 units held
+        when(jwtFilter.isUser()).thenReturn(true);
+        kajuKatli.setVersion(4L);
+        kajuKatli.setHeld(8);
+        when(sweetDao.patchSweet(eq("S000001"), eq(Map.<String, Object>of("quantity", 5)), eq(4L))).thenReturn(null);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = sweetService.patchSweet("S000001", Map.of("quantity", "5"), 4L);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().contains(SweetConstants.QUANTITY_BELOW_HELD));
+    }
+
+    @Test
+    void shouldRejectUpdatedQuantityBelowHeldUnits() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        kajuKatli.setHeld(8);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        SweetRequest request = new SweetRequest("Kaju Katli", "Nut-Based", new BigDecimal("50.00"), 5);
+
+        // Act
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldRejectPatchOfUnknownField() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+
+        // Act
+        ResponseEntity<String> response = sweetService.patchSweet("S000001", Map.of("id", "S000002"), null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sweetDao, never()).patchSweet(any(), any(), any());
+    }
+
+    @Test
+    void shouldListSweetAsLowStockAfterPurchaseCrossesThreshold() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        Sweet jalebi = new Sweet("S000009", "Jalebi", "Syrup-Based", new BigDecimal("20.00"), 12, "Crispy spirals");
+        jalebi.setReorderThreshold(4);
+        when(sweetDao.findById("S000009")).thenReturn(Optional.of(jalebi));
+        when(sweetDao.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        sweetService.purchaseSweet("S000009", 9);
+        ResponseEntity<List<LowStockWrapper>> response = sweetService.getLowStockSweets();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().stream()
+                .anyMatch(entry -> entry.getId().equals("S000009") && entry.getQuantity() == 3 && entry.getThreshold() == 4));
+    }
+
+    @Test
+    void shouldPageDeltaSyncChangesInSequenceOrder() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(sweetDao.findChangesSince(40L, 3)).thenReturn(List.of(
+                new SweetChangeWrapper(41L, "S000001", false, kajuKatli),
+                new SweetChangeWrapper(42L, "S000007", true, null),
+                new SweetChangeWrapper(43L, "S000002", false, gajarHalwa)));
+
+        // Act
+        ResponseEntity<SweetChangesWrapper> response = sweetService.getChangesSince(40L, 2);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getChanges().size());
+        assertTrue(response.getBody().getChanges().get(1).isDeleted());
+        assertEquals(42L, response.getBody().getNextSince());
+        assertTrue(response.getBody().isHasMore());
+    }
+
     //                        -------------RESTOCK SWEET---------------
 
     @Test
@@ -448,6 +649,196 @@ public class SweetServiceImplTest {
         verify(sweetDao, never()).findById(any());
     }
 
+    //                        -------------SHARDED STOCK---------------
+
+    @Test
+    void shouldPurchaseShardedSweetFromShardsWithoutLockingSweetRow() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(stockShardDao.isAvailable()).thenReturn(true);
+        when(sweetDao.findStockShardsById("S000001")).thenReturn(4);
+        when(stockShardDao.take("S000001", 5, 4)).thenReturn(true);
+        when(stockShardDao.total("S000001")).thenReturn(15);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = sweetService.purchaseSweet("S000001", 5);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("Remaining quantity: 15"));
+        verify(sweetDao, never()).findByIdForUpdate(any());
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldRefuseShardedPurchaseBeyondTheShardTotal() {
+        // Arrange - the shards together hold 3 units, fewer than asked for
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(stockShardDao.isAvailable()).thenReturn(true);
+        when(sweetDao.findStockShardsById("S000001")).thenReturn(4);
+        when(stockShardDao.take("S000001", 5, 4)).thenReturn(false);
+        when(stockShardDao.total("S000001")).thenReturn(3);
+
+        // Act
+        ResponseEntity<String> response = sweetService.purchaseSweet("S000001", 5);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("Available quantity: 3"));
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldRestockShardedSweetAndRebalanceShards() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(stockShardDao.isAvailable()).thenReturn(true);
+        when(sweetDao.findStockShardsById("S000001")).thenReturn(4);
+        when(stockShardDao.addAndRebalance("S000001", 10)).thenReturn(30);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+
+        // Act
+        ResponseEntity<String> response = sweetService.restockSweet("S000001", 10);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("New quantity: 30"));
+        verify(stockShardDao).addAndRebalance("S000001", 10);
+        verify(sweetDao, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldRebalanceShardsWhenQuantityOfShardedSweetIsEdited() {
+        // Arrange
+        when(jwtFilter.isUser()).thenReturn(true);
+        when(stockShardDao.isAvailable()).thenReturn(true);
+        kajuKatli.setStockShards(4);
+        when(sweetDao.findById("S000001")).thenReturn(Optional.of(kajuKatli));
+        when(sweetDao.save(any(Sweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SweetRequest request = new SweetRequest("Kaju Katli", "Nut-Based", new BigDecimal("50.00"), 40);
+
+        // Act
+        ResponseEntity<String> response = sweetService.updateSweet("S000001", request, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(stockShardDao).rebalance("S000001", 40);
+    }
+
+    //                        -------------BULK OPERATIONS---------------
+
+    @Test
+    void shouldApplyValidBulkOperationsAndReportFailedOnes() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(sweetDao.lockForPurchase(any())).thenReturn(List.of(kajuKatli, gajarHalwa));
+        Sweet repriced = new Sweet("S000001", "Kaju Katli", "Nut-Based", new BigDecimal("55.00"), 20, "Delicious cashew sweet");
+        when(sweetDao.setPrices(any())).thenReturn(List.of(repriced));
+        when(sweetDao.deleteSweets(any())).thenReturn(List.of("S000002"));
+        BulkRequest request = new BulkRequest(List.of(
+                new BulkRequest.Operation(BulkRequest.Type.SCALE_PRICE, "S000001", null, new BigDecimal("1.1"), null),
+                new BulkRequest.Operation(BulkRequest.Type.ADJUST_QUANTITY, "S000002", null, null, -16),
+                new BulkRequest.Operation(BulkRequest.Type.DELETE, "S000002", null, null, null),
+                new BulkRequest.Operation(BulkRequest.Type.SET_PRICE, "S999999", new BigDecimal("5.00"), null, null)),
+                null, null, false);
+
+        // Act
+        ResponseEntity<BulkResultWrapper> response = sweetService.bulkUpdate(request);
+
+        // Assert - stock below zero and the unknown id fail, the rest run as one statement each
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        BulkResultWrapper result = response.getBody();
+        assertEquals(List.of("OK", "INSUFFICIENT_STOCK", "OK", "NOT_FOUND"),
+                result.getResults().stream().map(BulkItemResultWrapper::getStatus).toList());
+        assertEquals(new BigDecimal("55.00"), result.getResults().get(0).getPrice());
+        assertEquals(2, result.getSucceeded());
+        assertEquals(1, result.getRowsUpdated());
+        assertEquals(1, result.getRowsDeleted());
+        verify(sweetDao).setPrices(Map.of("S000001", new BigDecimal("55.00")));
+        verify(sweetDao).adjustStock(Map.of());
+    }
+
+    @Test
+    void shouldRefuseBulkDeleteOfSweetWithHeldStock() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        gajarHalwa.setHeld(2);
+        when(sweetDao.lockForPurchase(any())).thenReturn(List.of(kajuKatli, gajarHalwa));
+        when(sweetDao.deleteSweets(any())).thenReturn(List.of("S000001"));
+        BulkRequest request = new BulkRequest(List.of(
+                new BulkRequest.Operation(BulkRequest.Type.DELETE, "S000001", null, null, null),
+                new BulkRequest.Operation(BulkRequest.Type.DELETE, "S000002", null, null, null)),
+                null, null, false);
+
+        // Act
+        ResponseEntity<BulkResultWrapper> response = sweetService.bulkUpdate(request);
+
+        // Assert - only the sweet without reservations is deleted
+        assertEquals(List.of("OK", "HELD"),
+                response.getBody().getResults().stream().map(BulkItemResultWrapper::getStatus).toList());
+        verify(sweetDao).deleteSweets(Set.of("S000001"));
+    }
+
+    @Test
+    void shouldRefuseBulkQuantityChangeOfShardedSweet() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        kajuKatli.setStockShards(4);
+        when(sweetDao.lockForPurchase(any())).thenReturn(List.of(kajuKatli, gajarHalwa));
+        BulkRequest request = new BulkRequest(List.of(
+                new BulkRequest.Operation(BulkRequest.Type.ADJUST_QUANTITY, "S000001", null, null, 5),
+                new BulkRequest.Operation(BulkRequest.Type.ADJUST_QUANTITY, "S000002", null, null, 5)),
+                null, null, false);
+
+        // Act
+        ResponseEntity<BulkResultWrapper> response = sweetService.bulkUpdate(request);
+
+        // Assert - sweets.quantity only mirrors the shards, so only the unsharded sweet is adjusted
+        assertEquals(List.of("SHARDED", "OK"),
+                response.getBody().getResults().stream().map(BulkItemResultWrapper::getStatus).toList());
+        assertEquals(SweetConstants.BULK_SHARDED_STOCK, response.getBody().getResults().get(0).getMessage());
+        verify(sweetDao).adjustStock(Map.of("S000002", 5));
+    }
+
+    @Test
+    void shouldApplyNothingWhenAtomicBulkRequestHasFailedItem() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(sweetDao.lockForPurchase(any())).thenReturn(List.of(kajuKatli));
+        BulkRequest request = new BulkRequest(List.of(
+                new BulkRequest.Operation(BulkRequest.Type.SET_PRICE, "S000001", new BigDecimal("45.00"), null, null),
+                new BulkRequest.Operation(BulkRequest.Type.SET_PRICE, "S000001", new BigDecimal("48.00"), null, null)),
+                null, null, true);
+
+        // Act
+        ResponseEntity<BulkResultWrapper> response = sweetService.bulkUpdate(request);
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertTrue(response.getBody().isRolledBack());
+        assertEquals(List.of("NOT_APPLIED", "DUPLICATE"),
+                response.getBody().getResults().stream().map(BulkItemResultWrapper::getStatus).toList());
+        verify(sweetDao, never()).setPrices(any());
+    }
+
+    @Test
+    void shouldRejectBulkRequestWithBothOperationsAndFilter() {
+        // Arrange
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        BulkRequest request = new BulkRequest(
+                List.of(new BulkRequest.Operation(BulkRequest.Type.DELETE, "S000001", null, null, null)),
+                new BulkRequest.Filter(null, "Milk", null, null),
+                new BulkRequest.Operation(BulkRequest.Type.SCALE_PRICE, null, null, new BigDecimal("1.1"), null), null);
+
+        // Act
+        ResponseEntity<BulkResultWrapper> response = sweetService.bulkUpdate(request);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sweetDao, never()).lockMatching(any(), any(), any(), any(), anyInt());
+    }
+
     //                        -------------EDGE CASES AND ERROR HANDLING---------------
 
     @Test
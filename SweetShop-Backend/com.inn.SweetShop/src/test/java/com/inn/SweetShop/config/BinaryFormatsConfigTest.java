@@ -0,0 +1,54 @@
+package com.inn.SweetShop.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inn.SweetShop.POJO.Sweet;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips the catalog through the CBOR and Smile mappers, sizes and timings are compared by bench/binary-formats-bench.sh
+ */
+public class BinaryFormatsConfigTest {
+
+    private static final TypeReference<List<Sweet>> SWEET_LIST = new TypeReference<>() {
+    };
+
+    private final BinaryFormatsConfig config = new BinaryFormatsConfig();
+    private final ObjectMapper cbor = config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+    private final ObjectMapper smile = config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper();
+
+    @Test
+    void shouldRoundTripPricesExactlyInBinaryFormats() throws Exception {
+        // Arrange
+        List<Sweet> sweets = catalog(50);
+
+        // Act
+        byte[] cborBytes = cbor.writeValueAsBytes(sweets);
+        byte[] smileBytes = smile.writeValueAsBytes(sweets);
+
+        // Assert - BigDecimal scale survives, so 12.50 does not come back as 12.5
+        assertEquals(sweets, cbor.readValue(cborBytes, SWEET_LIST));
+        assertEquals(sweets, smile.readValue(smileBytes, SWEET_LIST));
+    }
+
+    private static List<Sweet> catalog(int size) {
+        String[] categories = {"Milk-Based", "Nut-Based", "Vegetable-Based", "Syrup-Based"};
+        List<Sweet> sweets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Sweet sweet = new Sweet(String.format("S%06d", i), "Sweet " + i, categories[i % categories.length],
+                    BigDecimal.valueOf(500 + (i * 37L) % 20_000, 2), i % 90, "House special number " + i);
+            sweet.setReorderThreshold(i % 3 == 0 ? null : 10);
+            sweet.setChangeSeq((long) i);
+            sweet.setVersion((long) (i % 7));
+            sweets.add(sweet);
+        }
+        return sweets;
+    }
+}
@@ -0,0 +1,136 @@
+package com.inn.SweetShop.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing tests against two embedded H2 databases standing in for the primary and a replica
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+
+    @BeforeEach
+    void setupDatabases() {
+        primary = embedded("primary");
+        replica = embedded("replica");
+        route(List.of(replica), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToReplica() {
+        assertEquals("replica", readOnlyTx.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void shouldKeepWritesOnPrimary() {
+        assertEquals("primary", writeTx.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void shouldUsePrimaryOutsideTransactions() {
+        assertEquals("primary", whereAmI());
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaIsDown() {
+        DriverManagerDataSource broken = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+        ReplicaRoutingDataSource routing = route(List.of(broken), Duration.ZERO);
+
+        routing.checkReplicas();
+
+        assertEquals("primary", readOnlyTx.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void shouldReadYourWritesFromPrimary() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin@sweetshop", null));
+
+        writeTx.execute(status -> jdbcTemplate.update("UPDATE marker SET touched = TRUE"));
+
+        assertEquals("primary", readOnlyTx.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void shouldKeepReadsInsideOnPrimaryOnPrimary() {
+        assertEquals("primary", ReplicaRoutingDataSource.onPrimary(() -> readOnlyTx.execute(status -> whereAmI())));
+        assertEquals("replica", readOnlyTx.execute(status -> whereAmI()));
+    }
+
+    @Test
+    void shouldRouteConnectionsWithCredentialsLikeAnyOther() {
+        ReplicaRoutingDataSource routing = route(List.of(replica), Duration.ZERO);
+
+        String url = readOnlyTx.execute(status -> {
+            try (Connection connection = routing.getConnection("sa", "")) {
+                return connection.getMetaData().getURL();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertTrue(url.contains("replica"));
+    }
+
+    @Test
+    void shouldRoundRobinAcrossReplicas() {
+        DataSource secondReplica = embedded("replica2");
+        route(List.of(replica, secondReplica), Duration.ZERO);
+
+        String first = readOnlyTx.execute(status -> whereAmI());
+        String second = readOnlyTx.execute(status -> whereAmI());
+
+        assertNotEquals(first, second);
+        assertTrue(List.of("replica", "replica2").containsAll(List.of(first, second)));
+    }
+
+    private ReplicaRoutingDataSource route(List<DataSource> replicas, Duration readYourWrites) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, readYourWrites);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+        return routing;
+    }
+
+    private String whereAmI() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private DataSource embedded(String name) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20), touched BOOLEAN DEFAULT FALSE)");
+        setup.execute("DELETE FROM marker");
+        setup.update("INSERT INTO marker (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,40 @@
+package com.inn.SweetShop.utils;
+
+import com.inn.SweetShop.Constants.SweetConstants;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SweetUtilsTest {
+
+    @Test
+    void shouldReuseEncodedBodyForConstantMessages() {
+        // Act
+        ResponseEntity<String> first = SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+        ResponseEntity<String> second = SweetUtils.getResponseEntity(SweetConstants.SWEET_NOT_FOUND, HttpStatus.NOT_FOUND);
+
+        // Assert
+        assertEquals("{\"message\":\"Sweet not found\"}", first.getBody());
+        assertSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void shouldEscapeDynamicMessages() {
+        // Act
+        ResponseEntity<String> response = SweetUtils.getResponseEntity("Bad \"name\"\\\n", 3, HttpStatus.OK);
+
+        // Assert
+        assertEquals("{\"message\":\"Bad \\\"name\\\"\\\\\\n\",\"version\":3}", response.getBody());
+    }
+
+    @Test
+    void shouldAddVersionToConstantMessage() {
+        // Act
+        ResponseEntity<String> response = SweetUtils.getResponseEntity(SweetConstants.SWEET_UPDATED, 7, HttpStatus.OK);
+
+        // Assert
+        assertEquals("{\"message\":\"" + SweetConstants.SWEET_UPDATED + "\",\"version\":7}", response.getBody());
+    }
+}
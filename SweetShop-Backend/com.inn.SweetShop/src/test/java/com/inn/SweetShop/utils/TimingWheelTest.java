@@ -0,0 +1,87 @@
+package com.inn.SweetShop.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the wheel with a synthetic clock, 100 ms ticks on an 8-bucket wheel
+ */
+public class TimingWheelTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private List<String> expired;
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void createWheel() {
+        expired = new ArrayList<>();
+        wheel = new TimingWheel<>(100, 8, expired::addAll, START);
+    }
+
+    @Test
+    void shouldExpireItemOnTheTickCoveringItsDeadline() {
+        // Arrange
+        wheel.schedule("hold", 250, START);
+
+        // Act & Assert
+        wheel.advanceTo(at(200));
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(at(300));
+        assertEquals(List.of("hold"), expired);
+    }
+
+    @Test
+    void shouldHoldItemBeyondOneRotationUntilItsRound() {
+        // Arrange - 8 buckets of 100 ms, so 1950 ms is two rotations plus a bit
+        wheel.schedule("long", 1950, START);
+        wheel.schedule("short", 50, START);
+
+        // Act & Assert
+        wheel.advanceTo(at(1900));
+        assertEquals(List.of("short"), expired);
+        wheel.advanceTo(at(2000));
+        assertEquals(List.of("short", "long"), expired);
+    }
+
+    @Test
+    void shouldExpireOverdueItemOnTheNextTick() {
+        // Arrange
+        wheel.advanceTo(at(500));
+        wheel.schedule("late", -1000, at(500));
+
+        // Act
+        int count = wheel.advanceTo(at(600));
+
+        // Assert
+        assertEquals(1, count);
+        assertEquals(List.of("late"), expired);
+    }
+
+    @Test
+    void shouldExpireMillionHoldsInTheirOwnTicks() {
+        // Arrange - spread over 50 s, well past one rotation of the wheel
+        int holds = 1_000_000;
+        long[] perTick = new long[1];
+        TimingWheel<Integer> large = new TimingWheel<>(100, 1024, items -> perTick[0] += items.size(), START);
+        for (int i = 0; i < holds; i++) {
+            large.schedule(i, i % 50_000, START);
+        }
+
+        // Act & Assert - a tick never releases a hold early, and by the end every hold is released
+        large.advanceTo(at(25_000));
+        assertEquals(holds / 2, perTick[0]);
+        large.advanceTo(at(50_000));
+        assertEquals(holds, perTick[0]);
+    }
+
+    private static long at(long millis) {
+        return START + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}